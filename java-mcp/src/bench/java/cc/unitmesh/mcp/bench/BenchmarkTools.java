@@ -0,0 +1,142 @@
+package cc.unitmesh.mcp.bench;
+
+import cc.unitmesh.mcp.annotation.MCPTool;
+import cc.unitmesh.mcp.core.MCPCircuitBreaker;
+import cc.unitmesh.mcp.core.MCPInvocationScheduler;
+import cc.unitmesh.mcp.core.MCPMethodToolCallback;
+import cc.unitmesh.mcp.core.MCPOutputBudget;
+import cc.unitmesh.mcp.core.MCPResultSerializer;
+import cc.unitmesh.mcp.core.MCPToolMetadata;
+import cc.unitmesh.mcp.core.MCPToolMetrics;
+import cc.unitmesh.mcp.core.MCPToolRegistry;
+import ch.qos.logback.classic.Level;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tool fixtures shared by the JMH benchmarks.
+ *
+ * The tool methods are deliberately cheap so the benchmarks measure the dispatch path
+ * (argument parsing, conversion, reflection, result serialization) rather than the tools.
+ *
+ * @author AutoDev MCP Team
+ */
+public class BenchmarkTools {
+
+    public static final int CATEGORIES = 10;
+    public static final int TAGS = 50;
+
+    /**
+     * Runs blocking calls on the bounded elastic scheduler, without worker threads of its own.
+     */
+    public static final MCPInvocationScheduler UNPRIORITIZED = new MCPInvocationScheduler(0, 1);
+
+    /**
+     * Create a serializer without an output budget, so results are never cut off.
+     */
+    public static MCPResultSerializer serializer() {
+        return new MCPResultSerializer(new ObjectMapper(), MCPOutputBudget.UNLIMITED);
+    }
+
+    /**
+     * Tool with scalar arguments and a string result.
+     */
+    public String echo(String text, int count) {
+        return count > 1 ? text.repeat(count) : text;
+    }
+
+    /**
+     * Tool with mixed arguments and an object result that is serialized to JSON.
+     */
+    public Map<String, Object> lookup(String id, long version, boolean verbose) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("id", id);
+        result.put("version", version);
+        result.put("tags", List.of("alpha", "beta", "gamma"));
+        if (verbose) {
+            result.put("description", "Synthetic record " + id + " at version " + version);
+        }
+        return result;
+    }
+
+    /**
+     * Create metadata for one of the fixture methods, as the registry would.
+     */
+    public static MCPToolMetadata metadata(String toolName, String methodName) {
+        BenchmarkTools bean = new BenchmarkTools();
+        return new MCPToolMetadata(toolName, "Benchmark tool " + toolName, "bench", "1.0",
+            new String[]{"bench"}, true, 0, false, 0, false, 0, -1, -1, "",
+            method(methodName), BenchmarkTools.class, () -> bean);
+    }
+
+    /**
+     * Create an unguarded callback for one of the fixture methods without an output budget.
+     */
+    public static MCPMethodToolCallback callback(String toolName, String methodName, MCPToolMetrics metrics) {
+        return new MCPMethodToolCallback(metadata(toolName, methodName), metrics, serializer(),
+            MCPCircuitBreaker.UNGUARDED, UNPRIORITIZED);
+    }
+
+    /**
+     * Create a registry with {@code toolCount} tools spread over {@value #CATEGORIES} categories
+     * and {@value #TAGS} tags. Tools are named {@code tool-0} to {@code tool-(n-1)}.
+     */
+    public static MCPToolRegistry registry(int toolCount) {
+        MCPToolRegistry registry = new MCPToolRegistry();
+        BenchmarkTools bean = new BenchmarkTools();
+        Method echo = method("echo");
+        Method lookup = method("lookup");
+        for (int i = 0; i < toolCount; i++) {
+            registry.registerTool(bean, i % 2 == 0 ? echo : lookup,
+                annotation("tool-" + i, "category-" + (i % CATEGORIES), "tag-" + (i % TAGS)));
+        }
+        return registry;
+    }
+
+    /**
+     * Raise the log level to WARN: the registry and callbacks log every registration and
+     * call at INFO/DEBUG, which would otherwise dominate the measurements.
+     */
+    public static void quietLogging() {
+        Logger root = LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+        if (root instanceof ch.qos.logback.classic.Logger logback) {
+            logback.setLevel(Level.WARN);
+        }
+    }
+
+    static Method method(String name) {
+        for (Method method : BenchmarkTools.class.getMethods()) {
+            if (method.getName().equals(name)) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException("No fixture method: " + name);
+    }
+
+    static MCPTool annotation(String name, String category, String tag) {
+        return new MCPTool() {
+            @Override public Class<? extends Annotation> annotationType() { return MCPTool.class; }
+            @Override public String name() { return name; }
+            @Override public String description() { return "Benchmark tool " + name + " in " + category; }
+            @Override public String category() { return category; }
+            @Override public String version() { return "1.0"; }
+            @Override public String[] tags() { return new String[]{tag, "bench"}; }
+            @Override public boolean enabled() { return true; }
+            @Override public int priority() { return 0; }
+            @Override public boolean requiresAuth() { return false; }
+            @Override public long timeoutMs() { return 0; }
+            @Override public boolean cacheable() { return false; }
+            @Override public long cacheTtlSeconds() { return 0; }
+            @Override public long maxOutputBytes() { return -1; }
+            @Override public int maxOutputItems() { return -1; }
+            @Override public String circuitBreaker() { return ""; }
+        };
+    }
+}
@@ -0,0 +1,201 @@
+package cc.unitmesh.mcp.bench;
+
+import cc.unitmesh.mcp.file.FileSearcher;
+import cc.unitmesh.mcp.file.TrigramIndex;
+import cc.unitmesh.mcp.file.Trigrams;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Build-time, size and query benchmark of the trigram file index on a synthetic source tree.
+ *
+ * Generates {@code files} files of about {@code file-bytes} bytes, 1000 per directory, made of
+ * identifiers drawn from a skewed vocabulary, unless the tree already exists. Then it reports the
+ * time to build the index from scratch and its size on disk, the time to look up and search
+ * patterns of varying selectivity with and without the index, the time to rescan the tree after
+ * touching some files, and the time to reopen the index as after a restart.
+ *
+ * <pre>
+ * mvn -Pbenchmark package -DskipTests
+ * mvn -Pbenchmark exec:java -Dexec.mainClass=cc.unitmesh.mcp.bench.FileIndexBenchmark \
+ *     -Dexec.args="--files=1000000 --dir=/tmp/mcp-index-bench"
+ * </pre>
+ *
+ * @author AutoDev MCP Team
+ */
+public class FileIndexBenchmark {
+
+    private static final int FILES_PER_DIRECTORY = 1000;
+    private static final int VOCABULARY = 50_000;
+    private static final String[] PATTERNS = {
+        "needle_4711",              // in one file per 100,000
+        "import java.util.List",    // in every file
+        "identifierwgx",            // a rare identifier, in under one percent of files
+        "Needle_\\d+_[a-z]+",      // regular expression with literals needle_ and _
+    };
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int files = Integer.parseInt(options.getOrDefault("files", "1000000"));
+        int fileBytes = Integer.parseInt(options.getOrDefault("file-bytes", "2048"));
+        int touched = Integer.parseInt(options.getOrDefault("touch", "1000"));
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+            String.valueOf(Runtime.getRuntime().availableProcessors())));
+        boolean grep = Boolean.parseBoolean(options.getOrDefault("grep", "true"));
+        Path base = Path.of(options.getOrDefault("dir", System.getProperty("java.io.tmpdir") + "/mcp-index-bench"));
+        Path root = base.resolve("tree");
+        Path indexDirectory = base.resolve("index");
+
+        long start = System.nanoTime();
+        long treeBytes = generate(root, files, fileBytes);
+        System.out.printf("tree: %d files, %d MB (%d ms to generate or check)%n",
+            files, treeBytes >> 20, millisSince(start));
+
+        deleteIndex(indexDirectory);
+        TrigramIndex.Settings settings = new TrigramIndex.Settings(threads, 1024 * 1024, 16 * 1024 * 1024);
+        FileSearcher searcher = new FileSearcher(threads, 32, 64);
+        try (TrigramIndex index = new TrigramIndex(root, indexDirectory, settings)) {
+            TrigramIndex.Refresh build = index.refresh();
+            TrigramIndex.Stats stats = index.getStats();
+            System.out.printf("build: %d ms (%.0f files/s), %d trigrams, %d MB on disk (%.0f%% of the tree)%n",
+                build.millis(), build.files() * 1000.0 / Math.max(1, build.millis()), stats.trigrams(),
+                stats.sizeOnDisk() >> 20, stats.sizeOnDisk() * 100.0 / treeBytes);
+
+            for (String pattern : PATTERNS) {
+                boolean regex = pattern.indexOf('\\') >= 0;
+                FileSearcher.Query query = new FileSearcher.Query(pattern, regex, regex, null);
+                int[] required = Trigrams.required(pattern, regex, regex);
+                long lookupNanos = Long.MAX_VALUE;
+                List<Path> candidates = List.of();
+                for (int i = 0; i < 5; i++) {
+                    long lookupStart = System.nanoTime();
+                    candidates = index.candidates(required);
+                    lookupNanos = Math.min(lookupNanos, System.nanoTime() - lookupStart);
+                }
+                long searchStart = System.nanoTime();
+                List<String> indexed = searcher.search(root, candidates, query, 5000).collectList().block();
+                long indexedMillis = millisSince(searchStart);
+                System.out.printf("query %-26s lookup %.2f ms, %d candidates; indexed search %d ms",
+                    pattern, lookupNanos / 1e6, candidates.size(), indexedMillis);
+                if (grep) {
+                    long grepStart = System.nanoTime();
+                    List<String> full = searcher.search(root, query, 5000).collectList().block();
+                    System.out.printf(", full search %d ms (%s vs %s)", millisSince(grepStart),
+                        summary(indexed), summary(full));
+                }
+                System.out.println();
+            }
+
+            touch(root, files, touched);
+            TrigramIndex.Refresh refresh = index.refresh();
+            System.out.printf("rescan after touching %d files: %d ms, %d changed%n",
+                touched, refresh.millis(), refresh.changed());
+        } finally {
+            searcher.close();
+        }
+
+        try (TrigramIndex reopened = new TrigramIndex(root, indexDirectory, settings)) {
+            TrigramIndex.Refresh refresh = reopened.refresh();
+            System.out.printf("reopen and rescan: %d ms, rebuilt=%s, %d changed%n",
+                refresh.millis(), refresh.rebuilt(), refresh.changed());
+        }
+    }
+
+    /**
+     * Write the tree unless it was written by an earlier run; returns its size in bytes.
+     */
+    private static long generate(Path root, int files, int fileBytes) throws IOException {
+        Path marker = root.resolve(".complete-" + files + "-" + fileBytes);
+        if (Files.exists(marker)) {
+            return Long.parseLong(Files.readString(marker).trim());
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        String[] words = new String[VOCABULARY];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = "identifier" + Integer.toString(i * 7919 % VOCABULARY, 36);
+        }
+        String[] keywords = {"public", "private", "static", "final", "return", "if", "for", "new", "void", "int"};
+        long total = 0;
+        StringBuilder content = new StringBuilder(fileBytes + 256);
+        for (int i = 0; i < files; i++) {
+            content.setLength(0);
+            content.append("package bench.p").append(i / FILES_PER_DIRECTORY).append(";\n\n");
+            content.append("import java.util.List;\n\n");
+            content.append("public class File").append(i).append(" {\n");
+            if (i % 100_000 == 4711) {
+                content.append("    // needle_4711_found\n");
+            }
+            while (content.length() < fileBytes) {
+                content.append("    ").append(keywords[random.nextInt(keywords.length)]).append(' ');
+                for (int w = 0; w < 4; w++) {
+                    // Squaring skews the draw towards the start of the vocabulary, like real code
+                    double draw = random.nextDouble();
+                    content.append(words[(int) (draw * draw * VOCABULARY)]).append(w < 3 ? ' ' : ';');
+                }
+                content.append('\n');
+            }
+            content.append("}\n");
+            Path file = root.resolve(directoryOf(i)).resolve("File" + i + ".java");
+            if (i % FILES_PER_DIRECTORY == 0) {
+                Files.createDirectories(file.getParent());
+            }
+            Files.writeString(file, content);
+            total += content.length();
+        }
+        Files.writeString(marker, Long.toString(total));
+        return total;
+    }
+
+    private static String directoryOf(int file) {
+        int directory = file / FILES_PER_DIRECTORY;
+        return "d" + directory / 100 + "/d" + directory % 100;
+    }
+
+    private static void touch(Path root, int files, int touched) throws IOException {
+        FileTime now = FileTime.fromMillis(System.currentTimeMillis());
+        int step = Math.max(1, files / Math.max(1, touched));
+        for (int i = 0; i < files && touched-- > 0; i += step) {
+            Files.setLastModifiedTime(root.resolve(directoryOf(i)).resolve("File" + i + ".java"), now);
+        }
+    }
+
+    private static void deleteIndex(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (var entries = Files.walk(directory)) {
+            List<Path> paths = new ArrayList<>(entries.toList());
+            paths.sort((a, b) -> b.getNameCount() - a.getNameCount());
+            for (Path path : paths) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static String summary(List<String> chunks) {
+        return chunks == null || chunks.isEmpty() ? "[]" : chunks.get(chunks.size() - 1);
+    }
+
+    private static long millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int index = arg.indexOf('=');
+                options.put(arg.substring(2, index), arg.substring(index + 1));
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,73 @@
+package cc.unitmesh.mcp.bench;
+
+import cc.unitmesh.mcp.core.MCPMethodToolCallback;
+import cc.unitmesh.mcp.core.MCPToolMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single tool call dispatch: JSON argument parsing, argument conversion, reflective invocation
+ * and result serialization, plus the schema generation done for every tools/list.
+ *
+ * <pre>
+ * mvn -Pbenchmark compile exec:exec -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main MCPMethodToolCallbackBenchmark -prof gc"
+ * </pre>
+ *
+ * @author AutoDev MCP Team
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MCPMethodToolCallbackBenchmark {
+
+    private MCPMethodToolCallback echoTool;
+    private MCPMethodToolCallback lookupTool;
+
+    private final String echoArguments = "{\"text\":\"hello\",\"count\":2}";
+    private final String lookupArguments = "{\"id\":\"order-42\",\"version\":7,\"verbose\":true}";
+    private final Map<String, Object> lookupDecodedArguments =
+        Map.of("id", "order-42", "version", 7, "verbose", true);
+
+    @Setup
+    public void setUp() {
+        BenchmarkTools.quietLogging();
+        MCPToolMetrics metrics = new MCPToolMetrics(false);
+        echoTool = BenchmarkTools.callback("echo", "echo", metrics);
+        lookupTool = BenchmarkTools.callback("lookup", "lookup", metrics);
+    }
+
+    @Benchmark
+    public String callStringResult() {
+        return echoTool.call(echoArguments);
+    }
+
+    @Benchmark
+    public String callObjectResult() {
+        return lookupTool.call(lookupArguments);
+    }
+
+    @Benchmark
+    public String callDecodedArguments() {
+        return lookupTool.call(lookupDecodedArguments);
+    }
+
+    @Benchmark
+    public String inputTypeSchema() {
+        return lookupTool.getInputTypeSchema();
+    }
+}
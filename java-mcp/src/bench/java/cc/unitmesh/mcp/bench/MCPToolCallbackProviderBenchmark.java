@@ -0,0 +1,96 @@
+package cc.unitmesh.mcp.bench;
+
+import cc.unitmesh.mcp.annotation.MCPTool;
+import cc.unitmesh.mcp.core.MCPCircuitBreakerRegistry;
+import cc.unitmesh.mcp.core.MCPToolCallbackProvider;
+import cc.unitmesh.mcp.core.MCPToolMetrics;
+import cc.unitmesh.mcp.core.MCPToolRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.ai.model.function.FunctionCallback;
+import org.springframework.ai.tool.ToolCallback;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Callback provider access at 10, 1k and 10k tools: the callback array handed to Spring AI,
+ * single callback lookup, building every input schema as a tools/list response does, and
+ * registering plus unregistering one tool at runtime.
+ *
+ * <pre>
+ * mvn -Pbenchmark compile exec:exec -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main MCPToolCallbackProviderBenchmark -prof gc"
+ * </pre>
+ *
+ * @author AutoDev MCP Team
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MCPToolCallbackProviderBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int toolCount;
+
+    private MCPToolRegistry registry;
+    private MCPToolCallbackProvider provider;
+    private String lookupName;
+    private BenchmarkTools runtimeBean;
+    private Method runtimeMethod;
+    private MCPTool runtimeAnnotation;
+
+    @Setup
+    public void setUp() {
+        BenchmarkTools.quietLogging();
+        registry = BenchmarkTools.registry(toolCount);
+        provider = new MCPToolCallbackProvider(registry, new MCPToolMetrics(false), BenchmarkTools.serializer(),
+            MCPCircuitBreakerRegistry.DISABLED, BenchmarkTools.UNPRIORITIZED);
+        lookupName = "tool-" + (toolCount / 2);
+        runtimeBean = new BenchmarkTools();
+        runtimeMethod = BenchmarkTools.method("echo");
+        runtimeAnnotation = BenchmarkTools.annotation("runtime-tool", "runtime", "runtime");
+    }
+
+    @Benchmark
+    public FunctionCallback[] getToolCallbacks() {
+        return provider.getToolCallbacks();
+    }
+
+    @Benchmark
+    public Optional<ToolCallback> getToolCallback() {
+        return provider.getToolCallback(lookupName);
+    }
+
+    @Benchmark
+    public void listToolSchemas(Blackhole blackhole) {
+        for (FunctionCallback callback : provider.getToolCallbacks()) {
+            blackhole.consume(callback.getInputTypeSchema());
+        }
+    }
+
+    /**
+     * One tool added and removed again; only that tool's callback is created.
+     */
+    @Benchmark
+    public int registerAndUnregister() {
+        registry.registerTool(runtimeBean, runtimeMethod, runtimeAnnotation);
+        int count = provider.getCallbackCount();
+        registry.unregisterTool("runtime-tool");
+        return count;
+    }
+}
@@ -0,0 +1,87 @@
+package cc.unitmesh.mcp.bench;
+
+import cc.unitmesh.mcp.core.MCPToolMetadata;
+import cc.unitmesh.mcp.core.MCPToolRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registry lookups and searches at 10, 1k and 10k registered tools.
+ *
+ * <pre>
+ * mvn -Pbenchmark compile exec:exec -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main MCPToolRegistryBenchmark -prof gc"
+ * </pre>
+ *
+ * @author AutoDev MCP Team
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MCPToolRegistryBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int toolCount;
+
+    private MCPToolRegistry registry;
+    private String[] names;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        BenchmarkTools.quietLogging();
+        registry = BenchmarkTools.registry(toolCount);
+        names = new String[toolCount];
+        for (int i = 0; i < toolCount; i++) {
+            names[i] = "tool-" + i;
+        }
+    }
+
+    @Benchmark
+    public Optional<MCPToolMetadata> getTool() {
+        next = next + 1 < names.length ? next + 1 : 0;
+        return registry.getTool(names[next]);
+    }
+
+    @Benchmark
+    public Optional<MCPToolMetadata> getMissingTool() {
+        return registry.getTool("no-such-tool");
+    }
+
+    @Benchmark
+    public Collection<MCPToolMetadata> getAllTools() {
+        return registry.getAllTools();
+    }
+
+    @Benchmark
+    public List<MCPToolMetadata> getToolsByCategory() {
+        return registry.getToolsByCategory("category-3");
+    }
+
+    @Benchmark
+    public List<MCPToolMetadata> getToolsByTag() {
+        return registry.getToolsByTag("tag-7");
+    }
+
+    @Benchmark
+    public List<MCPToolMetadata> searchTools() {
+        return registry.searchTools("TOOL-9");
+    }
+}
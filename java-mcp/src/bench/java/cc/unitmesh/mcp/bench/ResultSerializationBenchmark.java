@@ -0,0 +1,82 @@
+package cc.unitmesh.mcp.bench;
+
+import cc.unitmesh.mcp.core.MCPResultSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result serialization of a query-like {@code List<Map>} result: the former
+ * {@code writeValueAsString} path against {@link MCPResultSerializer}. Compare
+ * {@code gc.alloc.rate.norm} between the baseline and the serializer.
+ *
+ * <pre>
+ * mvn -Pbenchmark compile exec:exec -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main ResultSerializationBenchmark -prof gc"
+ * </pre>
+ *
+ * @author AutoDev MCP Team
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultSerializationBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int rows;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MCPResultSerializer serializer = BenchmarkTools.serializer();
+    private List<Map<String, Object>> result;
+
+    @Setup
+    public void setUp() {
+        result = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", i);
+            row.put("name", "customer-" + i);
+            row.put("email", "customer" + i + "@example.com");
+            row.put("balance", i * 12.5);
+            row.put("note", "line one\nline \"two\"");
+            row.put("created_at", LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(i).toString());
+            result.add(row);
+        }
+    }
+
+    @Benchmark
+    public String baselineWriteValueAsString() throws IOException {
+        return objectMapper.writeValueAsString(result);
+    }
+
+    @Benchmark
+    public String serialize() throws IOException {
+        return serializer.serialize(result);
+    }
+
+    @Benchmark
+    public void writeToStream() throws IOException {
+        serializer.writeTo(result, OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,173 @@
+package cc.unitmesh.mcp.bench;
+
+import io.modelcontextprotocol.client.McpClient;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.client.transport.HttpClientSseClientTransport;
+import io.modelcontextprotocol.client.transport.ServerParameters;
+import io.modelcontextprotocol.client.transport.StdioClientTransport;
+import io.modelcontextprotocol.spec.McpClientTransport;
+import io.modelcontextprotocol.spec.McpSchema;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load benchmark comparing one stdio server process per session against one shared SSE server.
+ *
+ * Every session runs {@code calls} sequential tool calls; sessions run concurrently. The report
+ * contains throughput and the resident memory (VmRSS, Linux only) of all server processes.
+ *
+ * <pre>
+ * mvn -Pbenchmark package -DskipTests
+ * mvn -Pbenchmark exec:java -Dexec.mainClass=cc.unitmesh.mcp.bench.TransportLoadBenchmark \
+ *     -Dexec.args="--mode=sse --sessions=16 --calls=200"
+ * </pre>
+ *
+ * @author AutoDev MCP Team
+ */
+public class TransportLoadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String mode = options.getOrDefault("mode", "stdio");
+        int sessions = Integer.parseInt(options.getOrDefault("sessions", "8"));
+        int calls = Integer.parseInt(options.getOrDefault("calls", "100"));
+        int port = Integer.parseInt(options.getOrDefault("port", "8080"));
+        String jar = options.getOrDefault("jar", "target/mcp-0.0.1-SNAPSHOT.jar");
+        String tool = options.getOrDefault("tool", "get_weather_forecast");
+
+        if (!Files.exists(Path.of(jar))) {
+            throw new IllegalArgumentException("Server jar not found: " + jar + " (run mvn package first)");
+        }
+
+        Process sharedServer = null;
+        if ("sse".equals(mode)) {
+            sharedServer = new ProcessBuilder("java", "-jar", jar,
+                    "--spring.profiles.active=sse", "--server.port=" + port)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+            waitForPort(port, Duration.ofSeconds(60));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(sessions);
+        List<McpSyncClient> clients = new ArrayList<>();
+        AtomicLong failures = new AtomicLong();
+        try {
+            long connectStart = System.nanoTime();
+            for (int i = 0; i < sessions; i++) {
+                McpSyncClient client = McpClient.sync(createTransport(mode, jar, port))
+                    .requestTimeout(Duration.ofSeconds(60))
+                    .build();
+                client.initialize();
+                clients.add(client);
+            }
+            long connectNanos = System.nanoTime() - connectStart;
+
+            Map<String, Object> arguments = Map.of("latitude", 47.6, "longitude", -122.3);
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (McpSyncClient client : clients) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < calls; i++) {
+                        McpSchema.CallToolResult result =
+                            client.callTool(new McpSchema.CallToolRequest(tool, arguments));
+                        if (Boolean.TRUE.equals(result.isError())) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsedNanos = System.nanoTime() - start;
+
+            long totalCalls = (long) sessions * calls;
+            System.out.printf("mode=%s sessions=%d calls/session=%d%n", mode, sessions, calls);
+            System.out.printf("  connect+initialize: %d ms%n", connectNanos / 1_000_000);
+            System.out.printf("  elapsed:            %d ms%n", elapsedNanos / 1_000_000);
+            System.out.printf("  throughput:         %.1f calls/s%n", totalCalls / (elapsedNanos / 1e9));
+            System.out.printf("  failures:           %d%n", failures.get());
+            System.out.printf("  server RSS total:   %d MB%n", serverResidentMemoryKb(sharedServer) / 1024);
+        } finally {
+            for (McpSyncClient client : clients) {
+                client.closeGracefully();
+            }
+            executor.shutdownNow();
+            if (sharedServer != null) {
+                sharedServer.destroy();
+            }
+        }
+    }
+
+    private static McpClientTransport createTransport(String mode, String jar, int port) {
+        if ("sse".equals(mode)) {
+            return new HttpClientSseClientTransport("http://localhost:" + port);
+        }
+        return new StdioClientTransport(ServerParameters.builder("java")
+            .args("-jar", jar)
+            .build());
+    }
+
+    /**
+     * Sum the resident set size of the server processes: the shared server in SSE mode,
+     * otherwise every java child process spawned by the stdio transports.
+     */
+    private static long serverResidentMemoryKb(Process sharedServer) {
+        if (sharedServer != null) {
+            return residentMemoryKb(sharedServer.pid());
+        }
+        return ProcessHandle.current().descendants()
+            .filter(handle -> handle.info().command().map(c -> c.endsWith("java")).orElse(false))
+            .mapToLong(handle -> residentMemoryKb(handle.pid()))
+            .sum();
+    }
+
+    private static long residentMemoryKb(long pid) {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", String.valueOf(pid), "status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Not on Linux or the process is gone
+        }
+        return 0;
+    }
+
+    private static void waitForPort(int port, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            try (Socket ignored = new Socket("localhost", port)) {
+                return;
+            } catch (IOException e) {
+                Thread.sleep(200);
+            }
+        }
+        throw new IllegalStateException("Server did not open port " + port + " within " + timeout);
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int index = arg.indexOf('=');
+                options.put(arg.substring(2, index), arg.substring(index + 1));
+            }
+        }
+        return options;
+    }
+}
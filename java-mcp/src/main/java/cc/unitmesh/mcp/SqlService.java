@@ -1,37 +1,246 @@
 package cc.unitmesh.mcp;
 
 import cc.unitmesh.mcp.annotation.MCPTool;
+import cc.unitmesh.mcp.core.MCPCancellation;
+import cc.unitmesh.mcp.core.MCPProgressReporter;
+import cc.unitmesh.mcp.datasource.ReplicaReadExecutor;
+import cc.unitmesh.mcp.datasource.ShardRegistry;
+import cc.unitmesh.mcp.sql.QueryCostGuard;
+import cc.unitmesh.mcp.sql.QueryOutputFormat;
+import cc.unitmesh.mcp.sql.QueryResultCache;
+import cc.unitmesh.mcp.sql.QuerySampler;
+import cc.unitmesh.mcp.sql.ResultSpool;
+import cc.unitmesh.mcp.sql.ResultSpoolManager;
+import cc.unitmesh.mcp.sql.ShardQueryExecutor;
+import cc.unitmesh.mcp.sql.ShardQueryPlan;
+import cc.unitmesh.mcp.sql.SqlQueryParser;
+import cc.unitmesh.mcp.sql.TableChangePoller;
+import cc.unitmesh.mcp.sql.TableStatistics;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.StatementCallback;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
+/**
+ * Database tools. Lazy, like everything behind it: the tools are listed from their metadata,
+ * and the first call of one creates this service, the datasource and the background pollers.
+ */
 @Service
+@Lazy
 public class SqlService {
+    private static final int PROGRESS_ROWS = 100;
+
     private final JdbcTemplate jdbcTemplate;
+    private final ReplicaReadExecutor replicaReads;
+    private final SqlQueryParser queryParser;
+    private final QueryResultCache resultCache;
+    private final QueryCostGuard costGuard;
+    private final ResultSpoolManager spoolManager;
+    private final QuerySampler sampler;
+    private final TableStatistics tableStatistics;
+    private final ShardRegistry shards;
+    private final ShardQueryExecutor shardQueries;
+    private final int spoolMaxRows;
+    private final int spoolFetchSize;
 
-    public SqlService(JdbcTemplate jdbcTemplate) {
+    public SqlService(JdbcTemplate jdbcTemplate, ReplicaReadExecutor replicaReads, SqlQueryParser queryParser,
+                      QueryResultCache resultCache, QueryCostGuard costGuard, ResultSpoolManager spoolManager,
+                      QuerySampler sampler, TableStatistics tableStatistics,
+                      ShardRegistry shards, ShardQueryExecutor shardQueries, TableChangePoller changePoller,
+                      @Value("${mcp.sql.spool.max-rows:10000000}") int spoolMaxRows,
+                      @Value("${mcp.sql.spool.fetch-size:-2147483648}") int spoolFetchSize) {
         this.jdbcTemplate = jdbcTemplate;
+        this.replicaReads = replicaReads;
+        this.queryParser = queryParser;
+        this.resultCache = resultCache;
+        this.costGuard = costGuard;
+        this.spoolManager = spoolManager;
+        this.sampler = sampler;
+        this.tableStatistics = tableStatistics;
+        this.shards = shards;
+        this.shardQueries = shardQueries;
+        this.spoolMaxRows = spoolMaxRows;
+        this.spoolFetchSize = spoolFetchSize;
+        changePoller.start();
     }
 
     @MCPTool(
         name = "query_sql",
-        description = "Execute a select SQL query and return results in a readable format. Results will be truncated after 4000 characters. Will throw an exception if the query is not a SELECT statement.",
+        description = "Execute a select SQL query (WITH ... SELECT and UNION included) and return results in a readable format. Queries without a LIMIT, or with a larger one, are limited to the configured maximum number of rows. Repeated queries are answered from a cache until a table they read changes. The optional format is json (default, one object per row), columnar (column names and types once, then one array per row), csv or tsv; the last three are much smaller for wide results. Queries estimated by EXPLAIN to examine too many rows are rejected with the plan, so add selective, indexed filters. For a rough answer over a large table, pass sampleRows: a single-table query without joins or subqueries then runs over a random sample of about that many rows, and returns a header with the sample size and estimated table size followed by JSON rows in which COUNT and SUM values are scaled to the whole table. Results are cut off after 4000 bytes (UTF-8) with a [truncated: ...] line; use spool_query for larger results. Will throw an exception if the query is not a read-only SELECT statement.",
         category = "database",
         version = "1.0",
         tags = {"sql", "query", "database"},
+        priority = -10,
         timeoutMs = 30000,
-        requiresAuth = true
+        requiresAuth = true,
+        maxOutputBytes = 4000
     )
-    public List<Map<String, Object>> queryBySql(String sql) {
-        if (!sql.toLowerCase().startsWith("select")) {
-            throw new RuntimeException("Only SELECT queries are allowed.");
+    public Object queryBySql(String sql, String format, Integer sampleRows, MCPProgressReporter progress,
+                             MCPCancellation cancellation) {
+        SqlQueryParser.ParsedQuery query = queryParser.parse(sql);
+        QueryOutputFormat outputFormat = QueryOutputFormat.of(format);
+        if (sampleRows != null && sampleRows > 0) {
+            if (outputFormat != QueryOutputFormat.JSON) {
+                throw new IllegalArgumentException("Sampled results are only returned as json.");
+            }
+            // Bounded by the sample size, subqueries being rejected, so neither cached nor guarded by the cost estimate
+            return replicaReads.read("query_sql", cancellation, attempt -> sampler.sample(query, sampleRows, attempt));
+        }
+        // A result cut short by the cost guard is not cached, or later calls would get it without the notice
+        boolean[] limited = new boolean[1];
+        return resultCache.get(query, outputFormat.name(), () -> {
+            try (QueryCostGuard.Admission admission = costGuard.admit(query, this::explain, cancellation)) {
+                if (admission.isLimited()) {
+                    limited[0] = true;
+                    progress.progress(0, 0, "Expensive query limited to " + admission.getMaxRows() + " rows. Plan: "
+                            + admission.getPlan().summary());
+                    return runQuery(queryParser.withLimit(query, admission.getMaxRows()), admission.getMaxRows(),
+                            outputFormat, progress, cancellation);
+                }
+                return runQuery(query.boundedSql(), queryParser.getMaxRows(), outputFormat, progress, cancellation);
+            }
+        }, result -> !limited[0]);
+    }
+
+    private Object runQuery(String sql, int maxRows, QueryOutputFormat outputFormat, MCPProgressReporter progress,
+                            MCPCancellation cancellation) {
+        // A hedged read runs twice; only report progress beyond what was already reported
+        AtomicInteger reportedRows = new AtomicInteger();
+        return replicaReads.read("query_sql", cancellation, attempt ->
+            jdbcTemplate.execute((StatementCallback<Object>) stmt -> {
+                // Also bound FETCH FIRST queries, which are not rewritten
+                stmt.setMaxRows(maxRows);
+                // Statement.cancel() aborts the query on the database side, not just the local wait
+                try (MCPCancellation.Registration ignored = attempt.onCancel(() -> cancelQuietly(stmt));
+                     ResultSet rs = stmt.executeQuery(sql)) {
+                    QueryOutputFormat.RowCollector rows = outputFormat.newCollector();
+                    rows.start(rs.getMetaData());
+                    while (rs.next()) {
+                        attempt.throwIfCancelled();
+                        rows.add(rs);
+                        int count = rows.size();
+                        if (count % PROGRESS_ROWS == 0 && reportedRows.getAndAccumulate(count, Math::max) < count) {
+                            progress.progress(count, 0, count + " rows fetched");
+                        }
+                    }
+                    return rows.finish();
+                }
+            }));
+    }
+
+    private List<Map<String, Object>> explain(String sql) {
+        return replicaReads.read("explain", MCPCancellation.NONE, attempt -> jdbcTemplate.queryForList("EXPLAIN " + sql));
+    }
+
+    private static void cancelQuietly(Statement stmt) {
+        try {
+            stmt.cancel();
+        } catch (SQLException e) {
+            // The statement may already be closed; nothing left to cancel
         }
-        return jdbcTemplate.queryForList(sql);
+    }
+
+    @MCPTool(
+        name = "query_shards",
+        description = "Run a read-only SELECT on every shard of the sharded database in parallel (or only on the comma-separated shards given) and merge the results. Rows are merged in ORDER BY order and LIMIT [offset,] count applies to the merged result, as if all shards were one table; ORDER BY columns must be selected. GROUP BY, DISTINCT and aggregates are computed per shard. Every row has a _shard column, and a header lists the status, row count and time of each shard; shards that time out or fail are reported there and the result is marked partial.",
+        category = "database",
+        version = "1.0",
+        tags = {"sql", "query", "database", "shards"},
+        priority = -10,
+        circuitBreaker = "shards",
+        timeoutMs = 60000,
+        requiresAuth = true,
+        maxOutputBytes = 4000
+    )
+    public List<Object> queryShards(String sql, String shardNames, MCPProgressReporter progress,
+                                    MCPCancellation cancellation) {
+        List<String> targets = shards.resolve(shardNames);
+        ShardQueryPlan plan = ShardQueryPlan.of(queryParser.parse(sql));
+        return shardQueries.gather(plan, targets, progress, cancellation);
+    }
+
+    @MCPTool(
+        name = "spool_query",
+        description = "Run a large read-only SELECT in the background and return a handle at once. Rows are written to disk as the database returns them, without the row limit of query_sql but up to a much larger spool limit; a result cut off at that limit ends in state TRUNCATED. Read them with fetch_spooled_rows while or after spooling, and free them with release_spooled_result.",
+        category = "database",
+        version = "1.0",
+        tags = {"sql", "query", "database", "export"},
+        priority = -10,
+        requiresAuth = true
+    )
+    public Map<String, Object> spoolQuery(String sql) throws IOException {
+        SqlQueryParser.ParsedQuery query = queryParser.parse(sql);
+        // One row more than is spooled, to tell a cut-off result from one of exactly that many rows
+        String limitedSql = queryParser.withLimit(query, (int) Math.min(Integer.MAX_VALUE, spoolMaxRows + 1L));
+        ResultSpool spool = spoolManager.start(query.sql(), spoolMaxRows, (cancellation, consumer) ->
+            // Hedging would run the whole export twice
+            replicaReads.readWithoutHedging("spool_query", cancellation, attempt ->
+                jdbcTemplate.execute((StatementCallback<Void>) stmt -> {
+                    // Stream rows instead of buffering the whole result in the driver (MySQL: Integer.MIN_VALUE)
+                    stmt.setFetchSize(spoolFetchSize);
+                    try (MCPCancellation.Registration ignored = attempt.onCancel(() -> cancelQuietly(stmt));
+                         ResultSet rs = stmt.executeQuery(limitedSql)) {
+                        consumer.accept(rs);
+                    }
+                    return null;
+                })));
+        return spoolManager.describe(spool, 0, -1);
+    }
+
+    @MCPTool(
+        name = "fetch_spooled_rows",
+        description = "Read rows of a spooled result: a header (state, rowsSpooled, columns, types) followed by one array per row, starting at the zero-based offset (default 0), at most limit rows (default 100, max 1000). Rows become readable while the query is still spooling; poll until state is DONE to see them all. State TRUNCATED means the result had more rows than were spooled, and the header's truncated field says which limit stopped it.",
+        category = "database",
+        version = "1.0",
+        tags = {"sql", "query", "database", "export"},
+        priority = 10,
+        circuitBreaker = "none",
+        requiresAuth = true
+    )
+    public List<Object> fetchSpooledRows(String handle, Long offset, Integer limit) throws IOException {
+        int pageSize = limit != null && limit > 0 ? Math.min(limit, 1000) : 100;
+        return spoolManager.page(handle, offset != null ? offset : 0, pageSize);
+    }
+
+    @MCPTool(
+        name = "release_spooled_result",
+        description = "Delete a spooled result, cancelling its query if it is still running.",
+        category = "database",
+        version = "1.0",
+        tags = {"sql", "database", "export"},
+        priority = 10,
+        circuitBreaker = "none"
+    )
+    public String releaseSpooledResult(String handle) {
+        return spoolManager.release(handle) ? "Released " + handle : "No spooled result " + handle;
+    }
+
+    @MCPTool(
+        name = "invalidate_query_cache",
+        description = "Drop the cached query_sql results that read the given table, e.g. right after changing it outside this server. Pass an empty table name to drop all cached results. Returns the number of results dropped.",
+        category = "database",
+        version = "1.0",
+        tags = {"sql", "cache", "database"},
+        priority = 10,
+        circuitBreaker = "none"
+    )
+    public String invalidateQueryCache(String tableName) {
+        int removed = tableName == null || tableName.isBlank()
+                ? resultCache.clear()
+                : resultCache.invalidate(tableName);
+        return "Dropped " + removed + " cached query results";
     }
 
     @MCPTool(
@@ -40,23 +249,43 @@ public class SqlService {
         category = "database",
         version = "1.0",
         tags = {"sql", "tables", "schema", "database"},
+        priority = 10,
         cacheable = true,
         cacheTtlSeconds = 600
     )
     public String listAllTablesName() {
-        List<Map<String, Object>> tableNames = jdbcTemplate.queryForList(
-                "SELECT table_name FROM information_schema.tables WHERE table_schema = DATABASE()");
+        List<Map<String, Object>> tableNames = replicaReads.read("list_tables", MCPCancellation.NONE,
+                attempt -> jdbcTemplate.queryForList(
+                        "SELECT table_name FROM information_schema.tables WHERE table_schema = DATABASE()"));
         return tableNames.stream()
                 .map(e -> e.values().iterator().next().toString())
                 .collect(Collectors.joining(","));
     }
 
+    @MCPTool(
+        name = "table_stats",
+        description = "Return size statistics without scanning any table. With a table name: estimated row count, data and index bytes, each column with its estimated number of distinct values (for indexed columns) and the indexes with their cardinality. Without one: the size of every table, largest first. Figures are the database's estimates, not exact counts.",
+        category = "database",
+        version = "1.0",
+        tags = {"sql", "tables", "statistics", "database"},
+        priority = 10,
+        cacheable = true,
+        cacheTtlSeconds = 300
+    )
+    public Object tableStats(String tableName) {
+        return replicaReads.read("table_stats", MCPCancellation.NONE, attempt ->
+                tableName == null || tableName.isBlank()
+                        ? tableStatistics.allTables()
+                        : tableStatistics.table(tableName));
+    }
+
     @MCPTool(
         name = "get_table_schema",
         description = "Returns schema and relation information for the given table. Includes column name, data type and constraints. This is useful for understanding the structure of a specific table.",
         category = "database",
         version = "1.0",
         tags = {"sql", "schema", "table", "database", "structure"},
+        priority = 10,
         cacheable = true,
         cacheTtlSeconds = 1800
     )
@@ -69,7 +298,8 @@ public class SqlService {
                     column_default
                 FROM information_schema.columns
                 WHERE table_name = ?""";
-        List<Map<String, Object>> columnNames = jdbcTemplate.queryForList(sql, tableName);
+        List<Map<String, Object>> columnNames = replicaReads.read("get_table_schema", MCPCancellation.NONE,
+                attempt -> jdbcTemplate.queryForList(sql, tableName));
         return columnNames.stream()
                 .map(e -> e.values().iterator().next().toString())
                 .collect(Collectors.joining(","));
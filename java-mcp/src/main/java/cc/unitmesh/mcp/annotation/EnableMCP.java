@@ -1,6 +1,7 @@
 package cc.unitmesh.mcp.annotation;
 
 import cc.unitmesh.mcp.config.MCPAutoConfiguration;
+import cc.unitmesh.mcp.config.MCPServerConfiguration;
 import org.springframework.context.annotation.Import;
 
 import java.lang.annotation.*;
@@ -29,7 +30,7 @@ import java.lang.annotation.*;
 @Target(ElementType.TYPE)
 @Retention(RetentionPolicy.RUNTIME)
 @Documented
-@Import(MCPAutoConfiguration.class)
+@Import({MCPAutoConfiguration.class, MCPServerConfiguration.class})
 public @interface EnableMCP {
     
     /**
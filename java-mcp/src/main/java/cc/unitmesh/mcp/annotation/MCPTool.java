@@ -70,6 +70,8 @@ public @interface MCPTool {
     /**
      * Priority of the tool when multiple tools are available.
      * Higher values indicate higher priority.
+     * Also orders the calls waiting for a worker thread under load: give cheap interactive tools
+     * a positive priority and heavy ones a negative one.
      */
     int priority() default 0;
     
@@ -93,4 +95,22 @@ public @interface MCPTool {
      * Cache TTL in seconds if cacheable is true.
      */
     long cacheTtlSeconds() default 300;
+    
+    /**
+     * Maximum size of the serialized result in bytes; output beyond it is cut off and marked as truncated.
+     * -1 uses the global mcp.output.max-bytes limit, 0 means no limit.
+     */
+    long maxOutputBytes() default -1;
+    
+    /**
+     * Maximum number of top-level items (list elements, map entries or streamed chunks) in the result.
+     * -1 uses the global mcp.output.max-items limit, 0 means no limit.
+     */
+    int maxOutputItems() default -1;
+    
+    /**
+     * Circuit breaker guarding this tool, shared by all tools naming the same backend.
+     * Empty uses the category, "none" leaves the tool unguarded (e.g. tools that only touch local state).
+     */
+    String circuitBreaker() default "";
 }
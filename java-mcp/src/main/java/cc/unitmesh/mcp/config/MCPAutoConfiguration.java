@@ -1,15 +1,31 @@
 package cc.unitmesh.mcp.config;
 
 import cc.unitmesh.mcp.annotation.EnableMCP;
-import cc.unitmesh.mcp.annotation.MCPTool;
+import cc.unitmesh.mcp.core.MCPCircuitBreaker;
+import cc.unitmesh.mcp.core.MCPCircuitBreakerRegistry;
+import cc.unitmesh.mcp.core.MCPFlightRecorder;
+import cc.unitmesh.mcp.core.MCPInvocationScheduler;
+import cc.unitmesh.mcp.core.MCPInvocationTracker;
+import cc.unitmesh.mcp.core.MCPOutputBudget;
+import cc.unitmesh.mcp.core.MCPResultSerializer;
+import cc.unitmesh.mcp.core.MCPServerStatsTool;
 import cc.unitmesh.mcp.core.MCPToolCallbackProvider;
+import cc.unitmesh.mcp.core.MCPToolMetrics;
 import cc.unitmesh.mcp.core.MCPToolRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.tool.ToolCallbackProvider;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.ImportAware;
@@ -18,10 +34,12 @@ import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
 
-import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Auto-configuration for MCP (Model Context Protocol) functionality.
@@ -57,19 +75,85 @@ public class MCPAutoConfiguration implements ImportAware {
     
     @Bean
     @ConditionalOnMissingBean
-    public MCPToolCallbackProvider mcpToolCallbackProvider(MCPToolRegistry toolRegistry) {
-        return new MCPToolCallbackProvider(toolRegistry);
+    public MCPToolMetrics mcpToolMetrics(@Value("${mcp.metrics.resource-accounting:false}") boolean resourceAccounting) {
+        return new MCPToolMetrics(resourceAccounting);
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public MCPInvocationTracker mcpInvocationTracker() {
+        return new MCPInvocationTracker();
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public MCPResultSerializer mcpResultSerializer(@Value("${mcp.output.max-bytes:1048576}") long maxBytes,
+                                                   @Value("${mcp.output.max-items:10000}") int maxItems) {
+        return new MCPResultSerializer(new ObjectMapper(), new MCPOutputBudget(maxBytes, maxItems));
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public MCPCircuitBreakerRegistry mcpCircuitBreakerRegistry(
+            @Value("${mcp.circuit-breaker.enabled:true}") boolean enabled,
+            @Value("${mcp.circuit-breaker.window-size:20}") int windowSize,
+            @Value("${mcp.circuit-breaker.minimum-calls:10}") int minimumCalls,
+            @Value("${mcp.circuit-breaker.failure-rate-threshold:50}") double failureRateThreshold,
+            @Value("${mcp.circuit-breaker.slow-call-rate-threshold:80}") double slowCallRateThreshold,
+            @Value("${mcp.circuit-breaker.slow-call-ms:10000}") long slowCallMs,
+            @Value("${mcp.circuit-breaker.open-ms:30000}") long openMs,
+            @Value("${mcp.circuit-breaker.half-open-calls:3}") int halfOpenCalls) {
+        return new MCPCircuitBreakerRegistry(enabled, new MCPCircuitBreaker.Settings(windowSize, minimumCalls,
+            failureRateThreshold, slowCallRateThreshold, slowCallMs, openMs, halfOpenCalls));
+    }
+    
+    /**
+     * With mcp.scheduler.enabled=false, blocking calls run on the bounded elastic scheduler
+     * in arrival order.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public MCPInvocationScheduler mcpInvocationScheduler(@Value("${mcp.scheduler.enabled:true}") boolean enabled,
+                                                         @Value("${mcp.scheduler.threads:16}") int threads,
+                                                         @Value("${mcp.scheduler.aging-ms:100}") long agingMs) {
+        return new MCPInvocationScheduler(enabled ? Math.max(1, threads) : 0, agingMs);
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public MCPToolCallbackProvider mcpToolCallbackProvider(MCPToolRegistry toolRegistry, MCPToolMetrics metrics,
+                                                           MCPResultSerializer resultSerializer,
+                                                           MCPCircuitBreakerRegistry circuitBreakers,
+                                                           MCPInvocationScheduler scheduler) {
+        return new MCPToolCallbackProvider(toolRegistry, metrics, resultSerializer, circuitBreakers, scheduler);
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public MCPServerStatsTool mcpServerStatsTool(MCPToolMetrics metrics, MCPToolRegistry toolRegistry,
+                                                 MCPInvocationTracker invocationTracker,
+                                                 MCPCircuitBreakerRegistry circuitBreakers,
+                                                 MCPInvocationScheduler scheduler) {
+        return new MCPServerStatsTool(metrics, toolRegistry, invocationTracker, circuitBreakers, scheduler);
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "mcp.jfr", name = "enabled", havingValue = "true")
+    public MCPFlightRecorder mcpFlightRecorder(@Value("${mcp.jfr.max-age:6h}") Duration maxAge,
+                                               @Value("${mcp.jfr.max-size-mb:256}") long maxSizeMb,
+                                               @Value("${mcp.jfr.destination:mcp-recording.jfr}") String destination) {
+        return new MCPFlightRecorder(maxAge, maxSizeMb * 1024 * 1024, Path.of(destination));
     }
     
 
     
     @Bean
-    public MCPToolScanner mcpToolScanner(MCPToolRegistry toolRegistry, 
-                                        MCPToolCallbackProvider callbackProvider) {
+    public MCPToolScanner mcpToolScanner(MCPToolRegistry toolRegistry) {
         Set<String> basePackages = getBasePackages();
         boolean autoDiscovery = enableMCPAttributes.getBoolean("enableAutoDiscovery");
         
-        return new MCPToolScanner(toolRegistry, callbackProvider, basePackages, autoDiscovery);
+        return new MCPToolScanner(toolRegistry, basePackages, autoDiscovery);
     }
     
     /**
@@ -104,29 +188,37 @@ public class MCPAutoConfiguration implements ImportAware {
     
     /**
      * Bean post processor to scan for MCP tools.
+     * The callback provider and the MCP server follow the registry, so registering is enough.
+     *
+     * Lazy beans ({@code @Lazy}) are registered from their bean definitions once the eager
+     * singletons exist, before the MCP server starts, without being created: the first call of
+     * one of their tools creates the bean and its dependencies, e.g. the datasource behind
+     * SqlService, so sessions that never use them do not pay for them.
      */
-    public static class MCPToolScanner implements BeanPostProcessor {
+    public static class MCPToolScanner implements BeanPostProcessor, BeanFactoryAware, SmartInitializingSingleton {
         
-        private static final Logger logger = LoggerFactory.getLogger(MCPToolScanner.class);
+        /**
+         * Built-in tools are registered whatever the configured base packages.
+         */
+        private static final String BUILT_IN_TOOLS_PACKAGE = ClassUtils.getPackageName(MCPServerStatsTool.class);
         
         private final MCPToolRegistry toolRegistry;
-        private final MCPToolCallbackProvider callbackProvider;
         private final Set<String> basePackages;
         private final boolean autoDiscovery;
+        private final Set<String> lazyBeanNames = ConcurrentHashMap.newKeySet();
+        private ConfigurableListableBeanFactory beanFactory;
         
         public MCPToolScanner(MCPToolRegistry toolRegistry, 
-                             MCPToolCallbackProvider callbackProvider,
                              Set<String> basePackages, 
                              boolean autoDiscovery) {
             this.toolRegistry = toolRegistry;
-            this.callbackProvider = callbackProvider;
             this.basePackages = basePackages;
             this.autoDiscovery = autoDiscovery;
         }
         
         @Override
         public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
-            if (!autoDiscovery) {
+            if (!autoDiscovery || lazyBeanNames.contains(beanName)) {
                 return bean;
             }
             
@@ -138,30 +230,44 @@ public class MCPAutoConfiguration implements ImportAware {
             }
             
             // Scan for @MCPTool annotated methods
-            Method[] methods = beanClass.getDeclaredMethods();
-            for (Method method : methods) {
-                MCPTool mcpTool = method.getAnnotation(MCPTool.class);
-                if (mcpTool != null) {
-                    try {
-                        toolRegistry.registerTool(bean, method, mcpTool);
-                        // Add the tool callback immediately
-                        var metadata = toolRegistry.getTool(
-                            org.springframework.util.StringUtils.hasText(mcpTool.name()) ?
-                            mcpTool.name() : method.getName()
-                        );
-                        if (metadata.isPresent()) {
-                            callbackProvider.addToolCallback(metadata.get());
-                        }
-                    } catch (Exception e) {
-                        logger.error("Failed to register MCP tool: {}.{}", 
-                            beanClass.getSimpleName(), method.getName(), e);
-                    }
-                }
-            }
+            toolRegistry.registerTools(bean);
             
             return bean;
         }
         
+        @Override
+        public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+            if (beanFactory instanceof ConfigurableListableBeanFactory listable) {
+                this.beanFactory = listable;
+            }
+        }
+        
+        /**
+         * Register the tools of lazy singletons that have not been created yet.
+         */
+        @Override
+        public void afterSingletonsInstantiated() {
+            if (!autoDiscovery || beanFactory == null) {
+                return;
+            }
+            for (String beanName : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(beanName);
+                if (!definition.isLazyInit() || !definition.isSingleton() || definition.isAbstract()
+                        || beanFactory.containsSingleton(beanName)) {
+                    continue;
+                }
+                // Resolved from the definition; does not create the bean
+                Class<?> beanClass = beanFactory.getType(beanName, false);
+                if (beanClass == null || !shouldScanBean(beanClass)) {
+                    continue;
+                }
+                if (!toolRegistry.registerTools(beanClass, () -> beanFactory.getBean(beanName)).isEmpty()) {
+                    lazyBeanNames.add(beanName);
+                    logger.debug("Registered the MCP tools of lazy bean '{}'", beanName);
+                }
+            }
+        }
+        
         /**
          * Check if a bean should be scanned based on base packages.
          */
@@ -171,6 +277,9 @@ public class MCPAutoConfiguration implements ImportAware {
             }
             
             String beanPackage = ClassUtils.getPackageName(beanClass);
+            if (beanPackage.equals(BUILT_IN_TOOLS_PACKAGE)) {
+                return true;
+            }
             return basePackages.stream()
                 .anyMatch(basePackage -> 
                     StringUtils.hasText(basePackage) && 
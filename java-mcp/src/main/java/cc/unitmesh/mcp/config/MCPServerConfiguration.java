@@ -0,0 +1,109 @@
+package cc.unitmesh.mcp.config;
+
+import cc.unitmesh.mcp.core.MCPInvocationTracker;
+import cc.unitmesh.mcp.core.MCPToolCallbackProvider;
+import cc.unitmesh.mcp.core.MCPToolSpecificationFactory;
+import cc.unitmesh.mcp.transport.InterceptingLineInputStream;
+import cc.unitmesh.mcp.transport.MCPRequestInterceptor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.server.transport.StdioServerTransportProvider;
+import io.modelcontextprotocol.server.transport.WebMvcSseServerTransportProvider;
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+
+/**
+ * MCP server and transport configuration.
+ *
+ * The transport is selected with {@code mcp.server.transport}:
+ * <ul>
+ *   <li>{@code stdio} (default) - one client per process, talking over stdin/stdout</li>
+ *   <li>{@code sse} - HTTP/SSE transport, one process serving many concurrent sessions that share
+ *       the tool registry, caches and the datasource. Requires a servlet web application.</li>
+ * </ul>
+ *
+ * The server is built here instead of by Spring AI's MCP server auto-configuration, which targets
+ * the MCP 0.7 transport API and cannot host the 0.8 SSE transport provider.
+ *
+ * @author AutoDev MCP Team
+ */
+@Configuration
+public class MCPServerConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public MCPRequestInterceptor mcpRequestInterceptor(MCPInvocationTracker invocationTracker) {
+        return new MCPRequestInterceptor(new ObjectMapper(), invocationTracker);
+    }
+
+    /**
+     * Progress notifications are only sent on stdio, where the transport carries a single
+     * session; see MCPTransportProgressReporter.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public MCPToolSpecificationFactory mcpToolSpecificationFactory(
+            McpServerTransportProvider transportProvider,
+            MCPInvocationTracker invocationTracker,
+            @Value("${mcp.server.transport:stdio}") String transport,
+            @Value("${mcp.progress.min-interval-ms:200}") long progressIntervalMs) {
+        return new MCPToolSpecificationFactory(transportProvider, invocationTracker,
+            "stdio".equals(transport), progressIntervalMs);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "mcp.server", name = "transport", havingValue = "stdio", matchIfMissing = true)
+    public McpServerTransportProvider stdioServerTransportProvider(MCPRequestInterceptor interceptor) {
+        return new StdioServerTransportProvider(new ObjectMapper(),
+            new InterceptingLineInputStream(System.in, line -> interceptor.intercept(line, null)),
+            System.out);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "mcp.server", name = "transport", havingValue = "sse")
+    public WebMvcSseServerTransportProvider webMvcSseServerTransportProvider(
+            @Value("${mcp.server.sse.message-endpoint:/mcp/message}") String messageEndpoint) {
+        return new WebMvcSseServerTransportProvider(new ObjectMapper(), messageEndpoint);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "mcp.server", name = "transport", havingValue = "sse")
+    public RouterFunction<ServerResponse> mcpRouterFunction(WebMvcSseServerTransportProvider transportProvider,
+                                                            MCPRequestInterceptor interceptor) {
+        return transportProvider.getRouterFunction().filter((request, next) -> {
+            if (!HttpMethod.POST.equals(request.method())) {
+                return next.handle(request);
+            }
+            String body = request.body(String.class);
+            String sessionId = request.param("sessionId").orElse(null);
+            ServerRequest intercepted = ServerRequest.from(request)
+                .body(interceptor.intercept(body, sessionId))
+                .build();
+            return next.handle(intercepted);
+        });
+    }
+
+    /**
+     * Tools that require authentication are served on stdio, where the client is the process that
+     * started the server, but not on SSE, which authenticates no one, unless
+     * {@code mcp.server.sse.auth-tools=true} because an authenticating proxy sits in front.
+     */
+    @Bean
+    public MCPServerLifecycle mcpServerLifecycle(McpServerTransportProvider transportProvider,
+                                                 MCPToolCallbackProvider callbackProvider,
+                                                 MCPToolSpecificationFactory specificationFactory,
+                                                 @Value("${spring.ai.mcp.server.name:mcp-server}") String serverName,
+                                                 @Value("${spring.ai.mcp.server.version:1.0.0}") String serverVersion,
+                                                 @Value("${mcp.server.transport:stdio}") String transport,
+                                                 @Value("${mcp.server.sse.auth-tools:false}") boolean sseAuthTools) {
+        return new MCPServerLifecycle(transportProvider, callbackProvider, specificationFactory,
+            serverName, serverVersion, !"sse".equals(transport) || sseAuthTools);
+    }
+}
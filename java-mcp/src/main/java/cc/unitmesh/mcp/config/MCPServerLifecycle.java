@@ -0,0 +1,204 @@
+package cc.unitmesh.mcp.config;
+
+import cc.unitmesh.mcp.core.MCPMethodToolCallback;
+import cc.unitmesh.mcp.core.MCPToolCallbackProvider;
+import cc.unitmesh.mcp.core.MCPToolSpecificationFactory;
+import io.modelcontextprotocol.server.McpAsyncServer;
+import io.modelcontextprotocol.server.McpServer;
+import io.modelcontextprotocol.server.McpServerFeatures;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.ContextClosedEvent;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Starts the MCP server once all beans (and therefore all @MCPTool methods) are registered.
+ *
+ * The server is built in {@link #start()} rather than as a plain bean so that the tool list
+ * is complete before the first client can connect, and it runs before the embedded web
+ * server so the SSE endpoints never see a transport without a server behind it.
+ *
+ * Tools registered or unregistered after startup are added to or removed from the running
+ * server one by one, in the order they changed; the SDK then sends
+ * {@code notifications/tools/list_changed} so clients re-fetch the tool list.
+ *
+ * Tools marked {@code @MCPTool(requiresAuth = true)} are only served when authTools is set:
+ * the transports do not authenticate clients, so on a shared HTTP server anyone who can reach
+ * the port could call them.
+ *
+ * On shutdown the server is closed as soon as the context starts closing, before the web
+ * server's graceful shutdown, which would otherwise wait for the open SSE streams to end.
+ *
+ * @author AutoDev MCP Team
+ */
+public class MCPServerLifecycle implements SmartLifecycle, ApplicationContextAware,
+        ApplicationListener<ContextClosedEvent> {
+
+    private static final Logger logger = LoggerFactory.getLogger(MCPServerLifecycle.class);
+
+    private final McpServerTransportProvider transportProvider;
+    private final MCPToolCallbackProvider callbackProvider;
+    private final MCPToolSpecificationFactory specificationFactory;
+    private final String serverName;
+    private final String serverVersion;
+    private final boolean authTools;
+
+    private volatile McpAsyncServer server;
+    private volatile Disposable changeSubscription;
+    private final MCPToolCallbackProvider.Listener changeListener = this::onCallbacksChanged;
+    private volatile Sinks.Many<CallbackChange> changes;
+    private ApplicationContext applicationContext;
+
+    private record CallbackChange(List<MCPMethodToolCallback> added, List<MCPMethodToolCallback> removed) {
+    }
+
+    public MCPServerLifecycle(McpServerTransportProvider transportProvider,
+                              MCPToolCallbackProvider callbackProvider,
+                              MCPToolSpecificationFactory specificationFactory,
+                              String serverName,
+                              String serverVersion,
+                              boolean authTools) {
+        this.transportProvider = transportProvider;
+        this.callbackProvider = callbackProvider;
+        this.specificationFactory = specificationFactory;
+        this.serverName = serverName;
+        this.serverVersion = serverVersion;
+        this.authTools = authTools;
+    }
+
+    @Override
+    public void start() {
+        // Changes made while the server is being built are buffered and applied once it runs
+        Sinks.Many<CallbackChange> pending = Sinks.many().unicast().onBackpressureBuffer();
+        this.changes = pending;
+        List<MCPMethodToolCallback> callbacks = callbackProvider.subscribe(changeListener);
+        List<String> withheld = callbacks.stream().filter(Predicate.not(this::isServed))
+            .map(MCPMethodToolCallback::getName).toList();
+        if (!withheld.isEmpty()) {
+            logger.warn("Not serving tools that require authentication on {}: {}",
+                transportProvider.getClass().getSimpleName(), withheld);
+        }
+        List<McpServerFeatures.AsyncToolSpecification> tools =
+            specificationFactory.createAll(callbacks.stream().filter(this::isServed).toList());
+
+        McpAsyncServer started = McpServer.async(transportProvider)
+            .serverInfo(serverName, serverVersion)
+            .capabilities(McpSchema.ServerCapabilities.builder()
+                .tools(true)
+                .build())
+            .tools(tools)
+            .build();
+        this.server = started;
+        this.changeSubscription = pending.asFlux()
+            .concatMap(change -> applyChange(started, change))
+            .subscribe();
+
+        // Time from JVM start until the server answers, which lazy tool beans keep short
+        logger.info("MCP server '{}' started with {} tools on {}, {} ms after JVM start",
+            serverName, tools.size(), transportProvider.getClass().getSimpleName(),
+            ManagementFactory.getRuntimeMXBean().getUptime());
+    }
+
+    @Override
+    public void stop() {
+        callbackProvider.unsubscribe(changeListener);
+        this.changes = null;
+        Disposable subscription = this.changeSubscription;
+        if (subscription != null) {
+            subscription.dispose();
+            this.changeSubscription = null;
+        }
+        McpAsyncServer current = this.server;
+        if (current != null) {
+            current.closeGracefully().block(Duration.ofSeconds(5));
+            this.server = null;
+            logger.info("MCP server '{}' stopped", serverName);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return server != null;
+    }
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    /**
+     * Ignores child contexts closing, whose events are passed on to this one.
+     */
+    @Override
+    public void onApplicationEvent(ContextClosedEvent event) {
+        if (event.getApplicationContext() == applicationContext) {
+            stop();
+        }
+    }
+
+    /**
+     * Start before the embedded web server so SSE requests always find a running server.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 2048;
+    }
+
+    /**
+     * Called by the callback provider, in order and while it holds its lock, so this only
+     * queues the change.
+     */
+    private void onCallbacksChanged(List<MCPMethodToolCallback> added, List<MCPMethodToolCallback> removed) {
+        Sinks.Many<CallbackChange> sink = this.changes;
+        if (sink != null) {
+            sink.tryEmitNext(new CallbackChange(added.stream().filter(this::isServed).toList(),
+                removed.stream().filter(this::isServed).toList()));
+        }
+    }
+
+    private boolean isServed(MCPMethodToolCallback callback) {
+        return authTools || !callback.getMetadata().isRequiresAuth();
+    }
+
+    /**
+     * Remove first, so a replaced tool can be added again under the same name.
+     */
+    private Mono<Void> applyChange(McpAsyncServer target, CallbackChange change) {
+        return Flux.fromIterable(change.removed())
+            .concatMap(callback -> target.removeTool(callback.getName())
+                .doOnSuccess(v -> logger.info("Removed MCP tool '{}' from the running server", callback.getName()))
+                .onErrorResume(e -> {
+                    logger.warn("Cannot remove MCP tool '{}': {}", callback.getName(), e.getMessage());
+                    return Mono.empty();
+                }))
+            .thenMany(Flux.fromIterable(change.added()))
+            .concatMap(callback -> target.addTool(specificationFactory.create(callback))
+                .doOnSuccess(v -> logger.info("Added MCP tool '{}' to the running server", callback.getName()))
+                .onErrorResume(e -> {
+                    logger.warn("Cannot add MCP tool '{}': {}", callback.getName(), e.getMessage());
+                    return Mono.empty();
+                }))
+            .then();
+    }
+
+    /**
+     * Get the running server, or null if it has not been started.
+     */
+    public McpAsyncServer getServer() {
+        return server;
+    }
+}
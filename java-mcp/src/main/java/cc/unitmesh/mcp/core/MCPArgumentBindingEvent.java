@@ -0,0 +1,26 @@
+package cc.unitmesh.mcp.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for converting decoded tool arguments to the parameters of the tool method.
+ *
+ * @author AutoDev MCP Team
+ */
+@Name("cc.unitmesh.mcp.ArgumentBinding")
+@Label("MCP Argument Binding")
+@Category({"MCP", "Tools"})
+@Description("Conversion of tool call arguments to method parameters")
+@StackTrace(false)
+public class MCPArgumentBindingEvent extends jdk.jfr.Event {
+
+    @Label("Tool")
+    String toolName;
+
+    @Label("Parameter Count")
+    int parameterCount;
+}
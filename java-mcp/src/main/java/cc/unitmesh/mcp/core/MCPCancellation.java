@@ -0,0 +1,61 @@
+package cc.unitmesh.mcp.core;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Cancellation state of a tool call that can be injected into @MCPTool methods.
+ *
+ * Declare a parameter of this type to stop early when the client cancels the request or the
+ * call times out. Blocking tools are also interrupted, which aborts reads on interruptible
+ * channels; resources that ignore interrupts (e.g. a JDBC statement) register an
+ * {@link #onCancel(Runnable)} action instead.
+ *
+ * @author AutoDev MCP Team
+ */
+public interface MCPCancellation {
+
+    /**
+     * Cancellation that never fires, used when the caller cannot cancel.
+     */
+    MCPCancellation NONE = new MCPCancellation() {
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public Registration onCancel(Runnable action) {
+            return () -> { };
+        }
+    };
+
+    /**
+     * Whether the call has been cancelled.
+     */
+    boolean isCancelled();
+
+    /**
+     * Register an action to run when the call is cancelled.
+     * Runs immediately if the call is already cancelled. Close the registration once the
+     * guarded resource is released.
+     */
+    Registration onCancel(Runnable action);
+
+    /**
+     * Throw a {@link CancellationException} if the call has been cancelled.
+     */
+    default void throwIfCancelled() {
+        if (isCancelled()) {
+            throw new CancellationException("Tool call cancelled");
+        }
+    }
+
+    /**
+     * Handle for a registered cancel action.
+     */
+    interface Registration extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
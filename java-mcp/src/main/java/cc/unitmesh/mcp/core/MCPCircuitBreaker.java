@@ -0,0 +1,243 @@
+package cc.unitmesh.mcp.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker shared by the tools of one backend, e.g. all database tools.
+ *
+ * While CLOSED, the outcomes of the last {@code windowSize} calls are kept; once at least
+ * {@code minimumCalls} are known and the share of failed or of slow calls reaches its threshold,
+ * the breaker OPENs and calls are rejected at once instead of waiting for a backend that is
+ * down. After {@code openMs} it lets {@code halfOpenCalls} probe calls through (HALF_OPEN): if
+ * they all succeed in time it closes again, otherwise it opens for another period.
+ *
+ * Calls rejected by the tool itself for bad arguments are not failures of the backend, and
+ * calls cancelled by the client are not counted at all.
+ *
+ * @author AutoDev MCP Team
+ */
+public class MCPCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(MCPCircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Thresholds of a circuit breaker.
+     *
+     * @param windowSize             number of recent calls the rates are computed over
+     * @param minimumCalls           calls needed in the window before the breaker can open
+     * @param failureRateThreshold   percentage of failed calls that opens the breaker
+     * @param slowCallRateThreshold  percentage of slow calls that opens the breaker
+     * @param slowCallMs             duration from which a call is slow, 0 to ignore durations
+     * @param openMs                 time calls are rejected before probing the backend again
+     * @param halfOpenCalls          probe calls that must succeed to close the breaker
+     */
+    public record Settings(int windowSize, int minimumCalls, double failureRateThreshold,
+                           double slowCallRateThreshold, long slowCallMs, long openMs, int halfOpenCalls) {
+
+        public Settings {
+            windowSize = Math.max(1, windowSize);
+            minimumCalls = Math.max(1, Math.min(minimumCalls, windowSize));
+            halfOpenCalls = Math.max(1, halfOpenCalls);
+        }
+    }
+
+    /**
+     * Permission to make one call, to be completed with {@link #onSuccess}, {@link #onFailure}
+     * or {@link #onIgnored}.
+     */
+    public static final class Permit {
+        private final long generation;
+        private final boolean probe;
+
+        private Permit(long generation, boolean probe) {
+            this.generation = generation;
+            this.probe = probe;
+        }
+    }
+
+    /**
+     * Immutable state of a breaker, for metrics.
+     */
+    public record Stats(String state, int windowCalls, double failureRate, double slowCallRate,
+                        long rejected, long opened) {
+    }
+
+    /**
+     * Breaker of tools that are not guarded: it never opens and keeps no state, so calls
+     * through it do not contend on a lock.
+     */
+    public static final MCPCircuitBreaker UNGUARDED = new MCPCircuitBreaker("unguarded",
+            new Settings(1, 1, 100, 100, 0, 0, 1)) {
+
+        private final Permit permit = new Permit(-1, false);
+
+        @Override
+        public Permit acquire() {
+            return permit;
+        }
+
+        @Override
+        public void onSuccess(Permit permit, long durationNanos) {
+        }
+
+        @Override
+        public void onFailure(Permit permit, long durationNanos) {
+        }
+
+        @Override
+        public void onIgnored(Permit permit) {
+        }
+    };
+
+    private final String name;
+    private final Settings settings;
+    private final boolean[] failed;
+    private final boolean[] slow;
+
+    private State state = State.CLOSED;
+    // Bumped on every state change, so results of calls let through earlier are discarded
+    private long generation;
+    private long openedAtNanos;
+    private int next;
+    private int calls;
+    private int failures;
+    private int slowCalls;
+    private int probesInFlight;
+    private int probesSucceeded;
+    private long rejected;
+    private long opened;
+
+    public MCPCircuitBreaker(String name, Settings settings) {
+        this.name = name;
+        this.settings = settings;
+        this.failed = new boolean[settings.windowSize()];
+        this.slow = new boolean[settings.windowSize()];
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Ask to make a call.
+     *
+     * @throws MCPCircuitOpenException if the breaker is open, or half-open with all probes taken
+     */
+    public synchronized Permit acquire() {
+        if (state == State.OPEN) {
+            long waitedNanos = System.nanoTime() - openedAtNanos;
+            if (waitedNanos < TimeUnit.MILLISECONDS.toNanos(settings.openMs())) {
+                rejected++;
+                long retryMs = settings.openMs() - TimeUnit.NANOSECONDS.toMillis(waitedNanos);
+                throw new MCPCircuitOpenException(name, retryMs);
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight + probesSucceeded >= settings.halfOpenCalls()) {
+                rejected++;
+                throw new MCPCircuitOpenException(name, 0);
+            }
+            probesInFlight++;
+            return new Permit(generation, true);
+        }
+        return new Permit(generation, false);
+    }
+
+    /**
+     * Record a call that completed normally, or failed for a reason that is not the backend's.
+     */
+    public void onSuccess(Permit permit, long durationNanos) {
+        record(permit, false, isSlow(durationNanos));
+    }
+
+    /**
+     * Record a call that failed or timed out.
+     */
+    public void onFailure(Permit permit, long durationNanos) {
+        record(permit, true, isSlow(durationNanos));
+    }
+
+    /**
+     * Release a call that must not count either way, e.g. one cancelled by the client.
+     */
+    public synchronized void onIgnored(Permit permit) {
+        if (permit.probe && permit.generation == generation) {
+            probesInFlight--;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(state.name(), calls, rate(failures), rate(slowCalls), rejected, opened);
+    }
+
+    private synchronized void record(Permit permit, boolean failure, boolean slowCall) {
+        if (permit.generation != generation) {
+            return;
+        }
+        if (permit.probe) {
+            probesInFlight--;
+            if (failure || slowCall) {
+                logger.warn("Circuit '{}' opened again: a probe call {}", name, failure ? "failed" : "was slow");
+                transition(State.OPEN);
+            } else if (++probesSucceeded >= settings.halfOpenCalls()) {
+                transition(State.CLOSED);
+            }
+            return;
+        }
+        if (calls == failed.length) {
+            // Drop the oldest outcome
+            failures -= failed[next] ? 1 : 0;
+            slowCalls -= slow[next] ? 1 : 0;
+        } else {
+            calls++;
+        }
+        failed[next] = failure;
+        slow[next] = slowCall;
+        failures += failure ? 1 : 0;
+        slowCalls += slowCall ? 1 : 0;
+        next = (next + 1) % failed.length;
+
+        if (calls >= settings.minimumCalls()
+                && (rate(failures) >= settings.failureRateThreshold()
+                    || (settings.slowCallMs() > 0 && rate(slowCalls) >= settings.slowCallRateThreshold()))) {
+            logger.warn("Circuit '{}' opened: {}% of the last {} calls failed, {}% were slow",
+                name, rate(failures), calls, rate(slowCalls));
+            transition(State.OPEN);
+        }
+    }
+
+    private void transition(State target) {
+        if (target == State.OPEN) {
+            openedAtNanos = System.nanoTime();
+            opened++;
+        } else if (target == State.CLOSED) {
+            logger.info("Circuit '{}' closed after {} successful probe calls", name, probesSucceeded);
+        }
+        state = target;
+        generation++;
+        probesInFlight = 0;
+        probesSucceeded = 0;
+        next = 0;
+        calls = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+
+    private boolean isSlow(long durationNanos) {
+        return settings.slowCallMs() > 0 && durationNanos >= TimeUnit.MILLISECONDS.toNanos(settings.slowCallMs());
+    }
+
+    private double rate(int count) {
+        return calls == 0 ? 0 : Math.round(count * 1000.0 / calls) / 10.0;
+    }
+}
@@ -0,0 +1,55 @@
+package cc.unitmesh.mcp.core;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One circuit breaker per backend. A tool uses the breaker named by
+ * {@code @MCPTool(circuitBreaker = ...)}, or that of its category; {@value #NONE} opts out.
+ *
+ * @author AutoDev MCP Team
+ */
+public class MCPCircuitBreakerRegistry {
+
+    public static final String NONE = "none";
+
+    /**
+     * Registry that never guards a call.
+     */
+    public static final MCPCircuitBreakerRegistry DISABLED = new MCPCircuitBreakerRegistry(false,
+        new MCPCircuitBreaker.Settings(1, 1, 100, 100, 0, 0, 1));
+
+    private final boolean enabled;
+    private final MCPCircuitBreaker.Settings settings;
+    private final Map<String, MCPCircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public MCPCircuitBreakerRegistry(boolean enabled, MCPCircuitBreaker.Settings settings) {
+        this.enabled = enabled;
+        this.settings = settings;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get the breaker guarding a tool, {@link MCPCircuitBreaker#UNGUARDED} if the tool is not guarded.
+     */
+    public MCPCircuitBreaker forTool(MCPToolMetadata metadata) {
+        String name = metadata.getCircuitBreaker();
+        if (!enabled || name == null || name.isEmpty() || NONE.equals(name)) {
+            return MCPCircuitBreaker.UNGUARDED;
+        }
+        return breakers.computeIfAbsent(name, key -> new MCPCircuitBreaker(key, settings));
+    }
+
+    /**
+     * Get the state of every breaker used so far, sorted by name.
+     */
+    public Map<String, MCPCircuitBreaker.Stats> snapshot() {
+        Map<String, MCPCircuitBreaker.Stats> result = new TreeMap<>();
+        breakers.forEach((name, breaker) -> result.put(name, breaker.getStats()));
+        return result;
+    }
+}
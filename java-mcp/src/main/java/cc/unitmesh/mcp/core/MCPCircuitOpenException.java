@@ -0,0 +1,28 @@
+package cc.unitmesh.mcp.core;
+
+/**
+ * Thrown instead of calling a tool whose circuit breaker is open.
+ *
+ * @author AutoDev MCP Team
+ */
+public class MCPCircuitOpenException extends RuntimeException {
+
+    private final String circuit;
+    private final long retryAfterMs;
+
+    public MCPCircuitOpenException(String circuit, long retryAfterMs) {
+        super(retryAfterMs > 0
+            ? "Circuit '" + circuit + "' is open after repeated failures; retry in " + (retryAfterMs + 999) / 1000 + " s"
+            : "Circuit '" + circuit + "' is checking whether the backend recovered; retry shortly");
+        this.circuit = circuit;
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    public String getCircuit() {
+        return circuit;
+    }
+
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+}
@@ -0,0 +1,102 @@
+package cc.unitmesh.mcp.core;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Continuous flight recording of the MCP events, using the JDK "default" profile plus the
+ * bundled {@value #SETTINGS_RESOURCE} settings.
+ *
+ * The recording is kept on disk within the configured age and size, and written to the
+ * destination when the server stops (or the JVM exits). Use {@code jcmd <pid> JFR.dump name=mcp}
+ * to capture it while the server is running.
+ *
+ * @author AutoDev MCP Team
+ */
+public class MCPFlightRecorder implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(MCPFlightRecorder.class);
+
+    public static final String SETTINGS_RESOURCE = "/jfr/mcp.jfc";
+
+    private final Duration maxAge;
+    private final long maxSizeBytes;
+    private final Path destination;
+
+    private volatile Recording recording;
+
+    public MCPFlightRecorder(Duration maxAge, long maxSizeBytes, Path destination) {
+        this.maxAge = maxAge;
+        this.maxSizeBytes = maxSizeBytes;
+        this.destination = destination;
+    }
+
+    @Override
+    public void start() {
+        try {
+            Recording started = new Recording(loadSettings());
+            started.setName("mcp");
+            started.setToDisk(true);
+            started.setMaxAge(maxAge);
+            started.setMaxSize(maxSizeBytes);
+            started.setDumpOnExit(true);
+            started.setDestination(destination);
+            started.start();
+            this.recording = started;
+            logger.info("MCP flight recording started, written to {} on shutdown", destination);
+        } catch (IOException | ParseException | IllegalStateException | SecurityException e) {
+            // Diagnostics must never keep the server from starting
+            logger.warn("Cannot start MCP flight recording: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void stop() {
+        Recording current = this.recording;
+        if (current != null) {
+            this.recording = null;
+            current.stop();
+            current.close();
+            logger.info("MCP flight recording written to {}", destination);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return recording != null;
+    }
+
+    /**
+     * Start before the MCP server so its first calls are recorded.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    static Map<String, String> loadSettings() throws IOException, ParseException {
+        Map<String, String> settings = new HashMap<>(Configuration.getConfiguration("default").getSettings());
+        InputStream in = MCPFlightRecorder.class.getResourceAsStream(SETTINGS_RESOURCE);
+        if (in == null) {
+            throw new IOException("Missing " + SETTINGS_RESOURCE);
+        }
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            settings.putAll(Configuration.create(reader).getSettings());
+        }
+        return settings;
+    }
+}
@@ -0,0 +1,175 @@
+package cc.unitmesh.mcp.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+
+/**
+ * One in-flight tool call, tracked by MCPInvocationTracker so it can be cancelled.
+ *
+ * Cancelling runs the registered cancel actions, interrupts the worker thread while the tool
+ * method is running on it, and completes {@link #cancelSignal()}.
+ *
+ * @author AutoDev MCP Team
+ */
+public class MCPInvocation implements MCPCancellation {
+
+    private static final Logger logger = LoggerFactory.getLogger(MCPInvocation.class);
+
+    private final long id;
+    private final String toolName;
+    private final String requestKey;
+    private final long startNanos;
+    private final Sinks.Empty<Void> cancelSink = Sinks.empty();
+    private final List<Runnable> cancelActions = new ArrayList<>();
+
+    private Thread worker;
+    private volatile long runStartNanos;
+    private volatile boolean cancelled;
+    private volatile boolean timedOut;
+    private volatile String cancelReason;
+
+    public MCPInvocation(long id, String toolName, String requestKey) {
+        this.id = id;
+        this.toolName = toolName;
+        this.requestKey = requestKey;
+        this.startNanos = System.nanoTime();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Tool call '" + toolName + "' cancelled: " + cancelReason);
+        }
+    }
+
+    @Override
+    public Registration onCancel(Runnable action) {
+        synchronized (this) {
+            if (!cancelled) {
+                cancelActions.add(action);
+                return () -> {
+                    synchronized (this) {
+                        cancelActions.remove(action);
+                    }
+                };
+            }
+        }
+        action.run();
+        return () -> { };
+    }
+
+    /**
+     * Cancel the call. Returns false if it was already cancelled.
+     */
+    public boolean cancel(String reason) {
+        List<Runnable> actions;
+        synchronized (this) {
+            if (cancelled) {
+                return false;
+            }
+            cancelled = true;
+            cancelReason = reason;
+            actions = new ArrayList<>(cancelActions);
+            cancelActions.clear();
+        }
+
+        logger.info("Cancelling MCP tool call '{}' #{}: {}", toolName, id, reason);
+        for (Runnable action : actions) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                logger.debug("Cancel action of tool '{}' failed: {}", toolName, e.getMessage());
+            }
+        }
+        synchronized (this) {
+            if (worker != null) {
+                worker.interrupt();
+            }
+        }
+        cancelSink.tryEmitEmpty();
+        return true;
+    }
+
+    /**
+     * Cancel the call because it exceeded its timeout.
+     */
+    public boolean cancelOnTimeout(long timeoutMs) {
+        timedOut = true;
+        if (!cancel("timed out after " + timeoutMs + " ms")) {
+            timedOut = false;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Run the tool method on the current thread, making it the thread interrupted on cancel.
+     * A pending interrupt is cleared afterwards so pooled threads are reused clean.
+     */
+    <T> T runOnCurrentThread(Callable<T> body) throws Exception {
+        synchronized (this) {
+            throwIfCancelled();
+            worker = Thread.currentThread();
+            if (runStartNanos == 0) {
+                runStartNanos = System.nanoTime();
+            }
+        }
+        try {
+            return body.call();
+        } finally {
+            synchronized (this) {
+                worker = null;
+            }
+            Thread.interrupted();
+        }
+    }
+
+    /**
+     * Completes when the call is cancelled.
+     */
+    public Mono<Void> cancelSignal() {
+        return cancelSink.asMono();
+    }
+
+    public long getId() { return id; }
+    public String getToolName() { return toolName; }
+    public String getRequestKey() { return requestKey; }
+    public String getCancelReason() { return cancelReason; }
+    public boolean isTimedOut() { return timedOut; }
+
+    /**
+     * Time since the call started.
+     */
+    public long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Time the call waited for a worker thread before the tool method started; all of the
+     * elapsed time if it never started.
+     */
+    public long getQueuedNanos() {
+        long runStart = runStartNanos;
+        return runStart == 0 ? getElapsedNanos() : runStart - startNanos;
+    }
+
+    /**
+     * Time since the tool method started, 0 if it never started.
+     */
+    public long getExecutionNanos() {
+        long runStart = runStartNanos;
+        return runStart == 0 ? 0 : System.nanoTime() - runStart;
+    }
+}
@@ -0,0 +1,173 @@
+package cc.unitmesh.mcp.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs blocking tool methods on a fixed pool of worker threads. When all workers are busy,
+ * waiting calls are taken by the priority of their tool ({@code @MCPTool(priority)}) rather than
+ * in arrival order, so cheap interactive tools are not stuck behind heavy queries.
+ *
+ * Waiting {@code agingMs} is worth one priority level, so a low-priority call is overtaken by at
+ * most the calls of higher priority that arrive soon after it and cannot starve. This is the
+ * same as ordering the queue by {@code arrival - priority * agingMs}, which never changes while a
+ * call waits.
+ *
+ * A scheduler without worker threads runs calls on Reactor's bounded elastic scheduler in
+ * arrival order instead, for deployments that turn prioritization off.
+ *
+ * @author AutoDev MCP Team
+ */
+public class MCPInvocationScheduler implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MCPInvocationScheduler.class);
+
+    /**
+     * Immutable state of the scheduler, for metrics.
+     */
+    public record Stats(int threads, int running, int queued, long agingMs) {
+    }
+
+    private final int threads;
+    private final long agingMs;
+    private final PriorityBlockingQueue<Task<?>> queue = new PriorityBlockingQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger running = new AtomicInteger();
+    private final List<Thread> workers = new ArrayList<>();
+
+    private volatile boolean closed;
+
+    /**
+     * @param threads number of worker threads, i.e. of blocking tool calls running at once,
+     *                0 to run calls on the bounded elastic scheduler without prioritizing them
+     * @param agingMs waiting time that counts as one priority level
+     */
+    public MCPInvocationScheduler(int threads, long agingMs) {
+        this.threads = Math.max(0, threads);
+        this.agingMs = Math.max(1, agingMs);
+        for (int i = 1; i <= this.threads; i++) {
+            Thread worker = new Thread(this::work, "mcp-tool-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    /**
+     * Queue a call. It runs on a worker thread once no call with an earlier position is waiting;
+     * cancelling the subscription before then removes it from the queue.
+     */
+    public <T> Mono<T> submit(int priority, Callable<T> body) {
+        if (threads == 0) {
+            return Mono.fromCallable(body).subscribeOn(Schedulers.boundedElastic());
+        }
+        return Mono.create(sink -> {
+            if (closed) {
+                sink.error(new RejectedExecutionException("MCP tool scheduler is shut down"));
+                return;
+            }
+            long now = System.nanoTime();
+            // A double cannot overflow, whatever the priority
+            double position = now - (double) priority * TimeUnit.MILLISECONDS.toNanos(agingMs);
+            Task<T> task = new Task<>(position, sequence.incrementAndGet(), body, sink);
+            sink.onCancel(() -> {
+                if (task.claim()) {
+                    queue.remove(task);
+                }
+            });
+            queue.add(task);
+        });
+    }
+
+    public Stats getStats() {
+        return new Stats(threads, running.get(), queue.size(), agingMs);
+    }
+
+    private void work() {
+        while (!closed) {
+            Task<?> task;
+            try {
+                task = queue.take();
+            } catch (InterruptedException e) {
+                // Either closing, or an interrupt meant for a cancelled call arrived late
+                continue;
+            }
+            if (!task.claim()) {
+                continue;
+            }
+            running.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                running.decrementAndGet();
+                Thread.interrupted();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        workers.forEach(Thread::interrupt);
+        List<Task<?>> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        for (Task<?> task : pending) {
+            if (task.claim()) {
+                task.sink.error(new RejectedExecutionException("MCP tool scheduler is shut down"));
+            }
+        }
+        if (!pending.isEmpty()) {
+            logger.info("Rejected {} queued tool calls on shutdown", pending.size());
+        }
+    }
+
+    private static final class Task<T> implements Comparable<Task<?>> {
+        private final double position;
+        private final long sequence;
+        private final Callable<T> body;
+        private final MonoSink<T> sink;
+        // Set by whichever comes first: a worker taking the task, or its cancellation
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        Task(double position, long sequence, Callable<T> body, MonoSink<T> sink) {
+            this.position = position;
+            this.sequence = sequence;
+            this.body = body;
+            this.sink = sink;
+        }
+
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        void run() {
+            T value;
+            try {
+                value = body.call();
+            } catch (Throwable e) {
+                sink.error(e);
+                return;
+            }
+            sink.success(value);
+        }
+
+        @Override
+        public int compareTo(Task<?> other) {
+            int result = Double.compare(position, other.position);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+    }
+}
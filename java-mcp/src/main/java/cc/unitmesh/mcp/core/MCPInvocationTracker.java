@@ -0,0 +1,91 @@
+package cc.unitmesh.mcp.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks in-flight tool calls so that client cancellation notifications can reach them.
+ *
+ * Calls are keyed by {@link #requestKey(String, String)}, built from the MCP session and the
+ * JSON-RPC request id; calls without a request id get a private key and can only be
+ * cancelled by disposing their subscription or by timing out.
+ *
+ * @author AutoDev MCP Team
+ */
+public class MCPInvocationTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(MCPInvocationTracker.class);
+
+    private final AtomicLong nextId = new AtomicLong();
+    private final Map<String, MCPInvocation> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Start tracking a call.
+     */
+    public MCPInvocation start(String toolName, String requestKey) {
+        long id = nextId.incrementAndGet();
+        String key = requestKey != null ? requestKey : "#" + id;
+        MCPInvocation invocation = new MCPInvocation(id, toolName, key);
+        inFlight.put(key, invocation);
+        return invocation;
+    }
+
+    /**
+     * Stop tracking a finished call.
+     */
+    public void finish(MCPInvocation invocation) {
+        inFlight.remove(invocation.getRequestKey(), invocation);
+    }
+
+    /**
+     * Cancel the call with the given request key.
+     * Returns false if no such call is in flight, e.g. because it already finished.
+     */
+    public boolean cancel(String requestKey, String reason) {
+        MCPInvocation invocation = inFlight.get(requestKey);
+        if (invocation == null) {
+            logger.debug("No in-flight tool call for cancelled request {}", requestKey);
+            return false;
+        }
+        return invocation.cancel(reason != null ? reason : "cancelled by client");
+    }
+
+    /**
+     * Cancel all in-flight calls, e.g. on shutdown.
+     */
+    public void cancelAll(String reason) {
+        for (MCPInvocation invocation : new ArrayList<>(inFlight.values())) {
+            invocation.cancel(reason);
+        }
+    }
+
+    /**
+     * Get all in-flight calls.
+     */
+    public Collection<MCPInvocation> getInFlight() {
+        return new ArrayList<>(inFlight.values());
+    }
+
+    /**
+     * Get the number of in-flight calls.
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Build the key of a request. JSON-RPC ids are only unique within a session.
+     *
+     * @param sessionId session id, or null for the single stdio session
+     * @param requestId JSON text of the request id, so 1 and "1" stay distinct
+     */
+    public static String requestKey(String sessionId, String requestId) {
+        return (sessionId != null ? sessionId : "stdio") + ":" + requestId;
+    }
+}
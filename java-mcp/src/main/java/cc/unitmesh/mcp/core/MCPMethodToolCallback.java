@@ -7,17 +7,37 @@ import org.slf4j.LoggerFactory;
 import org.springframework.ai.tool.ToolCallback;
 import org.springframework.ai.tool.definition.DefaultToolDefinition;
 import org.springframework.ai.tool.definition.ToolDefinition;
+import org.reactivestreams.Publisher;
 import org.springframework.util.Assert;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
 
 /**
  * MCP-specific implementation of ToolCallback for methods annotated with @MCPTool.
  * This class is inspired by Spring AI's MethodToolCallback but works directly with MCPToolMetadata.
  * 
+ * Tool methods may return {@link CompletionStage}, {@link Mono}, {@link Flux} or any other
+ * {@link Publisher}. {@link #stream(Map)} completes those without blocking a thread, emitting one
+ * content chunk per published element; the synchronous {@link #call(String)} waits for them.
+ * 
  * @author AutoDev MCP Team
  */
 public class MCPMethodToolCallback implements ToolCallback {
@@ -25,12 +45,35 @@ public class MCPMethodToolCallback implements ToolCallback {
     private static final Logger logger = LoggerFactory.getLogger(MCPMethodToolCallback.class);
     
     private final MCPToolMetadata metadata;
+    private final MCPToolMetrics metrics;
+    private final MCPResultSerializer resultSerializer;
+    private final MCPOutputBudget outputBudget;
     private final ObjectMapper objectMapper;
+    private final boolean asyncResult;
+    private final MCPCircuitBreaker circuitBreaker;
+    private final MCPInvocationScheduler scheduler;
     
-    public MCPMethodToolCallback(MCPToolMetadata metadata) {
+    /**
+     * @param circuitBreaker breaker guarding the tool's backend, {@link MCPCircuitBreaker#UNGUARDED} if none
+     * @param scheduler      scheduler running {@link #stream} calls of a blocking tool
+     */
+    public MCPMethodToolCallback(MCPToolMetadata metadata, MCPToolMetrics metrics,
+                                 MCPResultSerializer resultSerializer, MCPCircuitBreaker circuitBreaker,
+                                 MCPInvocationScheduler scheduler) {
         Assert.notNull(metadata, "MCPToolMetadata must not be null");
+        Assert.notNull(metrics, "MCPToolMetrics must not be null");
+        Assert.notNull(resultSerializer, "MCPResultSerializer must not be null");
+        Assert.notNull(circuitBreaker, "MCPCircuitBreaker must not be null");
+        Assert.notNull(scheduler, "MCPInvocationScheduler must not be null");
         this.metadata = metadata;
+        this.metrics = metrics;
+        this.resultSerializer = resultSerializer;
+        this.outputBudget = resultSerializer.getDefaultBudget()
+            .withOverrides(metadata.getMaxOutputBytes(), metadata.getMaxOutputItems());
         this.objectMapper = new ObjectMapper();
+        this.asyncResult = isAsyncType(metadata.getMethod().getReturnType());
+        this.circuitBreaker = circuitBreaker;
+        this.scheduler = scheduler;
     }
     
     @Override
@@ -59,25 +102,367 @@ public class MCPMethodToolCallback implements ToolCallback {
     
     @Override
     public String call(String arguments) {
+        MCPToolInvocationEvent event = new MCPToolInvocationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        MCPToolMetrics.ResourceUsage usage = new MCPToolMetrics.ResourceUsage();
+        MCPCircuitBreaker.Permit permit;
+        try {
+            permit = acquirePermit();
+        } catch (MCPCircuitOpenException e) {
+            return "Error: " + e.getMessage();
+        }
         try {
             logger.debug("Calling MCP tool '{}' with arguments: {}", getName(), arguments);
             
-            // Parse arguments from JSON
-            Map<String, Object> args = parseArguments(arguments);
+            // Parse arguments from JSON, invoke the method and convert the result to string
+            String response = metrics.measure(usage, () -> invokeAndConvert(parseArguments(arguments)));
+            
+            // Only the size: logging whole responses is too expensive even at debug level
+            logger.debug("MCP tool '{}' returned {} characters", getName(), response.length());
+            metrics.record(getName(), MCPToolMetrics.Outcome.SUCCESS, System.nanoTime() - start, usage);
+            releasePermit(permit, MCPToolMetrics.Outcome.SUCCESS, null, System.nanoTime() - start);
+            commitInvocationEvent(event, MCPToolMetrics.Outcome.SUCCESS, arguments, response);
+            return response;
             
-            // Invoke the method
-            Object result = invokeMethod(args);
+        } catch (Exception e) {
+            Throwable cause = unwrap(e);
+            logger.error("Error calling MCP tool '{}': {}", getName(), cause.getMessage(), cause);
+            metrics.record(getName(), MCPToolMetrics.Outcome.ERROR, System.nanoTime() - start, usage);
+            releasePermit(permit, MCPToolMetrics.Outcome.ERROR, cause, System.nanoTime() - start);
+            commitInvocationEvent(event, MCPToolMetrics.Outcome.ERROR, arguments, null);
+            return "Error: " + cause.getMessage();
+        }
+    }
+    
+    /**
+     * Call the tool with arguments that were already decoded by the MCP server.
+     * Skips the JSON round trip that {@link #call(String)} needs for Spring AI callers.
+     */
+    public String call(Map<String, Object> arguments) {
+        MCPToolInvocationEvent event = new MCPToolInvocationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        MCPToolMetrics.ResourceUsage usage = new MCPToolMetrics.ResourceUsage();
+        MCPCircuitBreaker.Permit permit;
+        try {
+            permit = acquirePermit();
+        } catch (MCPCircuitOpenException e) {
+            return "Error: " + e.getMessage();
+        }
+        try {
+            logger.debug("Calling MCP tool '{}' with arguments: {}", getName(), arguments);
             
-            // Convert result to string
-            String response = convertResultToString(result);
+            String response = metrics.measure(usage,
+                () -> invokeAndConvert(arguments != null ? arguments : new HashMap<>()));
             
-            logger.debug("MCP tool '{}' returned: {}", getName(), response);
+            logger.debug("MCP tool '{}' returned {} characters", getName(), response.length());
+            metrics.record(getName(), MCPToolMetrics.Outcome.SUCCESS, System.nanoTime() - start, usage);
+            releasePermit(permit, MCPToolMetrics.Outcome.SUCCESS, null, System.nanoTime() - start);
+            commitInvocationEvent(event, MCPToolMetrics.Outcome.SUCCESS, arguments, response);
             return response;
             
         } catch (Exception e) {
-            logger.error("Error calling MCP tool '{}': {}", getName(), e.getMessage(), e);
-            return "Error: " + e.getMessage();
+            Throwable cause = unwrap(e);
+            logger.error("Error calling MCP tool '{}': {}", getName(), cause.getMessage(), cause);
+            metrics.record(getName(), MCPToolMetrics.Outcome.ERROR, System.nanoTime() - start, usage);
+            releasePermit(permit, MCPToolMetrics.Outcome.ERROR, cause, System.nanoTime() - start);
+            commitInvocationEvent(event, MCPToolMetrics.Outcome.ERROR, arguments, null);
+            return "Error: " + cause.getMessage();
+        }
+    }
+    
+    /**
+     * Call the tool without blocking the subscriber's thread.
+     * 
+     * Synchronous tool methods are invoked by the invocation scheduler, in order of tool priority
+     * unless prioritization is off; methods returning an async type are invoked on the subscribing
+     * thread and are expected not to block.
+     * Each element of a {@link Publisher} result becomes one content chunk, other results a single chunk.
+     * Errors are propagated as error signals with the invocation wrapper removed.
+     */
+    public Flux<String> stream(Map<String, Object> arguments) {
+        return stream(arguments, MCPProgressReporter.NOOP);
+    }
+    
+    /**
+     * Call the tool without blocking, reporting progress through the given reporter.
+     * The reporter is injected into {@link MCPProgressReporter} parameters of the tool method,
+     * and every element of a multi-valued {@link Publisher} result is also sent as a partial chunk.
+     */
+    public Flux<String> stream(Map<String, Object> arguments, MCPProgressReporter reporter) {
+        return stream(arguments, reporter, new MCPInvocation(0, getName(), null));
+    }
+    
+    /**
+     * Call the tool without blocking as the given tracked invocation.
+     * 
+     * The call stops with a {@link CancellationException} when the invocation is cancelled or the
+     * tool's timeoutMs elapses, and disposing the subscription cancels the invocation. Cancelling
+     * interrupts a blocking tool method and runs the actions it registered on its
+     * {@link MCPCancellation} parameter.
+     * 
+     * The time the call waits for a worker thread is recorded apart from the time it runs, and
+     * only the latter counts as slow for the circuit breaker.
+     */
+    public Flux<String> stream(Map<String, Object> arguments, MCPProgressReporter reporter,
+                               MCPInvocation invocation) {
+        Map<String, Object> args = arguments != null ? arguments : new HashMap<>();
+        MCPToolMetrics.ResourceUsage usage = new MCPToolMetrics.ResourceUsage();
+        Callable<Optional<Object>> body = () -> Optional.ofNullable(metrics.measure(usage,
+            () -> invocation.runOnCurrentThread(() -> invokeMethod(args, reporter, invocation))));
+        Mono<Optional<Object>> call;
+        if (asyncResult) {
+            call = Mono.fromCallable(body);
+        } else {
+            call = scheduler.submit(metadata.getPriority(), body);
+        }
+        
+        Flux<String> result = call
+            .flatMapMany(value -> adaptResult(value.orElse(null), reporter, usage))
+            .onErrorMap(InvocationTargetException.class, this::unwrap)
+            .doOnCancel(() -> invocation.cancel("call abandoned"))
+            .takeUntilOther(invocation.cancelSignal())
+            .concatWith(Mono.defer(() -> invocation.isCancelled()
+                ? Mono.error(new CancellationException(
+                    "Tool call '" + getName() + "' cancelled: " + invocation.getCancelReason()))
+                : Mono.empty()));
+        
+        return Flux.defer(() -> {
+            MCPCircuitBreaker.Permit permit;
+            try {
+                permit = acquirePermit();
+            } catch (MCPCircuitOpenException e) {
+                return Flux.error(e);
+            }
+            MCPToolInvocationEvent event = new MCPToolInvocationEvent();
+            event.begin();
+            Disposable timeout = scheduleTimeout(invocation);
+            Throwable[] error = new Throwable[1];
+            return result
+                .doOnNext(chunk -> {
+                    if (event.isEnabled()) {
+                        event.resultBytes += MCPResultSerializer.utf8Length(chunk);
+                    }
+                })
+                .doOnError(e -> error[0] = e)
+                .doFinally(signal -> {
+                    timeout.dispose();
+                    MCPToolMetrics.Outcome outcome = outcomeOf(signal, invocation);
+                    long queuedNanos = invocation.getQueuedNanos();
+                    long executionNanos = invocation.getExecutionNanos();
+                    metrics.record(getName(), outcome, queuedNanos, executionNanos, usage);
+                    releasePermit(permit, outcome, error[0], executionNanos);
+                    event.queueWait = queuedNanos;
+                    commitInvocationEvent(event, outcome, args, null);
+                });
+        });
+    }
+    
+    /**
+     * Commit the invocation event if it passed its threshold. Sizes are computed only then.
+     */
+    private void commitInvocationEvent(MCPToolInvocationEvent event, MCPToolMetrics.Outcome outcome,
+                                       Object arguments, String response) {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.toolName = getName();
+        event.category = metadata.getCategory();
+        event.argumentBytes = argumentBytes(arguments);
+        if (response != null) {
+            event.resultBytes = MCPResultSerializer.utf8Length(response);
+        }
+        event.outcome = outcome.name();
+        event.commit();
+    }
+    
+    private long argumentBytes(Object arguments) {
+        if (arguments == null) {
+            return 0;
+        } else if (arguments instanceof String json) {
+            return MCPResultSerializer.utf8Length(json);
+        }
+        try {
+            return objectMapper.writeValueAsBytes(arguments).length;
+        } catch (JsonProcessingException e) {
+            return -1;
+        }
+    }
+    
+    private Disposable scheduleTimeout(MCPInvocation invocation) {
+        long timeoutMs = metadata.getTimeoutMs();
+        if (timeoutMs <= 0) {
+            return () -> { };
+        }
+        return Schedulers.parallel().schedule(
+            () -> invocation.cancelOnTimeout(timeoutMs), timeoutMs, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Ask the circuit breaker for permission to call; a rejection is recorded in the metrics.
+     */
+    private MCPCircuitBreaker.Permit acquirePermit() {
+        try {
+            return circuitBreaker.acquire();
+        } catch (MCPCircuitOpenException e) {
+            metrics.record(getName(), MCPToolMetrics.Outcome.REJECTED, 0);
+            throw e;
+        }
+    }
+    
+    /**
+     * Report the outcome of a call to the circuit breaker. Bad arguments are the caller's
+     * failure, not the backend's, and cancelled calls say nothing about the backend.
+     */
+    private void releasePermit(MCPCircuitBreaker.Permit permit, MCPToolMetrics.Outcome outcome,
+                               Throwable error, long durationNanos) {
+        switch (outcome) {
+            case TIMEOUT -> circuitBreaker.onFailure(permit, durationNanos);
+            case ERROR -> {
+                if (unwrap(error) instanceof IllegalArgumentException) {
+                    circuitBreaker.onSuccess(permit, durationNanos);
+                } else {
+                    circuitBreaker.onFailure(permit, durationNanos);
+                }
+            }
+            case CANCELLED, REJECTED -> circuitBreaker.onIgnored(permit);
+            default -> circuitBreaker.onSuccess(permit, durationNanos);
+        }
+    }
+    
+    private static MCPToolMetrics.Outcome outcomeOf(SignalType signal, MCPInvocation invocation) {
+        if (invocation.isTimedOut()) {
+            return MCPToolMetrics.Outcome.TIMEOUT;
+        } else if (invocation.isCancelled() || signal == SignalType.CANCEL) {
+            return MCPToolMetrics.Outcome.CANCELLED;
+        } else if (signal == SignalType.ON_ERROR) {
+            return MCPToolMetrics.Outcome.ERROR;
+        }
+        return MCPToolMetrics.Outcome.SUCCESS;
+    }
+    
+    /**
+     * Call the tool without blocking, joining all content chunks into one response.
+     */
+    public Mono<String> callAsync(Map<String, Object> arguments) {
+        return stream(arguments)
+            .collectList()
+            .map(this::joinChunks);
+    }
+    
+    /**
+     * Invoke the method and convert its result, waiting for async results up to the tool timeout.
+     */
+    private String invokeAndConvert(Map<String, Object> args) throws Exception {
+        Object result = invokeMethod(args, MCPProgressReporter.NOOP, MCPCancellation.NONE);
+        if (!isAsyncResult(result)) {
+            return convertResultToString(result);
+        }
+        
+        // Already measured as a whole by the caller
+        Mono<List<String>> chunks = adaptResult(result, MCPProgressReporter.NOOP, null).collectList();
+        List<String> collected = metadata.getTimeoutMs() > 0
+            ? chunks.block(Duration.ofMillis(metadata.getTimeoutMs()))
+            : chunks.block();
+        return joinChunks(collected);
+    }
+    
+    /**
+     * Adapt a method result to a stream of content chunks.
+     * Serialization of each chunk is added to the usage, on whichever thread it runs.
+     */
+    private Flux<String> adaptResult(Object result, MCPProgressReporter reporter,
+                                     MCPToolMetrics.ResourceUsage usage) {
+        if (result instanceof Mono<?> mono) {
+            return mono.map(value -> convertChunk(value, usage))
+                .defaultIfEmpty("null")
+                .flux();
+        } else if (result instanceof Publisher<?> publisher) {
+            return limitChunks(Flux.from(publisher).map(value -> convertChunk(value, usage)))
+                .doOnNext(reporter::partial);
+        } else if (result instanceof CompletionStage<?> stage) {
+            return Mono.fromCompletionStage(stage)
+                .map(value -> convertChunk(value, usage))
+                .defaultIfEmpty("null")
+                .flux();
+        }
+        return Mono.fromCallable(() -> convertChunk(result, usage)).flux();
+    }
+    
+    /**
+     * Apply the output budget across all chunks of a streamed result. The upstream publisher is
+     * cancelled once the budget is used up, and the last chunk carries the truncation marker.
+     */
+    private Flux<String> limitChunks(Flux<String> chunks) {
+        if (outputBudget.isUnlimited()) {
+            return chunks;
         }
+        return Flux.defer(() -> {
+            long[] used = new long[2];  // chunks, bytes
+            return chunks.handle((chunk, sink) -> {
+                if (outputBudget.limitsItems() && used[0] >= outputBudget.maxItems()) {
+                    sink.next(MCPResultSerializer.truncationMarker(used[0] + " chunks",
+                        "maxOutputItems=" + outputBudget.maxItems()));
+                    sink.complete();
+                    return;
+                }
+                MCPOutputBudget remaining = outputBudget.limitsBytes()
+                    ? new MCPOutputBudget(Math.max(1, outputBudget.maxBytes() - used[1]), 0)
+                    : MCPOutputBudget.UNLIMITED;
+                String limited = resultSerializer.truncate(chunk, remaining);
+                used[0]++;
+                used[1] += MCPResultSerializer.utf8Length(chunk);
+                sink.next(limited);
+                if (!limited.equals(chunk)) {
+                    sink.complete();
+                }
+            });
+        });
+    }
+    
+    private String convertChunk(Object value, MCPToolMetrics.ResourceUsage usage) {
+        try {
+            return metrics.measure(usage, () -> convertResultToString(value));
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot serialize result of tool '" + getName() + "'", e);
+        }
+    }
+    
+    private String joinChunks(List<String> chunks) {
+        if (chunks == null || chunks.isEmpty()) {
+            return "[]";
+        }
+        return chunks.size() == 1 ? chunks.get(0) : String.join("\n", chunks);
+    }
+    
+    /**
+     * Parameters supplied by the MCP core rather than by the client.
+     */
+    private static boolean isInjectedParameter(Class<?> type) {
+        return type == MCPProgressReporter.class || type == MCPCancellation.class;
+    }
+    
+    private static boolean isAsyncType(Class<?> type) {
+        return CompletionStage.class.isAssignableFrom(type) || Publisher.class.isAssignableFrom(type);
+    }
+    
+    private static boolean isAsyncResult(Object result) {
+        return result instanceof CompletionStage<?> || result instanceof Publisher<?>;
+    }
+    
+    /**
+     * Strip reflection and reactor wrappers to report the tool's own exception.
+     */
+    private Throwable unwrap(Throwable e) {
+        Throwable current = Exceptions.unwrap(e);
+        while (current instanceof InvocationTargetException && current.getCause() != null) {
+            current = current.getCause();
+        }
+        return current;
     }
     
     /**
@@ -101,21 +486,39 @@ public class MCPMethodToolCallback implements ToolCallback {
     /**
      * Invoke the method with the parsed arguments.
      */
-    private Object invokeMethod(Map<String, Object> args) throws Exception {
+    private Object invokeMethod(Map<String, Object> args, MCPProgressReporter reporter,
+                                MCPCancellation cancellation) throws Exception {
         Method method = metadata.getMethod();
         Object bean = metadata.getBean();
         Parameter[] parameters = method.getParameters();
         
         // Prepare method arguments
+        MCPArgumentBindingEvent bindingEvent = new MCPArgumentBindingEvent();
+        bindingEvent.begin();
         Object[] methodArgs = new Object[parameters.length];
         for (int i = 0; i < parameters.length; i++) {
             Parameter param = parameters[i];
             String paramName = param.getName();
             Class<?> paramType = param.getType();
             
+            // Injected by the MCP core, not supplied by the client
+            if (paramType == MCPProgressReporter.class) {
+                methodArgs[i] = reporter;
+                continue;
+            } else if (paramType == MCPCancellation.class) {
+                methodArgs[i] = cancellation;
+                continue;
+            }
+            
             Object value = args.get(paramName);
             methodArgs[i] = convertArgument(value, paramType, paramName);
         }
+        bindingEvent.end();
+        if (bindingEvent.shouldCommit()) {
+            bindingEvent.toolName = getName();
+            bindingEvent.parameterCount = parameters.length;
+            bindingEvent.commit();
+        }
         
         // Make method accessible if needed
         if (!method.isAccessible()) {
@@ -227,15 +630,9 @@ public class MCPMethodToolCallback implements ToolCallback {
     /**
      * Convert method result to string.
      */
-    private String convertResultToString(Object result) throws JsonProcessingException {
-        if (result == null) {
-            return "null";
-        } else if (result instanceof String) {
-            return (String) result;
-        } else {
-            // Convert complex objects to JSON
-            return objectMapper.writeValueAsString(result);
-        }
+    private String convertResultToString(Object result) throws IOException {
+        // Complex objects are streamed to JSON in one pass, strings pass through
+        return resultSerializer.serialize(result, outputBudget);
     }
     
     /**
@@ -253,6 +650,9 @@ public class MCPMethodToolCallback implements ToolCallback {
             for (Parameter param : parameters) {
                 Map<String, Object> paramSchema = new HashMap<>();
                 Class<?> paramType = param.getType();
+                if (isInjectedParameter(paramType)) {
+                    continue;
+                }
 
                 if (paramType == String.class) {
                     paramSchema.put("type", "string");
@@ -0,0 +1,41 @@
+package cc.unitmesh.mcp.core;
+
+/**
+ * Limits on the size of one tool result.
+ *
+ * @param maxBytes maximum size of the serialized result in UTF-8 bytes, 0 for no limit
+ * @param maxItems maximum number of top-level items (list elements, map entries or streamed
+ *                 chunks), 0 for no limit
+ * @author AutoDev MCP Team
+ */
+public record MCPOutputBudget(long maxBytes, int maxItems) {
+
+    public static final MCPOutputBudget UNLIMITED = new MCPOutputBudget(0, 0);
+
+    public MCPOutputBudget {
+        maxBytes = Math.max(0, maxBytes);
+        maxItems = Math.max(0, maxItems);
+    }
+
+    /**
+     * Apply the per-tool overrides from {@code @MCPTool}: -1 keeps this budget's limit,
+     * 0 removes it and a positive value replaces it.
+     */
+    public MCPOutputBudget withOverrides(long toolMaxBytes, int toolMaxItems) {
+        return new MCPOutputBudget(
+            toolMaxBytes < 0 ? maxBytes : toolMaxBytes,
+            toolMaxItems < 0 ? maxItems : toolMaxItems);
+    }
+
+    public boolean isUnlimited() {
+        return maxBytes == 0 && maxItems == 0;
+    }
+
+    public boolean limitsBytes() {
+        return maxBytes > 0;
+    }
+
+    public boolean limitsItems() {
+        return maxItems > 0;
+    }
+}
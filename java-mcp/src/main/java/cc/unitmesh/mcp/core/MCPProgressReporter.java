@@ -0,0 +1,57 @@
+package cc.unitmesh.mcp.core;
+
+/**
+ * Progress reporter that can be injected into @MCPTool methods.
+ *
+ * Declare a parameter of this type and the MCP core passes a reporter bound to the current call;
+ * it is not part of the tool's input schema. Reports are sent to the client as MCP progress
+ * notifications when the client asked for them, and are ignored otherwise.
+ *
+ * Example usage:
+ * <pre>
+ * {@code
+ * @MCPTool(name = "scan", description = "Scan all rows")
+ * public long scan(String table, MCPProgressReporter progress) {
+ *     for (long row = 0; row < total; row++) {
+ *         ...
+ *         progress.progress(row, total, "scanning " + table);
+ *     }
+ * }
+ * }
+ * </pre>
+ *
+ * @author AutoDev MCP Team
+ */
+public interface MCPProgressReporter {
+
+    /**
+     * Reporter that drops every report, used when the caller cannot receive notifications.
+     */
+    MCPProgressReporter NOOP = new MCPProgressReporter() {
+        @Override
+        public void progress(long progress, long total, String message) {
+        }
+
+        @Override
+        public void partial(String chunk) {
+        }
+    };
+
+    /**
+     * Report progress. Use a total of 0 or less when the total is unknown.
+     * Reports may be throttled, so it is fine to call this for every unit of work.
+     */
+    void progress(long progress, long total, String message);
+
+    /**
+     * Report progress without a message.
+     */
+    default void progress(long progress, long total) {
+        progress(progress, total, null);
+    }
+
+    /**
+     * Send a partial chunk of the result ahead of the final response.
+     */
+    void partial(String chunk);
+}
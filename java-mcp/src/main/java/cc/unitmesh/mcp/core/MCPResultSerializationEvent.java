@@ -0,0 +1,31 @@
+package cc.unitmesh.mcp.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for serializing one tool result (or one streamed chunk) to JSON.
+ *
+ * @author AutoDev MCP Team
+ */
+@Name("cc.unitmesh.mcp.ResultSerialization")
+@Label("MCP Result Serialization")
+@Category({"MCP", "Tools"})
+@Description("Serialization of a tool result within its output budget")
+@StackTrace(false)
+public class MCPResultSerializationEvent extends jdk.jfr.Event {
+
+    @Label("Result Type")
+    String resultType;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Truncated")
+    boolean truncated;
+}
@@ -0,0 +1,401 @@
+package cc.unitmesh.mcp.core;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Serializes tool results in a single pass.
+ *
+ * Results are written by a streaming UTF-8 {@link JsonGenerator} straight into an output stream
+ * or a pooled byte buffer, instead of {@code writeValueAsString}, which goes through a char
+ * buffer first. Strings are passed through unchanged, as before.
+ *
+ * Serialization into the buffer enforces an {@link MCPOutputBudget}: a top-level list, array or
+ * map is written element by element and stops at the first element that would exceed the budget,
+ * so the output stays valid JSON; other values are cut off when the buffer reaches the byte limit.
+ * Truncated output ends with a {@code [truncated: ...]} marker line.
+ *
+ * @author AutoDev MCP Team
+ */
+public class MCPResultSerializer {
+
+    private static final int POOL_SIZE = 16;
+
+    /**
+     * Buffers that grew beyond this size are dropped instead of pooled, so one huge result
+     * does not pin its memory for the lifetime of the server.
+     */
+    private static final int MAX_POOLED_CAPACITY = 1024 * 1024;
+
+    private final ObjectMapper objectMapper;
+    private final JsonFactory jsonFactory;
+    private final MCPOutputBudget defaultBudget;
+    private final BlockingQueue<ResultBuffer> pool = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    public MCPResultSerializer(ObjectMapper objectMapper, MCPOutputBudget defaultBudget) {
+        this.objectMapper = objectMapper;
+        this.defaultBudget = defaultBudget;
+        this.jsonFactory = objectMapper.getFactory().copy()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * Get the budget applied to tools that do not override it.
+     */
+    public MCPOutputBudget getDefaultBudget() {
+        return defaultBudget;
+    }
+
+    /**
+     * Serialize a result to the text sent to the client, within the default budget.
+     */
+    public String serialize(Object result) throws IOException {
+        return serialize(result, defaultBudget);
+    }
+
+    /**
+     * Serialize a result to the text sent to the client, within the given budget.
+     */
+    public String serialize(Object result, MCPOutputBudget budget) throws IOException {
+        if (result == null) {
+            return "null";
+        } else if (result instanceof String text) {
+            return truncate(text, budget);
+        }
+
+        MCPResultSerializationEvent event = new MCPResultSerializationEvent();
+        event.begin();
+        ResultBuffer buffer = acquire();
+        try {
+            String marker = budget.isUnlimited()
+                ? writeUnbudgeted(result, buffer)
+                : writeBudgeted(result, buffer, budget);
+            String text = buffer.toString(StandardCharsets.UTF_8);
+            event.end();
+            if (event.shouldCommit()) {
+                event.resultType = result.getClass().getName();
+                event.bytes = buffer.size();
+                event.truncated = marker != null;
+                event.commit();
+            }
+            return marker != null ? text + "\n" + marker : text;
+        } finally {
+            release(buffer);
+        }
+    }
+
+    /**
+     * Serialize a result as UTF-8 JSON directly into the given stream, which is left open.
+     * Strings are written as they are, not as JSON strings. No budget is applied.
+     */
+    public void writeTo(Object result, OutputStream out) throws IOException {
+        if (result instanceof String text) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        try (JsonGenerator generator = createGenerator(out)) {
+            objectMapper.writeValue(generator, result);
+        }
+    }
+
+    /**
+     * Cut text that exceeds the byte budget at a character boundary and append the marker.
+     */
+    public String truncate(String text, MCPOutputBudget budget) {
+        if (!budget.limitsBytes() || text.length() <= budget.maxBytes() / 3) {
+            return text;
+        }
+        int end = utf8Prefix(text, budget.maxBytes());
+        if (end == text.length()) {
+            return text;
+        }
+        return text.substring(0, end) + "\n" + truncationMarker(end + " of " + text.length() + " characters",
+            "maxOutputBytes=" + budget.maxBytes());
+    }
+
+    /**
+     * Build the marker line appended to truncated output.
+     */
+    public static String truncationMarker(String shown, String limit) {
+        return "[truncated: showing " + shown + ", output limit " + limit + " reached]";
+    }
+
+    private String writeUnbudgeted(Object result, ResultBuffer buffer) throws IOException {
+        try (JsonGenerator generator = createGenerator(buffer)) {
+            objectMapper.writeValue(generator, result);
+        }
+        return null;
+    }
+
+    private String writeBudgeted(Object result, ResultBuffer buffer, MCPOutputBudget budget) throws IOException {
+        buffer.limit(budget.limitsBytes() ? budget.maxBytes() : Long.MAX_VALUE);
+        JsonGenerator generator = createGenerator(buffer);
+        try {
+            if (result instanceof Collection<?> collection) {
+                return writeItems(generator, buffer, collection.iterator(), collection.size(), budget);
+            } else if (result instanceof Object[] array) {
+                return writeItems(generator, buffer, Arrays.asList(array).iterator(), array.length, budget);
+            } else if (result instanceof Map<?, ?> map) {
+                return writeEntries(generator, buffer, map, budget);
+            }
+            objectMapper.writeValue(generator, result);
+            generator.flush();
+            return null;
+        } catch (IOException e) {
+            if (!buffer.isLimitReached()) {
+                throw e;
+            }
+            // A single value larger than the budget: keep the prefix that fits
+            return truncationMarker(buffer.size() + " bytes", "maxOutputBytes=" + budget.maxBytes());
+        } finally {
+            // Whatever the generator still holds belongs to an abandoned element
+            buffer.seal();
+            generator.close();
+        }
+    }
+
+    private String writeItems(JsonGenerator generator, ResultBuffer buffer, Iterator<?> items,
+                              int total, MCPOutputBudget budget) throws IOException {
+        generator.writeStartArray();
+        int written = 0;
+        while (items.hasNext()) {
+            if (budget.limitsItems() && written >= budget.maxItems()) {
+                return closeTruncated(generator, buffer, -1, "]",
+                    truncationMarker(written + " of " + total + " items", "maxOutputItems=" + budget.maxItems()));
+            }
+            generator.flush();
+            int mark = buffer.size();
+            try {
+                generator.writeObject(items.next());
+                generator.flush();
+            } catch (IOException e) {
+                if (!buffer.isLimitReached()) {
+                    throw e;
+                }
+                return closeTruncated(generator, buffer, mark, "]",
+                    truncationMarker(written + " of " + total + " items", "maxOutputBytes=" + budget.maxBytes()));
+            }
+            written++;
+        }
+        generator.writeEndArray();
+        generator.flush();
+        return null;
+    }
+
+    private String writeEntries(JsonGenerator generator, ResultBuffer buffer, Map<?, ?> map,
+                                MCPOutputBudget budget) throws IOException {
+        generator.writeStartObject();
+        int written = 0;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (budget.limitsItems() && written >= budget.maxItems()) {
+                return closeTruncated(generator, buffer, -1, "}",
+                    truncationMarker(written + " of " + map.size() + " entries", "maxOutputItems=" + budget.maxItems()));
+            }
+            generator.flush();
+            int mark = buffer.size();
+            try {
+                generator.writeFieldName(String.valueOf(entry.getKey()));
+                generator.writeObject(entry.getValue());
+                generator.flush();
+            } catch (IOException e) {
+                if (!buffer.isLimitReached()) {
+                    throw e;
+                }
+                return closeTruncated(generator, buffer, mark, "}",
+                    truncationMarker(written + " of " + map.size() + " entries", "maxOutputBytes=" + budget.maxBytes()));
+            }
+            written++;
+        }
+        generator.writeEndObject();
+        generator.flush();
+        return null;
+    }
+
+    /**
+     * Drop the element that did not fit (mark -1 keeps everything) and close the container
+     * directly in the buffer, bypassing the generator and the byte limit.
+     */
+    private String closeTruncated(JsonGenerator generator, ResultBuffer buffer, int mark,
+                                  String closing, String marker) throws IOException {
+        if (mark < 0) {
+            generator.flush();
+        } else {
+            buffer.truncate(mark);
+        }
+        buffer.seal();
+        buffer.append(closing);
+        return marker;
+    }
+
+    private JsonGenerator createGenerator(OutputStream out) throws IOException {
+        JsonGenerator generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8);
+        generator.setCodec(objectMapper);
+        return generator;
+    }
+
+    /**
+     * Size of the UTF-8 encoding of the text, without encoding it.
+     */
+    public static long utf8Length(CharSequence text) {
+        long bytes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Length of the longest prefix of the text whose UTF-8 encoding fits in maxBytes.
+     */
+    private static int utf8Prefix(String text, long maxBytes) {
+        long bytes = 0;
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            int charBytes;
+            int chars = 1;
+            if (c < 0x80) {
+                charBytes = 1;
+            } else if (c < 0x800) {
+                charBytes = 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                charBytes = 4;
+                chars = 2;
+            } else {
+                charBytes = 3;
+            }
+            if (bytes + charBytes > maxBytes) {
+                break;
+            }
+            bytes += charBytes;
+            i += chars;
+        }
+        return i;
+    }
+
+    private ResultBuffer acquire() {
+        ResultBuffer buffer = pool.poll();
+        return buffer != null ? buffer : new ResultBuffer();
+    }
+
+    private void release(ResultBuffer buffer) {
+        if (buffer.capacity() <= MAX_POOLED_CAPACITY) {
+            buffer.reset();
+            pool.offer(buffer);
+        }
+    }
+
+    /**
+     * Thrown by the buffer when a write would exceed the byte budget.
+     */
+    private static class BudgetExceededException extends IOException {
+        BudgetExceededException() {
+            super("Output budget exceeded");
+        }
+    }
+
+    /**
+     * Growable byte buffer with a byte limit. Once sealed it ignores further writes, which lets
+     * a generator abandoned mid-element be closed without corrupting the output.
+     */
+    private static class ResultBuffer extends OutputStream {
+
+        private byte[] buf = new byte[8192];
+        private int count;
+        private long limit = Long.MAX_VALUE;
+        private boolean limitReached;
+        private boolean sealed;
+
+        void limit(long limit) {
+            this.limit = limit;
+        }
+
+        boolean isLimitReached() {
+            return limitReached;
+        }
+
+        void seal() {
+            sealed = true;
+        }
+
+        void truncate(int size) {
+            count = Math.min(count, size);
+        }
+
+        void append(String text) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            copy(bytes, 0, bytes.length);
+        }
+
+        int size() {
+            return count;
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+
+        String toString(Charset charset) {
+            return new String(buf, 0, count, charset);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (sealed) {
+                return;
+            }
+            if (count + (long) len > limit) {
+                copy(b, off, (int) Math.max(0, limit - count));
+                limitReached = true;
+                sealed = true;
+                throw new BudgetExceededException();
+            }
+            copy(b, off, len);
+        }
+
+        void reset() {
+            count = 0;
+            limit = Long.MAX_VALUE;
+            limitReached = false;
+            sealed = false;
+        }
+
+        private void copy(byte[] b, int off, int len) {
+            if (count + len > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, count + len));
+            }
+            System.arraycopy(b, off, buf, count, len);
+            count += len;
+        }
+    }
+}
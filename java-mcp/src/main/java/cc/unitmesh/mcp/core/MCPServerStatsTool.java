@@ -0,0 +1,134 @@
+package cc.unitmesh.mcp.core;
+
+import cc.unitmesh.mcp.annotation.MCPTool;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Built-in tool reporting server health and per-tool metrics from MCPToolMetrics.
+ *
+ * @author AutoDev MCP Team
+ */
+public class MCPServerStatsTool {
+
+    private final MCPToolMetrics metrics;
+    private final MCPToolRegistry toolRegistry;
+    private final MCPInvocationTracker invocationTracker;
+    private final MCPCircuitBreakerRegistry circuitBreakers;
+    private final MCPInvocationScheduler scheduler;
+
+    public MCPServerStatsTool(MCPToolMetrics metrics, MCPToolRegistry toolRegistry,
+                              MCPInvocationTracker invocationTracker, MCPCircuitBreakerRegistry circuitBreakers,
+                              MCPInvocationScheduler scheduler) {
+        this.metrics = metrics;
+        this.toolRegistry = toolRegistry;
+        this.invocationTracker = invocationTracker;
+        this.circuitBreakers = circuitBreakers;
+        this.scheduler = scheduler;
+    }
+
+    @MCPTool(
+        name = "server_stats",
+        description = "Return MCP server statistics: uptime, heap, GC, in-flight and queued calls, circuit breaker states and per-tool call counts, queue wait, latency, allocation and CPU time. Pass a tool name to only report that tool.",
+        category = "server",
+        circuitBreaker = MCPCircuitBreakerRegistry.NONE,
+        version = "1.0",
+        tags = {"server", "metrics", "diagnostics"},
+        priority = 10,
+        maxOutputItems = 0
+    )
+    public Map<String, Object> serverStats(String tool) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("uptimeSeconds", ManagementFactory.getRuntimeMXBean().getUptime() / 1000);
+        stats.put("registeredTools", toolRegistry.getToolCount());
+        stats.put("inFlightCalls", invocationTracker.getInFlightCount());
+        stats.put("scheduler", schedulerStats());
+        stats.put("resourceAccounting", metrics.isResourceAccountingEnabled());
+        stats.put("heap", heapStats());
+        stats.put("gc", gcStats());
+        if (circuitBreakers.isEnabled()) {
+            stats.put("circuitBreakers", circuitBreakerStats());
+        }
+
+        Map<String, Object> tools = new LinkedHashMap<>();
+        metrics.snapshot().forEach((name, toolStats) -> {
+            if (tool == null || tool.isBlank() || tool.equals(name)) {
+                tools.put(name, toolStats(toolStats));
+            }
+        });
+        stats.put("tools", tools);
+        return stats;
+    }
+
+    private Map<String, Object> toolStats(MCPToolMetrics.ToolStats stats) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("calls", stats.calls());
+        result.put("errors", stats.errors());
+        result.put("cancelled", stats.cancelled());
+        result.put("timeouts", stats.timeouts());
+        result.put("rejected", stats.rejected());
+        result.put("averageMillis", round(stats.averageMillis()));
+        result.put("totalMillis", round(stats.totalMillis()));
+        result.put("abandonedMillis", round(stats.abandonedMillis()));
+        result.put("averageQueuedMillis", round(stats.averageQueuedMillis()));
+        result.put("maxQueuedMillis", round(stats.maxQueuedMillis()));
+        if (metrics.isResourceAccountingEnabled()) {
+            result.put("allocatedBytes", stats.allocatedBytes());
+            result.put("averageAllocatedBytes", stats.averageAllocatedBytes());
+            result.put("cpuMillis", round(stats.cpuMillis()));
+            result.put("averageCpuMillis", round(stats.averageCpuMillis()));
+        }
+        return result;
+    }
+
+    private Map<String, Object> schedulerStats() {
+        MCPInvocationScheduler.Stats schedulerStats = scheduler.getStats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("prioritized", schedulerStats.threads() > 0);
+        result.put("threads", schedulerStats.threads());
+        result.put("running", schedulerStats.running());
+        result.put("queued", schedulerStats.queued());
+        result.put("agingMs", schedulerStats.agingMs());
+        return result;
+    }
+
+    private Map<String, Object> circuitBreakerStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        circuitBreakers.snapshot().forEach((name, breaker) -> {
+            Map<String, Object> breakerStats = new LinkedHashMap<>();
+            breakerStats.put("state", breaker.state());
+            breakerStats.put("recentCalls", breaker.windowCalls());
+            breakerStats.put("failureRatePercent", breaker.failureRate());
+            breakerStats.put("slowCallRatePercent", breaker.slowCallRate());
+            breakerStats.put("rejected", breaker.rejected());
+            breakerStats.put("timesOpened", breaker.opened());
+            result.put(name, breakerStats);
+        });
+        return result;
+    }
+
+    private static Map<String, Object> heapStats() {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("usedBytes", heap.getUsed());
+        result.put("committedBytes", heap.getCommitted());
+        result.put("maxBytes", heap.getMax());
+        return result;
+    }
+
+    private static Map<String, Object> gcStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            result.put(gc.getName(), Map.of("collections", gc.getCollectionCount(), "timeMillis", gc.getCollectionTime()));
+        }
+        return result;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
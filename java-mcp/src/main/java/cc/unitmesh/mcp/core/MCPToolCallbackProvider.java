@@ -5,59 +5,113 @@ import org.slf4j.LoggerFactory;
 import org.springframework.ai.model.function.FunctionCallback;
 import org.springframework.ai.tool.ToolCallback;
 import org.springframework.ai.tool.ToolCallbackProvider;
-import org.springframework.stereotype.Component;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * MCP-specific implementation of ToolCallbackProvider.
  * Creates MCPMethodToolCallback instances directly from MCPToolMetadata.
  *
+ * The provider follows the MCPToolRegistry through its change listener and only creates or drops
+ * the callbacks of the tools that changed. Readers see an immutable snapshot that is replaced
+ * atomically, so reading the callbacks never locks.
+ *
  * @author AutoDev MCP Team
  */
-@Component("toolCallbackProvider")
-public class MCPToolCallbackProvider implements ToolCallbackProvider {
+public class MCPToolCallbackProvider implements ToolCallbackProvider, MCPToolRegistryListener {
 
     private static final Logger logger = LoggerFactory.getLogger(MCPToolCallbackProvider.class);
 
     private final MCPToolRegistry toolRegistry;
-    private final Map<String, MCPMethodToolCallback> toolCallbacks = new ConcurrentHashMap<>();
+    private final MCPToolMetrics metrics;
+    private final MCPResultSerializer resultSerializer;
+    private final MCPCircuitBreakerRegistry circuitBreakers;
+    private final MCPInvocationScheduler scheduler;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    /**
+     * Listener for callbacks added to or removed from the provider.
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * Called in order, after the new callbacks are visible through the provider.
+         * A replaced tool appears in both lists of the same change.
+         */
+        void onCallbacksChanged(List<MCPMethodToolCallback> added, List<MCPMethodToolCallback> removed);
+    }
 
-    public MCPToolCallbackProvider(MCPToolRegistry toolRegistry) {
+    /**
+     * @param circuitBreakers breakers of the tools' backends, {@link MCPCircuitBreakerRegistry#DISABLED} for none
+     * @param scheduler       scheduler running blocking tool calls
+     */
+    public MCPToolCallbackProvider(MCPToolRegistry toolRegistry, MCPToolMetrics metrics,
+                                   MCPResultSerializer resultSerializer, MCPCircuitBreakerRegistry circuitBreakers,
+                                   MCPInvocationScheduler scheduler) {
         this.toolRegistry = toolRegistry;
-        logger.info("MCPToolCallbackProvider initialized");
+        this.metrics = metrics;
+        this.resultSerializer = resultSerializer;
+        this.circuitBreakers = circuitBreakers;
+        this.scheduler = scheduler;
+        onToolsChanged(toolRegistry.subscribe(this), List.of());
+        logger.info("MCPToolCallbackProvider initialized with {} tool callbacks", snapshot.array.length);
     }
-    
+
     /**
-     * Create tool callbacks from registered MCP tools.
+     * Apply a registry change: only the callbacks of the added and removed tools are touched.
      */
-    private void createToolCallbacks() {
-        toolCallbacks.clear();
-
-        Collection<MCPToolMetadata> tools = toolRegistry.getAllTools();
-        for (MCPToolMetadata metadata : tools) {
-            if (metadata.isEnabled()) {
-                MCPMethodToolCallback callback = new MCPMethodToolCallback(metadata);
-                toolCallbacks.put(metadata.getName(), callback);
-                logger.debug("Created tool callback for: {}", metadata.getName());
+    @Override
+    public void onToolsChanged(List<MCPToolMetadata> added, List<MCPToolMetadata> removed) {
+        List<MCPMethodToolCallback> addedCallbacks = new ArrayList<>(added.size());
+        List<MCPMethodToolCallback> removedCallbacks = new ArrayList<>(removed.size());
+        synchronized (this) {
+            Map<String, MCPMethodToolCallback> callbacks = new LinkedHashMap<>(snapshot.byName);
+            for (MCPToolMetadata metadata : removed) {
+                MCPMethodToolCallback callback = callbacks.remove(metadata.getName());
+                if (callback != null) {
+                    removedCallbacks.add(callback);
+                    logger.debug("Removed tool callback for: {}", metadata.getName());
+                }
+            }
+            for (MCPToolMetadata metadata : added) {
+                if (metadata.isEnabled()) {
+                    MCPMethodToolCallback callback = new MCPMethodToolCallback(metadata, metrics, resultSerializer,
+                        circuitBreakers.forTool(metadata), scheduler);
+                    MCPMethodToolCallback previous = callbacks.put(metadata.getName(), callback);
+                    if (previous != null) {
+                        removedCallbacks.add(previous);
+                    }
+                    addedCallbacks.add(callback);
+                    logger.debug("Created tool callback for: {}", metadata.getName());
+                }
             }
+            if (addedCallbacks.isEmpty() && removedCallbacks.isEmpty()) {
+                return;
+            }
+            snapshot = new Snapshot(callbacks);
+            // Notify while holding the lock so listeners see the changes in the order they were made
+            notifyListeners(addedCallbacks, removedCallbacks);
         }
+    }
 
-        logger.info("Created {} MCP tool callbacks", toolCallbacks.size());
+    /**
+     * Register a listener for callback changes and return the current callbacks, atomically,
+     * so the listener neither misses nor sees twice a concurrently added tool.
+     */
+    public synchronized List<MCPMethodToolCallback> subscribe(Listener listener) {
+        listeners.add(listener);
+        return snapshot.list;
     }
 
     /**
-     * Ensure tool callbacks are initialized.
+     * Remove a callback listener.
      */
-    private void ensureCallbacksInitialized() {
-        if (toolCallbacks.isEmpty() && toolRegistry.getToolCount() > 0) {
-            synchronized (this) {
-                if (toolCallbacks.isEmpty() && toolRegistry.getToolCount() > 0) {
-                    createToolCallbacks();
-                }
-            }
-        }
+    public void unsubscribe(Listener listener) {
+        listeners.remove(listener);
     }
 
     /**
@@ -65,45 +119,56 @@ public class MCPToolCallbackProvider implements ToolCallbackProvider {
      * This is a convenience method not part of the interface.
      */
     public Optional<ToolCallback> getToolCallback(String toolName) {
-        ensureCallbacksInitialized();
-        MCPMethodToolCallback callback = toolCallbacks.get(toolName);
-        return Optional.ofNullable(callback);
+        return Optional.ofNullable(snapshot.byName.get(toolName));
     }
 
+    /**
+     * Returns a copy of the callback array of the current snapshot, which callers may modify;
+     * {@link #getMethodToolCallbacks()} returns the snapshot itself without copying.
+     */
     @Override
     public FunctionCallback[] getToolCallbacks() {
-        ensureCallbacksInitialized();
-        return toolCallbacks.values().toArray(new FunctionCallback[0]);
+        return snapshot.array.clone();
+    }
+    
+    /**
+     * Get all MCP method tool callbacks, e.g. to expose them through the MCP server.
+     * The returned list is an unmodifiable snapshot.
+     */
+    public List<MCPMethodToolCallback> getMethodToolCallbacks() {
+        return snapshot.list;
     }
     
     /**
-     * Refresh tool callbacks when registry changes.
+     * Rebuild every tool callback from the registry, e.g. after the metrics or serializer
+     * configuration changed. The new callbacks replace the old ones in one step.
      */
     public void refreshToolCallbacks() {
         synchronized (this) {
-            createToolCallbacks();
+            List<MCPToolMetadata> tools = List.copyOf(toolRegistry.getAllTools());
+            List<MCPToolMetadata> removed = snapshot.list.stream()
+                .map(MCPMethodToolCallback::getMetadata)
+                .toList();
+            onToolsChanged(tools, removed);
         }
         logger.info("MCP tool callbacks refreshed");
     }
 
     /**
      * Add a new tool callback.
+     * Tools registered through the MCPToolRegistry are added automatically.
      */
     public void addToolCallback(MCPToolMetadata metadata) {
-        if (metadata.isEnabled()) {
-            MCPMethodToolCallback callback = new MCPMethodToolCallback(metadata);
-            toolCallbacks.put(metadata.getName(), callback);
-            logger.info("Added tool callback for: {}", metadata.getName());
-        }
+        onToolsChanged(List.of(metadata), List.of());
     }
 
     /**
      * Remove a tool callback.
      */
     public void removeToolCallback(String toolName) {
-        MCPMethodToolCallback removed = toolCallbacks.remove(toolName);
-        if (removed != null) {
-            logger.info("Removed tool callback for: {}", toolName);
+        MCPMethodToolCallback callback = snapshot.byName.get(toolName);
+        if (callback != null) {
+            onToolsChanged(List.of(), List.of(callback.getMetadata()));
         }
     }
 
@@ -111,26 +176,50 @@ public class MCPToolCallbackProvider implements ToolCallbackProvider {
      * Get tool callback count.
      */
     public int getCallbackCount() {
-        ensureCallbacksInitialized();
-        return toolCallbacks.size();
+        return snapshot.array.length;
     }
 
     /**
      * Check if a tool callback exists.
      */
     public boolean hasToolCallback(String toolName) {
-        return getToolCallback(toolName).isPresent();
+        return snapshot.byName.containsKey(toolName);
     }
 
     /**
      * Get all tool callbacks as a map (for compatibility).
      */
     public Map<String, ToolCallback> getToolCallbacksAsMap() {
-        ensureCallbacksInitialized();
-        Map<String, ToolCallback> result = new HashMap<>();
-        for (Map.Entry<String, MCPMethodToolCallback> entry : toolCallbacks.entrySet()) {
-            result.put(entry.getKey(), entry.getValue());
+        return new HashMap<>(snapshot.byName);
+    }
+
+    private void notifyListeners(List<MCPMethodToolCallback> added, List<MCPMethodToolCallback> removed) {
+        List<MCPMethodToolCallback> addedView = Collections.unmodifiableList(added);
+        List<MCPMethodToolCallback> removedView = Collections.unmodifiableList(removed);
+        for (Listener listener : listeners) {
+            try {
+                listener.onCallbacksChanged(addedView, removedView);
+            } catch (RuntimeException e) {
+                logger.error("MCP tool callback listener failed", e);
+            }
+        }
+    }
+
+    /**
+     * Immutable view of the callbacks, replaced as a whole on every change.
+     */
+    private static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(Map.of());
+
+        final Map<String, MCPMethodToolCallback> byName;
+        final List<MCPMethodToolCallback> list;
+        final FunctionCallback[] array;
+
+        Snapshot(Map<String, MCPMethodToolCallback> callbacks) {
+            this.byName = Collections.unmodifiableMap(callbacks);
+            this.list = List.copyOf(callbacks.values());
+            this.array = list.toArray(new FunctionCallback[0]);
         }
-        return result;
     }
 }
@@ -0,0 +1,48 @@
+package cc.unitmesh.mcp.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for one tool call, from argument parsing until the result is complete.
+ *
+ * Sizes are only computed for events that pass the threshold, so calls below it cost no more
+ * than an event allocation.
+ *
+ * @author AutoDev MCP Team
+ */
+@Name("cc.unitmesh.mcp.ToolInvocation")
+@Label("MCP Tool Invocation")
+@Category({"MCP", "Tools"})
+@Description("Execution of an MCP tool call")
+@StackTrace(false)
+public class MCPToolInvocationEvent extends jdk.jfr.Event {
+
+    @Label("Tool")
+    String toolName;
+
+    @Label("Category")
+    String category;
+
+    @Label("Argument Size")
+    @DataAmount
+    long argumentBytes;
+
+    @Label("Result Size")
+    @DataAmount
+    long resultBytes;
+
+    @Label("Queue Wait")
+    @Description("Time the call waited for a worker thread, included in the duration")
+    @Timespan
+    long queueWait;
+
+    @Label("Outcome")
+    @Description("SUCCESS, ERROR, CANCELLED or TIMEOUT")
+    String outcome;
+}
@@ -3,11 +3,15 @@ package cc.unitmesh.mcp.core;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 /**
  * Metadata holder for MCP tools.
  * Contains all the information about an MCP tool including its configuration and runtime details.
  * 
+ * The bean may be supplied lazily: everything but {@link #getBean()} comes from the bean class,
+ * so a tool can be listed before the bean (and whatever it depends on) is created.
+ * 
  * @author AutoDev MCP Team
  */
 public class MCPToolMetadata {
@@ -23,14 +27,18 @@ public class MCPToolMetadata {
     private final long timeoutMs;
     private final boolean cacheable;
     private final long cacheTtlSeconds;
+    private final long maxOutputBytes;
+    private final int maxOutputItems;
+    private final String circuitBreaker;
     private final Method method;
-    private final Object bean;
+    private final Supplier<?> beanSupplier;
     private final Class<?> beanClass;
     
     public MCPToolMetadata(String name, String description, String category, String version,
                           String[] tags, boolean enabled, int priority, boolean requiresAuth,
                           long timeoutMs, boolean cacheable, long cacheTtlSeconds,
-                          Method method, Object bean, Class<?> beanClass) {
+                          long maxOutputBytes, int maxOutputItems, String circuitBreaker,
+                          Method method, Class<?> beanClass, Supplier<?> beanSupplier) {
         this.name = name;
         this.description = description;
         this.category = category;
@@ -42,8 +50,11 @@ public class MCPToolMetadata {
         this.timeoutMs = timeoutMs;
         this.cacheable = cacheable;
         this.cacheTtlSeconds = cacheTtlSeconds;
+        this.maxOutputBytes = maxOutputBytes;
+        this.maxOutputItems = maxOutputItems;
+        this.circuitBreaker = circuitBreaker != null && !circuitBreaker.isEmpty() ? circuitBreaker : category;
         this.method = method;
-        this.bean = bean;
+        this.beanSupplier = beanSupplier;
         this.beanClass = beanClass;
     }
     
@@ -59,8 +70,14 @@ public class MCPToolMetadata {
     public long getTimeoutMs() { return timeoutMs; }
     public boolean isCacheable() { return cacheable; }
     public long getCacheTtlSeconds() { return cacheTtlSeconds; }
+    public long getMaxOutputBytes() { return maxOutputBytes; }
+    public int getMaxOutputItems() { return maxOutputItems; }
+    public String getCircuitBreaker() { return circuitBreaker; }
     public Method getMethod() { return method; }
-    public Object getBean() { return bean; }
+    /**
+     * Get the bean to invoke the method on, creating it on first use if it is supplied lazily.
+     */
+    public Object getBean() { return beanSupplier.get(); }
     public Class<?> getBeanClass() { return beanClass; }
     
     @Override
@@ -92,6 +109,9 @@ public class MCPToolMetadata {
                 ", timeoutMs=" + timeoutMs +
                 ", cacheable=" + cacheable +
                 ", cacheTtlSeconds=" + cacheTtlSeconds +
+                ", maxOutputBytes=" + maxOutputBytes +
+                ", maxOutputItems=" + maxOutputItems +
+                ", circuitBreaker='" + circuitBreaker + '\'' +
                 ", method=" + method.getName() +
                 ", beanClass=" + beanClass.getSimpleName() +
                 '}';
@@ -0,0 +1,239 @@
+package cc.unitmesh.mcp.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-tool call metrics: call counts by outcome and time spent, including time spent on
+ * work that was cancelled or timed out before it could be returned. Time calls waited for a
+ * worker thread is kept apart from the time they ran.
+ *
+ * With resource accounting enabled, the bytes allocated and the CPU time used by each call are
+ * measured with the HotSpot thread counters and aggregated per tool as well. Only the work a
+ * call does on its own threads is counted (the tool method, argument binding and result
+ * serialization), not work it hands off to pools or other services.
+ *
+ * @author AutoDev MCP Team
+ */
+public class MCPToolMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(MCPToolMetrics.class);
+
+    /**
+     * How a tool call ended.
+     */
+    public enum Outcome {
+        SUCCESS, ERROR, CANCELLED, TIMEOUT,
+        /** Not run because the tool's circuit breaker was open. */
+        REJECTED
+    }
+
+    private final Map<String, ToolCounters> tools = new ConcurrentHashMap<>();
+    private final com.sun.management.ThreadMXBean threads;
+
+    /**
+     * @param resourceAccounting whether to measure allocation and CPU time per call
+     */
+    public MCPToolMetrics(boolean resourceAccounting) {
+        this.threads = resourceAccounting ? enableThreadCounters() : null;
+    }
+
+    /**
+     * Whether allocation and CPU time are measured.
+     */
+    public boolean isResourceAccountingEnabled() {
+        return threads != null;
+    }
+
+    /**
+     * Run part of a call on the current thread, adding its allocation and CPU time to the usage.
+     * Runs the body unmeasured when accounting is disabled or usage is null.
+     */
+    public <T> T measure(ResourceUsage usage, Callable<T> body) throws Exception {
+        if (threads == null || usage == null) {
+            return body.call();
+        }
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long cpuBefore = threads.getCurrentThreadCpuTime();
+        try {
+            return body.call();
+        } finally {
+            usage.add(threads.getCurrentThreadAllocatedBytes() - allocatedBefore,
+                threads.getCurrentThreadCpuTime() - cpuBefore);
+        }
+    }
+
+    /**
+     * Record a finished tool call.
+     */
+    public void record(String toolName, Outcome outcome, long durationNanos) {
+        record(toolName, outcome, durationNanos, null);
+    }
+
+    /**
+     * Record a finished tool call with the resources it used.
+     */
+    public void record(String toolName, Outcome outcome, long durationNanos, ResourceUsage usage) {
+        record(toolName, outcome, 0, durationNanos, usage);
+    }
+
+    /**
+     * Record a finished tool call that first waited in the invocation scheduler's queue.
+     *
+     * @param queuedNanos   time the call waited for a worker thread
+     * @param durationNanos time the call ran, without the wait
+     */
+    public void record(String toolName, Outcome outcome, long queuedNanos, long durationNanos, ResourceUsage usage) {
+        ToolCounters counters = tools.computeIfAbsent(toolName, k -> new ToolCounters());
+        if (outcome == Outcome.REJECTED) {
+            // Never ran: counted apart so it does not dilute the call count and latencies
+            counters.rejected.increment();
+            return;
+        }
+        counters.queuedNanos.add(queuedNanos);
+        counters.maxQueuedNanos.accumulate(queuedNanos);
+        counters.calls.increment();
+        if (usage != null && threads != null) {
+            counters.allocatedBytes.add(usage.getAllocatedBytes());
+            counters.cpuNanos.add(usage.getCpuNanos());
+        }
+        counters.totalNanos.add(durationNanos);
+        switch (outcome) {
+            case ERROR -> counters.errors.increment();
+            case CANCELLED -> {
+                counters.cancelled.increment();
+                counters.abandonedNanos.add(durationNanos);
+            }
+            case TIMEOUT -> {
+                counters.timeouts.increment();
+                counters.abandonedNanos.add(durationNanos);
+            }
+            default -> { }
+        }
+    }
+
+    /**
+     * Get a snapshot of the metrics of all tools, sorted by tool name.
+     */
+    public Map<String, ToolStats> snapshot() {
+        Map<String, ToolStats> result = new TreeMap<>();
+        tools.forEach((name, counters) -> result.put(name, counters.toStats()));
+        return result;
+    }
+
+    /**
+     * Get a snapshot of the metrics of one tool.
+     */
+    public ToolStats getStats(String toolName) {
+        ToolCounters counters = tools.get(toolName);
+        return counters != null ? counters.toStats() : new ToolCounters().toStats();
+    }
+
+    /**
+     * Reset all metrics.
+     */
+    public void reset() {
+        tools.clear();
+    }
+
+    /**
+     * Immutable metrics of one tool.
+     *
+     * @param calls           calls that ran, whatever their outcome
+     * @param rejected        calls refused by an open circuit breaker, not included in calls or times
+     * @param totalMillis     time calls ran, without their wait for a worker thread
+     * @param abandonedMillis time spent on calls that were cancelled or timed out
+     * @param queuedMillis    time calls waited for a worker thread
+     * @param maxQueuedMillis longest wait of a single call for a worker thread
+     * @param allocatedBytes  bytes allocated by all calls, 0 without resource accounting
+     * @param cpuMillis       CPU time used by all calls, 0 without resource accounting
+     */
+    public record ToolStats(long calls, long errors, long cancelled, long timeouts, long rejected,
+                            double totalMillis, double abandonedMillis,
+                            double queuedMillis, double maxQueuedMillis,
+                            long allocatedBytes, double cpuMillis) {
+
+        public double averageMillis() {
+            return calls == 0 ? 0 : totalMillis / calls;
+        }
+
+        public double averageQueuedMillis() {
+            return calls == 0 ? 0 : queuedMillis / calls;
+        }
+
+        public long averageAllocatedBytes() {
+            return calls == 0 ? 0 : allocatedBytes / calls;
+        }
+
+        public double averageCpuMillis() {
+            return calls == 0 ? 0 : cpuMillis / calls;
+        }
+    }
+
+    /**
+     * Resources used by one call, possibly on several threads.
+     */
+    public static final class ResourceUsage {
+        private long allocatedBytes;
+        private long cpuNanos;
+
+        synchronized void add(long allocated, long cpu) {
+            // The counters return -1 when unsupported for the thread
+            if (allocated > 0) {
+                allocatedBytes += allocated;
+            }
+            if (cpu > 0) {
+                cpuNanos += cpu;
+            }
+        }
+
+        public synchronized long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        public synchronized long getCpuNanos() {
+            return cpuNanos;
+        }
+    }
+
+    private static class ToolCounters {
+        final LongAdder calls = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder cancelled = new LongAdder();
+        final LongAdder timeouts = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAdder abandonedNanos = new LongAdder();
+        final LongAdder queuedNanos = new LongAdder();
+        final LongAccumulator maxQueuedNanos = new LongAccumulator(Math::max, 0);
+        final LongAdder allocatedBytes = new LongAdder();
+        final LongAdder cpuNanos = new LongAdder();
+
+        ToolStats toStats() {
+            return new ToolStats(calls.sum(), errors.sum(), cancelled.sum(), timeouts.sum(), rejected.sum(),
+                totalNanos.sum() / 1e6, abandonedNanos.sum() / 1e6,
+                queuedNanos.sum() / 1e6, maxQueuedNanos.get() / 1e6,
+                allocatedBytes.sum(), cpuNanos.sum() / 1e6);
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean enableThreadCounters() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads)
+                || !threads.isThreadAllocatedMemorySupported()
+                || !threads.isCurrentThreadCpuTimeSupported()) {
+            logger.warn("Per-call resource accounting is not supported by this JVM");
+            return null;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        threads.setThreadCpuTimeEnabled(true);
+        return threads;
+    }
+}
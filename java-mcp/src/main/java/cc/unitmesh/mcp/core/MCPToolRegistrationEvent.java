@@ -0,0 +1,33 @@
+package cc.unitmesh.mcp.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for a change to the MCPToolRegistry.
+ *
+ * @author AutoDev MCP Team
+ */
+@Name("cc.unitmesh.mcp.ToolRegistration")
+@Label("MCP Tool Registration")
+@Category({"MCP", "Registry"})
+@Description("Registration or removal of a tool in the registry")
+@StackTrace(false)
+public class MCPToolRegistrationEvent extends jdk.jfr.Event {
+
+    @Label("Tool")
+    String toolName;
+
+    @Label("Category")
+    String category;
+
+    @Label("Action")
+    @Description("REGISTERED, REPLACED, REJECTED, SKIPPED or UNREGISTERED")
+    String action;
+
+    @Label("Tool Count")
+    int toolCount;
+}
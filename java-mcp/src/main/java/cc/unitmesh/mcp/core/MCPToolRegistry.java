@@ -4,17 +4,24 @@ import cc.unitmesh.mcp.annotation.MCPTool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
 
 import java.lang.reflect.Method;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * Registry for managing MCP tools.
  * Handles registration, discovery, and retrieval of MCP tools.
  * 
+ * Tools can be registered and unregistered at any time; every change is published to the
+ * {@link MCPToolRegistryListener}s as a diff, which is how the callback provider and the running
+ * MCP server pick it up.
+ * 
  * @author AutoDev MCP Team
  */
 @Component
@@ -24,17 +31,86 @@ public class MCPToolRegistry {
     
     private final Map<String, MCPToolMetadata> tools = new ConcurrentHashMap<>();
     private final Map<String, List<MCPToolMetadata>> toolsByCategory = new ConcurrentHashMap<>();
+    private final List<MCPToolRegistryListener> listeners = new CopyOnWriteArrayList<>();
+    
+    /**
+     * Add a listener for registry changes. It does not receive the tools registered so far.
+     */
+    public void addListener(MCPToolRegistryListener listener) {
+        listeners.add(listener);
+    }
+    
+    /**
+     * Add a listener for registry changes and return the tools registered so far, atomically,
+     * so the listener neither misses nor sees twice a tool registered concurrently.
+     */
+    public synchronized List<MCPToolMetadata> subscribe(MCPToolRegistryListener listener) {
+        listeners.add(listener);
+        return new ArrayList<>(tools.values());
+    }
+    
+    /**
+     * Remove a listener for registry changes.
+     */
+    public void removeListener(MCPToolRegistryListener listener) {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * Register all @MCPTool methods of a bean, e.g. one created at runtime.
+     * Returns the names of the tools that were registered.
+     */
+    public List<String> registerTools(Object bean) {
+        return registerTools(bean.getClass(), () -> bean);
+    }
+    
+    /**
+     * Register all @MCPTool methods of a bean class without creating the bean: the supplier is
+     * only called when one of the tools is invoked. Returns the names of the tools that were
+     * registered.
+     */
+    public List<String> registerTools(Class<?> beanClass, Supplier<?> beanSupplier) {
+        List<String> registered = new ArrayList<>();
+        for (Method method : ClassUtils.getUserClass(beanClass).getDeclaredMethods()) {
+            MCPTool annotation = method.getAnnotation(MCPTool.class);
+            if (annotation == null) {
+                continue;
+            }
+            try {
+                if (registerTool(beanClass, beanSupplier, method, annotation)) {
+                    registered.add(StringUtils.hasText(annotation.name()) ? annotation.name() : method.getName());
+                }
+            } catch (Exception e) {
+                logger.error("Failed to register MCP tool: {}.{}",
+                    beanClass.getSimpleName(), method.getName(), e);
+            }
+        }
+        return registered;
+    }
     
     /**
      * Register an MCP tool from a bean and method.
+     * Returns false if the tool is disabled or an existing tool with the same name was kept.
      */
-    public void registerTool(Object bean, Method method, MCPTool annotation) {
+    public boolean registerTool(Object bean, Method method, MCPTool annotation) {
+        return registerTool(bean.getClass(), () -> bean, method, annotation);
+    }
+    
+    /**
+     * Register an MCP tool from a lazily supplied bean and method.
+     * Returns false if the tool is disabled or an existing tool with the same name was kept.
+     */
+    public synchronized boolean registerTool(Class<?> beanClass, Supplier<?> beanSupplier,
+                                             Method method, MCPTool annotation) {
+        MCPToolRegistrationEvent event = new MCPToolRegistrationEvent();
+        event.begin();
         String toolName = StringUtils.hasText(annotation.name()) ? 
             annotation.name() : method.getName();
         
         if (!annotation.enabled()) {
             logger.debug("Skipping disabled tool: {}", toolName);
-            return;
+            commitRegistrationEvent(event, toolName, annotation.category(), "SKIPPED");
+            return false;
         }
         
         MCPToolMetadata metadata = new MCPToolMetadata(
@@ -49,12 +125,17 @@ public class MCPToolRegistry {
             annotation.timeoutMs(),
             annotation.cacheable(),
             annotation.cacheTtlSeconds(),
+            annotation.maxOutputBytes(),
+            annotation.maxOutputItems(),
+            annotation.circuitBreaker(),
             method,
-            bean,
-            bean.getClass()
+            beanClass,
+            beanSupplier
         );
         
         // Check for duplicate tool names
+        String action = "REGISTERED";
+        MCPToolMetadata replaced = null;
         if (tools.containsKey(toolName)) {
             MCPToolMetadata existing = tools.get(toolName);
             logger.warn("Tool name conflict detected: '{}'. Existing: {}.{}, New: {}.{}", 
@@ -65,27 +146,43 @@ public class MCPToolRegistry {
             // Keep the one with higher priority
             if (metadata.getPriority() > existing.getPriority()) {
                 logger.info("Replacing tool '{}' with higher priority version", toolName);
-                unregisterTool(toolName);
+                replaced = removeTool(toolName);
+                action = "REPLACED";
             } else {
                 logger.info("Keeping existing tool '{}' with higher or equal priority", toolName);
-                return;
+                commitRegistrationEvent(event, toolName, annotation.category(), "REJECTED");
+                return false;
             }
         }
         
         tools.put(toolName, metadata);
         
         // Add to category index
-        toolsByCategory.computeIfAbsent(annotation.category(), k -> new ArrayList<>())
+        toolsByCategory.computeIfAbsent(annotation.category(), k -> new CopyOnWriteArrayList<>())
             .add(metadata);
         
         logger.info("Registered MCP tool: {} [{}] - {}", 
             toolName, annotation.category(), annotation.description());
+        notifyListeners(List.of(metadata), replaced != null ? List.of(replaced) : List.of());
+        commitRegistrationEvent(event, toolName, annotation.category(), action);
+        return true;
     }
     
     /**
      * Unregister a tool by name.
      */
-    public void unregisterTool(String toolName) {
+    public synchronized void unregisterTool(String toolName) {
+        MCPToolRegistrationEvent event = new MCPToolRegistrationEvent();
+        event.begin();
+        MCPToolMetadata removed = removeTool(toolName);
+        if (removed != null) {
+            logger.info("Unregistered MCP tool: {}", toolName);
+            notifyListeners(List.of(), List.of(removed));
+            commitRegistrationEvent(event, toolName, removed.getCategory(), "UNREGISTERED");
+        }
+    }
+    
+    private MCPToolMetadata removeTool(String toolName) {
         MCPToolMetadata removed = tools.remove(toolName);
         if (removed != null) {
             // Remove from category index
@@ -96,7 +193,29 @@ public class MCPToolRegistry {
                     toolsByCategory.remove(removed.getCategory());
                 }
             }
-            logger.info("Unregistered MCP tool: {}", toolName);
+        }
+        return removed;
+    }
+    
+    private void notifyListeners(List<MCPToolMetadata> added, List<MCPToolMetadata> removed) {
+        for (MCPToolRegistryListener listener : listeners) {
+            try {
+                listener.onToolsChanged(added, removed);
+            } catch (RuntimeException e) {
+                logger.error("MCP tool registry listener failed", e);
+            }
+        }
+    }
+    
+    private void commitRegistrationEvent(MCPToolRegistrationEvent event, String toolName,
+                                         String category, String action) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.toolName = toolName;
+            event.category = category;
+            event.action = action;
+            event.toolCount = tools.size();
+            event.commit();
         }
     }
     
@@ -167,9 +286,13 @@ public class MCPToolRegistry {
     /**
      * Clear all tools.
      */
-    public void clear() {
+    public synchronized void clear() {
+        List<MCPToolMetadata> removed = new ArrayList<>(tools.values());
         tools.clear();
         toolsByCategory.clear();
+        if (!removed.isEmpty()) {
+            notifyListeners(List.of(), removed);
+        }
         logger.info("Cleared all MCP tools from registry");
     }
 }
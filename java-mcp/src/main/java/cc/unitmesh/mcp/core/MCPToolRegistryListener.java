@@ -0,0 +1,22 @@
+package cc.unitmesh.mcp.core;
+
+import java.util.List;
+
+/**
+ * Listener for changes to the MCPToolRegistry.
+ *
+ * Changes are delivered in order, synchronously on the thread that changed the registry and
+ * while the registry is locked, so listeners must be quick and must not call back into the
+ * registry's mutating methods.
+ *
+ * @author AutoDev MCP Team
+ */
+@FunctionalInterface
+public interface MCPToolRegistryListener {
+
+    /**
+     * Called after tools were added to or removed from the registry.
+     * A tool replaced by a higher priority one appears in both lists of the same change.
+     */
+    void onToolsChanged(List<MCPToolMetadata> added, List<MCPToolMetadata> removed);
+}
@@ -0,0 +1,112 @@
+package cc.unitmesh.mcp.core;
+
+import cc.unitmesh.mcp.transport.MCPRequestInterceptor;
+import io.modelcontextprotocol.server.McpServerFeatures;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Turns MCPMethodToolCallback instances into MCP server tool specifications.
+ * The same specifications are shared by every session of the server, whatever the transport.
+ *
+ * @author AutoDev MCP Team
+ */
+public class MCPToolSpecificationFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(MCPToolSpecificationFactory.class);
+
+    private final McpServerTransportProvider transportProvider;
+    private final MCPInvocationTracker invocationTracker;
+    private final boolean sessionScoped;
+    private final long progressIntervalMs;
+
+    /**
+     * @param transportProvider  transport used to send progress notifications
+     * @param invocationTracker  tracker that maps client cancellations to running calls
+     * @param sessionScoped      whether the transport carries exactly one session (stdio);
+     *                           progress is only reported if it does
+     * @param progressIntervalMs minimum interval between two progress notifications of one call
+     */
+    public MCPToolSpecificationFactory(McpServerTransportProvider transportProvider,
+                                       MCPInvocationTracker invocationTracker,
+                                       boolean sessionScoped,
+                                       long progressIntervalMs) {
+        this.transportProvider = transportProvider;
+        this.invocationTracker = invocationTracker;
+        this.sessionScoped = sessionScoped;
+        this.progressIntervalMs = progressIntervalMs;
+    }
+
+    /**
+     * Create an async tool specification for the given callback.
+     * Blocking tool methods run on the {@link MCPInvocationScheduler} workers by tool priority,
+     * or on the bounded elastic scheduler with mcp.scheduler.enabled=false; tools returning
+     * CompletableFuture, Mono or Flux complete without holding a thread, and every
+     * element of a Flux becomes its own text content entry.
+     */
+    public McpServerFeatures.AsyncToolSpecification create(MCPMethodToolCallback callback) {
+        McpSchema.Tool tool = new McpSchema.Tool(
+            callback.getName(),
+            callback.getDescription(),
+            callback.getInputTypeSchema()
+        );
+
+        return new McpServerFeatures.AsyncToolSpecification(tool, (exchange, arguments) -> {
+            Map<String, Object> args = arguments != null ? new HashMap<>(arguments) : new HashMap<>();
+            Map<String, Object> meta = MCPRequestInterceptor.extractMeta(args);
+
+            return Mono.defer(() -> {
+                MCPInvocation invocation = invocationTracker.start(callback.getName(),
+                    (String) meta.get(MCPRequestInterceptor.REQUEST_KEY));
+                return callback.stream(args, createProgressReporter(meta), invocation)
+                    .map(text -> (McpSchema.Content) new McpSchema.TextContent(text))
+                    .collectList()
+                    .map(contents -> new McpSchema.CallToolResult(contents, false))
+                    .onErrorResume(e -> {
+                        if (e instanceof CancellationException) {
+                            logger.info("MCP tool '{}' cancelled: {}", callback.getName(), e.getMessage());
+                        } else if (e instanceof MCPCircuitOpenException) {
+                            logger.warn("MCP tool '{}' rejected: {}", callback.getName(), e.getMessage());
+                        } else {
+                            logger.error("Error calling MCP tool '{}': {}", callback.getName(), e.getMessage(), e);
+                        }
+                        return Mono.just(errorResult(e));
+                    })
+                    .doFinally(signal -> invocationTracker.finish(invocation));
+            });
+        });
+    }
+
+    /**
+     * Create tool specifications for all given callbacks.
+     */
+    public List<McpServerFeatures.AsyncToolSpecification> createAll(List<MCPMethodToolCallback> callbacks) {
+        return callbacks.stream()
+            .map(this::create)
+            .toList();
+    }
+
+    /**
+     * Progress is only reported when the client sent a progress token with the call, and only
+     * on a session-scoped transport: the SDK cannot address the calling session on a shared one.
+     */
+    private MCPProgressReporter createProgressReporter(Map<String, Object> meta) {
+        Object progressToken = meta.get(MCPRequestInterceptor.PROGRESS_TOKEN);
+        if (progressToken == null || !sessionScoped) {
+            return MCPProgressReporter.NOOP;
+        }
+        return new MCPTransportProgressReporter(transportProvider, progressToken, progressIntervalMs);
+    }
+
+    private McpSchema.CallToolResult errorResult(Throwable e) {
+        return new McpSchema.CallToolResult(List.of(new McpSchema.TextContent("Error: " + e.getMessage())), true);
+    }
+}
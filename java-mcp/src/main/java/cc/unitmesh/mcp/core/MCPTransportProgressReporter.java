@@ -0,0 +1,75 @@
+package cc.unitmesh.mcp.core;
+
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Progress reporter that sends MCP {@code notifications/progress} for one tool call.
+ *
+ * The MCP SDK only exposes notifications to all clients of a transport, so this reporter is
+ * only used on transports that carry a single session (stdio). On a shared transport every
+ * session would receive it, and clients pick their progress tokens themselves, so another
+ * session's call could show up as their own.
+ *
+ * @author AutoDev MCP Team
+ */
+class MCPTransportProgressReporter implements MCPProgressReporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(MCPTransportProgressReporter.class);
+
+    private static final String METHOD_NOTIFICATION_PROGRESS = "notifications/progress";
+
+    private final McpServerTransportProvider transportProvider;
+    private final Object progressToken;
+    private final long minIntervalNanos;
+
+    private long lastSentNanos;
+    private long lastProgress = -1;
+
+    MCPTransportProgressReporter(McpServerTransportProvider transportProvider, Object progressToken,
+                                 long minIntervalMs) {
+        this.transportProvider = transportProvider;
+        this.progressToken = progressToken;
+        this.minIntervalNanos = minIntervalMs * 1_000_000L;
+    }
+
+    @Override
+    public synchronized void progress(long progress, long total, String message) {
+        // Progress must increase with every notification
+        if (progress <= lastProgress) {
+            return;
+        }
+        boolean finished = total > 0 && progress >= total;
+        long now = System.nanoTime();
+        if (!finished && lastSentNanos != 0 && now - lastSentNanos < minIntervalNanos) {
+            return;
+        }
+        lastSentNanos = now;
+        lastProgress = progress;
+        send(progress, total, message);
+    }
+
+    @Override
+    public synchronized void partial(String chunk) {
+        lastProgress++;
+        send(lastProgress, 0, chunk);
+    }
+
+    private void send(long progress, long total, String message) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("progressToken", progressToken);
+        params.put("progress", progress);
+        if (total > 0) {
+            params.put("total", total);
+        }
+        if (message != null) {
+            params.put("message", message);
+        }
+        transportProvider.notifyClients(METHOD_NOTIFICATION_PROGRESS, params)
+            .subscribe(null, e -> logger.debug("Failed to send progress notification: {}", e.getMessage()));
+    }
+}
@@ -0,0 +1,71 @@
+package cc.unitmesh.mcp.datasource;
+
+import javax.sql.DataSource;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One read replica with the state used for routing: reads in flight, last measured
+ * replication lag and whether it was reachable.
+ *
+ * @author AutoDev MCP Team
+ */
+public class Replica {
+
+    /**
+     * Lag value of a replica whose replication is stopped.
+     */
+    public static final long LAG_STOPPED = Long.MAX_VALUE;
+
+    private final String name;
+    private final DataSource dataSource;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile long lagSeconds;
+    private volatile boolean healthy = true;
+
+    public Replica(String name, DataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    void acquire() {
+        inFlight.incrementAndGet();
+    }
+
+    void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public long getLagSeconds() {
+        return lagSeconds;
+    }
+
+    void setLagSeconds(long lagSeconds) {
+        this.lagSeconds = lagSeconds;
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    void setHealthy(boolean healthy) {
+        this.healthy = healthy;
+    }
+
+    @Override
+    public String toString() {
+        return name + "{inFlight=" + inFlight.get() + ", lag=" + lagSeconds + "s, healthy=" + healthy + "}";
+    }
+}
@@ -0,0 +1,93 @@
+package cc.unitmesh.mcp.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data source setup for the database tools: the primary from {@code spring.datasource.*}
+ * plus the read replicas listed in {@code mcp.datasource.replica-urls}, behind one
+ * ReplicaRoutingDataSource so the existing JdbcTemplate keeps working unchanged.
+ *
+ * Without replicas every read goes to the primary, as before.
+ *
+ * All of it is lazy, including the JdbcTemplate (which replaces Spring Boot's), so a session
+ * that never calls a database tool never creates a pool or opens a connection.
+ *
+ * @author AutoDev MCP Team
+ */
+@Configuration
+@Lazy
+public class ReplicaDataSourceConfiguration {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaDataSourceConfiguration.class);
+
+    @Bean
+    @Primary
+    public ReplicaRoutingDataSource dataSource(DataSourceProperties properties,
+                                               @Value("${mcp.datasource.replica-urls:}") List<String> replicaUrls,
+                                               @Value("${mcp.datasource.replica-username:${spring.datasource.username:}}") String username,
+                                               @Value("${mcp.datasource.replica-password:${spring.datasource.password:}}") String password) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+
+        List<Replica> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            if (!StringUtils.hasText(url)) {
+                continue;
+            }
+            String name = "replica-" + (replicas.size() + 1);
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName(name);
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setJdbcUrl(url.trim());
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setReadOnly(true);
+            replicas.add(new Replica(name, replica));
+        }
+        logger.info("Database tools use {} read replicas", replicas.size());
+        return new ReplicaRoutingDataSource(primary, replicas);
+    }
+
+    @Bean
+    public JdbcTemplate jdbcTemplate(ReplicaRoutingDataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    @Bean
+    public ReplicaLoadBalancer replicaLoadBalancer(ReplicaRoutingDataSource dataSource,
+                                                   @Value("${mcp.datasource.max-lag-seconds:10}") long maxLagSeconds) {
+        return new ReplicaLoadBalancer(dataSource.getReplicas(), maxLagSeconds);
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(ReplicaRoutingDataSource dataSource,
+                                               @Value("${mcp.datasource.lag-query:SHOW REPLICA STATUS}") String lagQuery,
+                                               @Value("${mcp.datasource.lag-column:Seconds_Behind_Source}") String lagColumn,
+                                               @Value("${mcp.datasource.lag-check-interval-ms:5000}") long intervalMs) {
+        return new ReplicaLagMonitor(dataSource.getReplicas(), lagQuery, lagColumn, intervalMs);
+    }
+
+    @Bean
+    public ReplicaReadExecutor replicaReadExecutor(ReplicaLoadBalancer loadBalancer, ReplicaLagMonitor lagMonitor,
+                                                   @Value("${mcp.datasource.hedge.enabled:false}") boolean hedgingEnabled,
+                                                   @Value("${mcp.datasource.hedge.percentile:95}") double percentile,
+                                                   @Value("${mcp.datasource.hedge.min-delay-ms:20}") long minDelayMs,
+                                                   @Value("${mcp.datasource.hedge.max-threads:32}") int maxThreads) {
+        // Created with the first database tool, which is when replica lag starts to matter
+        lagMonitor.start();
+        return new ReplicaReadExecutor(loadBalancer, hedgingEnabled, percentile, minDelayMs, maxThreads);
+    }
+}
@@ -0,0 +1,117 @@
+package cc.unitmesh.mcp.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.Lifecycle;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls every replica for its replication lag, so ReplicaLoadBalancer can skip replicas that
+ * are too far behind, unreachable, or no longer replicating.
+ *
+ * The lag query defaults to MySQL's {@code SHOW REPLICA STATUS}. A replica returning no rows
+ * is not replicating from anywhere and counts as up to date; a NULL lag means replication is
+ * stopped. With an empty lag query only reachability is checked.
+ *
+ * Checking connects to every replica, so it starts with the first replica read rather than
+ * with the application.
+ *
+ * @author AutoDev MCP Team
+ */
+public class ReplicaLagMonitor implements Lifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final List<Replica> replicas;
+    private final String lagQuery;
+    private final String lagColumn;
+    private final long intervalMs;
+
+    private volatile ScheduledExecutorService scheduler;
+
+    public ReplicaLagMonitor(List<Replica> replicas, String lagQuery, String lagColumn, long intervalMs) {
+        this.replicas = List.copyOf(replicas);
+        this.lagQuery = lagQuery;
+        this.lagColumn = lagColumn;
+        this.intervalMs = intervalMs;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (scheduler != null || replicas.isEmpty() || intervalMs <= 0) {
+            return;
+        }
+        ScheduledExecutorService started = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mcp-replica-lag");
+            thread.setDaemon(true);
+            return thread;
+        });
+        started.scheduleWithFixedDelay(this::checkAll, 0, intervalMs, TimeUnit.MILLISECONDS);
+        this.scheduler = started;
+        logger.info("Checking lag of {} read replicas every {} ms", replicas.size(), intervalMs);
+    }
+
+    @Override
+    public void stop() {
+        ScheduledExecutorService current = this.scheduler;
+        if (current != null) {
+            this.scheduler = null;
+            current.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    /**
+     * Check all replicas once.
+     */
+    public void checkAll() {
+        for (Replica replica : replicas) {
+            check(replica);
+        }
+    }
+
+    /**
+     * Check one replica, e.g. right after a read failed to connect to it.
+     */
+    public void check(Replica replica) {
+        boolean wasEligible = replica.isHealthy();
+        try {
+            JdbcTemplate jdbc = new JdbcTemplate(replica.getDataSource());
+            if (StringUtils.hasText(lagQuery)) {
+                Long lag = jdbc.query(lagQuery, (ResultSetExtractor<Long>) rs -> {
+                    if (!rs.next()) {
+                        return 0L;
+                    }
+                    long value = rs.getLong(lagColumn);
+                    return rs.wasNull() ? Replica.LAG_STOPPED : value;
+                });
+                replica.setLagSeconds(lag != null ? lag : 0L);
+            } else {
+                jdbc.execute((ConnectionCallback<Boolean>) connection -> connection.isValid(5));
+            }
+            replica.setHealthy(true);
+        } catch (RuntimeException e) {
+            replica.setHealthy(false);
+            if (wasEligible) {
+                logger.warn("Read replica {} is unavailable: {}", replica.getName(), e.getMessage());
+            }
+            return;
+        }
+        if (!wasEligible) {
+            logger.info("Read replica {} is available again", replica.getName());
+        }
+        logger.debug("Read replica {}", replica);
+    }
+}
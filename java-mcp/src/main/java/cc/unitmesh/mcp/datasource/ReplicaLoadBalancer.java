@@ -0,0 +1,73 @@
+package cc.unitmesh.mcp.datasource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks the replica for a read: among the reachable replicas within the lag limit, the less
+ * busy of two chosen at random ("power of two choices"), which spreads load as well as
+ * least-in-flight without every caller piling onto the same replica.
+ *
+ * @author AutoDev MCP Team
+ */
+public class ReplicaLoadBalancer {
+
+    private final List<Replica> replicas;
+    private final long maxLagSeconds;
+
+    /**
+     * @param replicas      replicas to balance over
+     * @param maxLagSeconds replicas further behind the primary are skipped, 0 for no limit
+     */
+    public ReplicaLoadBalancer(List<Replica> replicas, long maxLagSeconds) {
+        this.replicas = List.copyOf(replicas);
+        this.maxLagSeconds = maxLagSeconds;
+    }
+
+    /**
+     * Choose a replica other than {@code excluded}, or null if none is eligible and the read
+     * has to go to the primary.
+     */
+    public Replica choose(Replica excluded) {
+        List<Replica> eligible = eligible(excluded);
+        if (eligible.isEmpty()) {
+            return null;
+        }
+        if (eligible.size() == 1) {
+            return eligible.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(eligible.size());
+        int second = random.nextInt(eligible.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        Replica a = eligible.get(first);
+        Replica b = eligible.get(second);
+        return a.getInFlight() <= b.getInFlight() ? a : b;
+    }
+
+    /**
+     * Get the number of replicas a read can currently be sent to.
+     */
+    public int getEligibleCount() {
+        return eligible(null).size();
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    private List<Replica> eligible(Replica excluded) {
+        List<Replica> eligible = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            long lag = replica.getLagSeconds();
+            if (replica != excluded && replica.isHealthy() && lag != Replica.LAG_STOPPED
+                    && (maxLagSeconds <= 0 || lag <= maxLagSeconds)) {
+                eligible.add(replica);
+            }
+        }
+        return eligible;
+    }
+}
@@ -0,0 +1,365 @@
+package cc.unitmesh.mcp.datasource;
+
+import cc.unitmesh.mcp.core.MCPCancellation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs read-only queries on a replica chosen by ReplicaLoadBalancer, falling back to the
+ * primary when no replica is eligible or the chosen one cannot be reached.
+ *
+ * With hedging enabled, a read that is still running after the configured latency percentile
+ * of its operation is sent to a second replica as well; the first result wins and the other
+ * query is cancelled. This trims the tail latency caused by one slow replica at the cost of a
+ * few percent more reads.
+ *
+ * @author AutoDev MCP Team
+ */
+public class ReplicaReadExecutor implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaReadExecutor.class);
+
+    /**
+     * A read against the routed data source. Long-running reads register a cancel action
+     * (e.g. Statement.cancel) so the losing query of a hedged read stops on the database too.
+     */
+    @FunctionalInterface
+    public interface Read<T> {
+        T read(MCPCancellation cancellation);
+    }
+
+    private final ReplicaLoadBalancer loadBalancer;
+    private final boolean hedgingEnabled;
+    private final double hedgePercentile;
+    private final long hedgeMinDelayNanos;
+    private final ThreadPoolExecutor hedgePool;
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+    private final AtomicLong hedgedReads = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong primaryFallbacks = new AtomicLong();
+
+    /**
+     * @param loadBalancer       chooses the replica of each read
+     * @param hedgingEnabled     whether slow reads are sent to a second replica
+     * @param hedgePercentile    latency percentile of the operation after which a read is hedged
+     * @param hedgeMinDelayMs    never hedge reads faster than this
+     * @param hedgeMaxThreads    maximum number of replica reads running on the hedge pool
+     */
+    public ReplicaReadExecutor(ReplicaLoadBalancer loadBalancer, boolean hedgingEnabled,
+                               double hedgePercentile, long hedgeMinDelayMs, int hedgeMaxThreads) {
+        this.loadBalancer = loadBalancer;
+        this.hedgingEnabled = hedgingEnabled;
+        this.hedgePercentile = hedgePercentile;
+        this.hedgeMinDelayNanos = TimeUnit.MILLISECONDS.toNanos(hedgeMinDelayMs);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.hedgePool = new ThreadPoolExecutor(0, Math.max(2, hedgeMaxThreads), 60, TimeUnit.SECONDS,
+            new SynchronousQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "mcp-replica-read-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    /**
+     * Run a read on a replica, or on the primary if no replica is available.
+     *
+     * @param operation    name used to track latencies, e.g. the tool name
+     * @param cancellation cancellation of the calling tool
+     * @param read         the read; it runs on the calling thread unless it is hedged
+     */
+    public <T> T read(String operation, MCPCancellation cancellation, Read<T> read) {
+        Replica replica = loadBalancer.choose(null);
+        if (replica == null) {
+            return read.read(cancellation);
+        }
+        if (!hedgingEnabled || loadBalancer.getEligibleCount() < 2) {
+            return readOnCurrentThread(operation, replica, cancellation, read);
+        }
+        long delayNanos = hedgeDelayNanos(operation);
+        if (delayNanos < 0) {
+            // Too few samples to know what "slow" is yet
+            return readOnCurrentThread(operation, replica, cancellation, read);
+        }
+        return hedgedRead(operation, replica, delayNanos, cancellation, read);
+    }
+
+    /**
+     * Run a read on a replica without hedging, e.g. a long export where a second copy of the
+     * read would only double the load.
+     */
+    public <T> T readWithoutHedging(String operation, MCPCancellation cancellation, Read<T> read) {
+        Replica replica = loadBalancer.choose(null);
+        if (replica == null) {
+            return read.read(cancellation);
+        }
+        return readOnCurrentThread(operation, replica, cancellation, read);
+    }
+
+    private <T> T readOnCurrentThread(String operation, Replica replica, MCPCancellation cancellation, Read<T> read) {
+        long start = System.nanoTime();
+        replica.acquire();
+        try {
+            T result = ReplicaRoutingDataSource.useReplica(replica, () -> read.read(cancellation));
+            latency(operation).record(System.nanoTime() - start);
+            return result;
+        } catch (CannotGetJdbcConnectionException e) {
+            markUnavailable(replica, e);
+            return read.read(cancellation);
+        } finally {
+            replica.release();
+        }
+    }
+
+    private <T> T hedgedRead(String operation, Replica replica, long delayNanos,
+                             MCPCancellation cancellation, Read<T> read) {
+        List<Attempt<T>> attempts = new CopyOnWriteArrayList<>();
+        Attempt<T> first = submit(operation, replica, read);
+        if (first == null) {
+            return readOnCurrentThread(operation, replica, cancellation, read);
+        }
+        attempts.add(first);
+        try (MCPCancellation.Registration ignored = cancellation.onCancel(() -> attempts.forEach(Attempt::cancel))) {
+            if (!first.awaitDone(delayNanos)) {
+                Replica other = loadBalancer.choose(replica);
+                Attempt<T> second = other != null ? submit(operation, other, read) : null;
+                if (second != null) {
+                    attempts.add(second);
+                    hedgedReads.incrementAndGet();
+                    logger.debug("Hedged {} read on {} after {} ms", operation, other.getName(),
+                        TimeUnit.NANOSECONDS.toMillis(delayNanos));
+                }
+            }
+            Attempt<T> winner = firstSuccess(attempts);
+            if (winner != first) {
+                hedgeWins.incrementAndGet();
+            }
+            return winner.result.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Replica read interrupted");
+        } finally {
+            attempts.forEach(Attempt::cancel);
+        }
+    }
+
+    /**
+     * Wait for the first attempt that succeeds; if all fail, rethrow the last failure.
+     */
+    private static <T> Attempt<T> firstSuccess(List<Attempt<T>> attempts) throws InterruptedException {
+        CompletableFuture<Attempt<T>> winner = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(attempts.size());
+        for (Attempt<T> attempt : attempts) {
+            attempt.result.whenComplete((value, error) -> {
+                if (error == null) {
+                    winner.complete(attempt);
+                } else if (remaining.decrementAndGet() == 0) {
+                    winner.completeExceptionally(error);
+                }
+            });
+        }
+        try {
+            return winner.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    private <T> Attempt<T> submit(String operation, Replica replica, Read<T> read) {
+        Attempt<T> attempt = new Attempt<>();
+        try {
+            attempt.future = hedgePool.submit(() -> {
+                long start = System.nanoTime();
+                replica.acquire();
+                try {
+                    T value = ReplicaRoutingDataSource.useReplica(replica, () -> read.read(attempt));
+                    if (!attempt.isCancelled()) {
+                        latency(operation).record(System.nanoTime() - start);
+                    }
+                    attempt.result.complete(value);
+                } catch (CannotGetJdbcConnectionException e) {
+                    markUnavailable(replica, e);
+                    attempt.result.completeExceptionally(e);
+                } catch (Throwable e) {
+                    attempt.result.completeExceptionally(e);
+                } finally {
+                    replica.release();
+                }
+            });
+            return attempt;
+        } catch (RejectedExecutionException e) {
+            logger.debug("Hedge pool saturated, reading {} without hedging", operation);
+            return null;
+        }
+    }
+
+    private void markUnavailable(Replica replica, RuntimeException e) {
+        replica.setHealthy(false);
+        primaryFallbacks.incrementAndGet();
+        logger.warn("Cannot connect to read replica {}, reading from the primary until it recovers: {}",
+            replica.getName(), e.getMessage());
+    }
+
+    /**
+     * Delay after which a read of the operation is hedged, or -1 if not known yet.
+     */
+    private long hedgeDelayNanos(String operation) {
+        long percentile = latency(operation).percentile(hedgePercentile);
+        return percentile < 0 ? -1 : Math.max(hedgeMinDelayNanos, percentile);
+    }
+
+    private LatencyWindow latency(String operation) {
+        return latencies.computeIfAbsent(operation, k -> new LatencyWindow());
+    }
+
+    public long getHedgedReads() {
+        return hedgedReads.get();
+    }
+
+    public long getHedgeWins() {
+        return hedgeWins.get();
+    }
+
+    public long getPrimaryFallbacks() {
+        return primaryFallbacks.get();
+    }
+
+    @Override
+    public void close() {
+        hedgePool.shutdownNow();
+    }
+
+    /**
+     * One execution of a hedged read, cancellable independently of the other.
+     */
+    private static final class Attempt<T> implements MCPCancellation {
+
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        volatile Future<?> future;
+        private final List<Runnable> cancelActions = new ArrayList<>();
+        private boolean cancelled;
+
+        @Override
+        public synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public Registration onCancel(Runnable action) {
+            synchronized (this) {
+                if (!cancelled) {
+                    cancelActions.add(action);
+                    return () -> {
+                        synchronized (this) {
+                            cancelActions.remove(action);
+                        }
+                    };
+                }
+            }
+            action.run();
+            return () -> { };
+        }
+
+        boolean awaitDone(long nanos) throws InterruptedException {
+            try {
+                result.get(nanos, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                return false;
+            } catch (ExecutionException e) {
+                // Reported by firstSuccess
+            }
+            return true;
+        }
+
+        void cancel() {
+            List<Runnable> actions;
+            synchronized (this) {
+                if (cancelled || result.isDone()) {
+                    return;
+                }
+                cancelled = true;
+                actions = new ArrayList<>(cancelActions);
+                cancelActions.clear();
+            }
+            for (Runnable action : actions) {
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    logger.debug("Cancel action of replica read failed: {}", e.getMessage());
+                }
+            }
+            Future<?> running = future;
+            if (running != null) {
+                running.cancel(true);
+            }
+            result.cancel(false);
+        }
+    }
+
+    /**
+     * Latencies of the most recent reads of one operation.
+     */
+    static final class LatencyWindow {
+
+        private static final int SIZE = 1024;
+        private static final int MIN_SAMPLES = 20;
+        private static final int RECOMPUTE_EVERY = 32;
+
+        private final long[] samples = new long[SIZE];
+        private int count;
+        private int next;
+        private int sinceRecompute;
+        private double cachedPercentile = Double.NaN;
+        private long cachedValue = -1;
+
+        synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % SIZE;
+            count = Math.min(count + 1, SIZE);
+            sinceRecompute++;
+        }
+
+        /**
+         * Get the percentile (0-100), recomputed every few samples; -1 with too few samples.
+         */
+        synchronized long percentile(double percentile) {
+            if (count < MIN_SAMPLES) {
+                return -1;
+            }
+            if (cachedValue < 0 || sinceRecompute >= RECOMPUTE_EVERY || percentile != cachedPercentile) {
+                long[] sorted = Arrays.copyOf(samples, count);
+                Arrays.sort(sorted);
+                int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+                cachedValue = sorted[Math.max(0, Math.min(count - 1, index))];
+                cachedPercentile = percentile;
+                sinceRecompute = 0;
+            }
+            return cachedValue;
+        }
+    }
+}
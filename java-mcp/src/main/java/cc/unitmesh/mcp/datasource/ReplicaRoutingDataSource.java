@@ -0,0 +1,94 @@
+package cc.unitmesh.mcp.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * DataSource that hands out connections to the primary, or to the replica selected for the
+ * current thread with {@link #useReplica(Replica, Supplier)}.
+ *
+ * The replica is picked per read by ReplicaReadExecutor; code that never selects one
+ * (writes, or reads that need the primary) is unaffected.
+ *
+ * @author AutoDev MCP Team
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final ThreadLocal<String> currentReplica = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        Map<Object, Object> targets = new HashMap<>();
+        for (Replica replica : this.replicas) {
+            targets.put(replica.getName(), replica.getDataSource());
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        // An unknown key must fail rather than silently read from the primary
+        setLenientFallback(false);
+    }
+
+    /**
+     * Run the body with connections taken from the given replica.
+     */
+    static <T> T useReplica(Replica replica, Supplier<T> body) {
+        String previous = currentReplica.get();
+        currentReplica.set(replica.getName());
+        try {
+            return body.get();
+        } finally {
+            if (previous != null) {
+                currentReplica.set(previous);
+            } else {
+                currentReplica.remove();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return currentReplica.get();
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    /**
+     * Close the primary and replica pools when the context shuts down.
+     */
+    @Override
+    public void close() {
+        closeQuietly(primary);
+        for (Replica replica : replicas) {
+            closeQuietly(replica.getDataSource());
+        }
+    }
+
+    private static void closeQuietly(DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                logger.warn("Cannot close data source: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package cc.unitmesh.mcp.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Shard data sources for the scatter-gather tools, from {@code mcp.datasource.shards.<name>=<url>}.
+ * All shards share one set of credentials and the driver of the primary.
+ *
+ * @author AutoDev MCP Team
+ */
+@Configuration
+@Lazy
+public class ShardDataSourceConfiguration {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardDataSourceConfiguration.class);
+
+    @Bean
+    public ShardRegistry shardRegistry(Environment environment, DataSourceProperties properties,
+                                       @Value("${mcp.datasource.shard-username:${spring.datasource.username:}}") String username,
+                                       @Value("${mcp.datasource.shard-password:${spring.datasource.password:}}") String password,
+                                       @Value("${mcp.datasource.shard-pool-size:4}") int poolSize) {
+        // Sorted, so "all shards" always means the same order
+        Map<String, String> urls = new TreeMap<>(Binder.get(environment)
+            .bind("mcp.datasource.shards", Bindable.mapOf(String.class, String.class))
+            .orElseGet(Map::of));
+
+        Map<String, HikariDataSource> dataSources = new LinkedHashMap<>();
+        urls.forEach((name, url) -> {
+            if (!StringUtils.hasText(url)) {
+                return;
+            }
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("shard-" + name);
+            dataSource.setDriverClassName(properties.determineDriverClassName());
+            dataSource.setJdbcUrl(url.trim());
+            dataSource.setUsername(username);
+            dataSource.setPassword(password);
+            dataSource.setReadOnly(true);
+            dataSource.setMaximumPoolSize(Math.max(1, poolSize));
+            dataSources.put(name, dataSource);
+        });
+        if (!dataSources.isEmpty()) {
+            logger.info("Scatter-gather tools use {} shards: {}", dataSources.size(), dataSources.keySet());
+        }
+        return new ShardRegistry(dataSources);
+    }
+}
@@ -0,0 +1,80 @@
+package cc.unitmesh.mcp.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Named data sources of a sharded database, configured as
+ * {@code mcp.datasource.shards.<name>=<jdbc url>}.
+ *
+ * The shards are separate from the primary and its replicas: only the scatter-gather tools
+ * use them, each through its own connection pool.
+ *
+ * @author AutoDev MCP Team
+ */
+public class ShardRegistry implements AutoCloseable {
+
+    private final Map<String, HikariDataSource> dataSources;
+    private final Map<String, JdbcTemplate> templates = new LinkedHashMap<>();
+
+    public ShardRegistry(Map<String, HikariDataSource> dataSources) {
+        this.dataSources = Collections.unmodifiableMap(new LinkedHashMap<>(dataSources));
+        this.dataSources.forEach((name, dataSource) -> templates.put(name, new JdbcTemplate(dataSource)));
+    }
+
+    /**
+     * Get the shard names in configuration order.
+     */
+    public List<String> getNames() {
+        return List.copyOf(dataSources.keySet());
+    }
+
+    public boolean isEmpty() {
+        return dataSources.isEmpty();
+    }
+
+    /**
+     * Resolve a comma-separated list of shard names; null or blank means all shards.
+     *
+     * @throws IllegalArgumentException if a name is not a configured shard
+     */
+    public List<String> resolve(String names) {
+        if (dataSources.isEmpty()) {
+            throw new IllegalArgumentException("No shards are configured (mcp.datasource.shards.<name>=<url>).");
+        }
+        if (names == null || names.isBlank()) {
+            return getNames();
+        }
+        List<String> resolved = new ArrayList<>();
+        for (String name : names.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty() || resolved.contains(trimmed)) {
+                continue;
+            }
+            if (!dataSources.containsKey(trimmed)) {
+                throw new IllegalArgumentException("Unknown shard '" + trimmed + "'. Shards: " + String.join(",", getNames()));
+            }
+            resolved.add(trimmed);
+        }
+        return resolved;
+    }
+
+    public JdbcTemplate getJdbcTemplate(String name) {
+        JdbcTemplate template = templates.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("Unknown shard '" + name + "'");
+        }
+        return template;
+    }
+
+    @Override
+    public void close() {
+        dataSources.values().forEach(HikariDataSource::close);
+    }
+}
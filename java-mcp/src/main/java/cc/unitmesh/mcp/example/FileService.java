@@ -1,14 +1,28 @@
 package cc.unitmesh.mcp.example;
 
 import cc.unitmesh.mcp.annotation.MCPTool;
+import cc.unitmesh.mcp.core.MCPCancellation;
+import cc.unitmesh.mcp.core.MCPProgressReporter;
+import cc.unitmesh.mcp.file.ContentHashCache;
+import cc.unitmesh.mcp.file.FileIndex;
+import cc.unitmesh.mcp.file.FileSearcher;
 
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.stream.Collectors;
 
 /**
@@ -20,17 +34,32 @@ import java.util.stream.Collectors;
 @Service
 public class FileService {
     
+    private static final int READ_CHUNK_SIZE = 1024 * 1024;
+    private static final int MAX_SEARCH_RESULTS = 5000;
+    private static final int TAIL_CHUNK_SIZE = 64 * 1024;
+    private static final int MAX_TAIL_BYTES = 1024 * 1024;
+    private static final int MAX_TAIL_LINES = 5000;
+    
+    private final FileSearcher fileSearcher;
+    private final FileIndex fileIndex;
+    private final ContentHashCache contentHashes;
+    
+    public FileService(FileSearcher fileSearcher, FileIndex fileIndex, ContentHashCache contentHashes) {
+        this.fileSearcher = fileSearcher;
+        this.fileIndex = fileIndex;
+        this.contentHashes = contentHashes;
+    }
+    
     @MCPTool(
         name = "read_file",
-        description = "Read the contents of a text file",
+        description = "Read the contents of a text file. The first line of the result is the content hash in brackets, e.g. [sha256:3a7bd3e2...], followed by the content. To re-read a file seen before, pass its hash as expectedHash: if the content is still the same, only '[sha256:...] unchanged' is returned instead of the content.",
         category = "file",
         version = "1.0",
         tags = {"file", "read", "io"},
-        timeoutMs = 5000,
-        cacheable = true,
-        cacheTtlSeconds = 60
+        timeoutMs = 5000
     )
-    public String readFile(String filePath) {
+    public String readFile(String filePath, String expectedHash, MCPProgressReporter progress,
+                           MCPCancellation cancellation) {
         try {
             Path path = Paths.get(filePath);
             if (!Files.exists(path)) {
@@ -39,18 +68,215 @@ public class FileService {
             if (!Files.isReadable(path)) {
                 return "File is not readable: " + filePath;
             }
-            return Files.readString(path);
+            boolean conditional = expectedHash != null && !expectedHash.isBlank();
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            String cached = conditional ? contentHashes.get(path, attributes) : null;
+            if (cached != null && ContentHashCache.sameHash(cached, expectedHash)) {
+                return "[" + cached + "] unchanged";
+            }
+            
+            long readStart = System.currentTimeMillis();
+            MessageDigest digest = ContentHashCache.newDigest();
+            String content = readWithProgress(path, progress, cancellation, digest);
+            String hash = ContentHashCache.format(digest);
+            BasicFileAttributes after = Files.readAttributes(path, BasicFileAttributes.class);
+            if (after.size() == attributes.size() && after.lastModifiedTime().equals(attributes.lastModifiedTime())) {
+                // Not changed while being read, so the hash is the one of these attributes
+                contentHashes.put(path, attributes, readStart, hash);
+            }
+            if (conditional && ContentHashCache.sameHash(hash, expectedHash)) {
+                return "[" + hash + "] unchanged";
+            }
+            return "[" + hash + "]\n" + content;
         } catch (IOException e) {
             return "Error reading file: " + e.getMessage();
         }
     }
     
+    /**
+     * Read a file in chunks, reporting bytes read so far against the file size and feeding
+     * them to the digest. Bytes appended while reading are not included. Cancelling closes
+     * the channel, which aborts a read that is blocked on slow storage.
+     */
+    private String readWithProgress(Path path, MCPProgressReporter progress, MCPCancellation cancellation,
+                                    MessageDigest digest) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+             MCPCancellation.Registration ignored = cancellation.onCancel(() -> closeQuietly(channel))) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IOException("File too large to read: " + size + " bytes");
+            }
+            byte[] data = new byte[(int) size];
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                cancellation.throwIfCancelled();
+                buffer.limit(Math.min(buffer.position() + READ_CHUNK_SIZE, data.length));
+                int start = buffer.position();
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+                digest.update(data, start, buffer.position() - start);
+                progress.progress(buffer.position(), size, "bytes read");
+            }
+            return new String(data, 0, buffer.position(), StandardCharsets.UTF_8);
+        } catch (ClosedChannelException e) {
+            if (cancellation.isCancelled()) {
+                throw new CancellationException("Reading " + path + " was cancelled");
+            }
+            throw e;
+        }
+    }
+    
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Closing only serves to abort a pending read
+        }
+    }
+    
+    @MCPTool(
+        name = "tail_file",
+        description = "Read the end of a growing text file such as a log, without reading the whole file. Returns the last lines lines (default 50, max 5000). The first line of the result is a cursor such as [offset=48213 fileId=1f2e3d4c]: pass offset and fileId back to get only the lines appended since, so repeated calls read only new data. If the file was truncated or replaced by log rotation in between, reading restarts at the beginning of the current file and the cursor line says so. With a cursor, only complete lines are returned and the new cursor points after the last of them, so a line still being written comes with a later call, once it is complete. At most 1 MB is returned per call; call again with the cursor for the rest.",
+        category = "file",
+        version = "1.0",
+        tags = {"file", "read", "log", "tail", "io"},
+        timeoutMs = 5000
+    )
+    public String tailFile(String filePath, Integer lines, Long offset, String fileId) {
+        try {
+            Path path = Paths.get(filePath);
+            if (!Files.exists(path)) {
+                return "File not found: " + filePath;
+            }
+            if (!Files.isRegularFile(path)) {
+                return "Not a regular file: " + filePath;
+            }
+            String currentId = fileId(Files.readAttributes(path, BasicFileAttributes.class));
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                long start;
+                String note = "";
+                if (offset == null) {
+                    int count = lines != null && lines > 0 ? Math.min(lines, MAX_TAIL_LINES) : 50;
+                    start = Math.max(startOfLastLines(channel, size, count), size - MAX_TAIL_BYTES);
+                } else if (fileId != null && !fileId.isBlank() && !fileId.equals(currentId)) {
+                    start = 0;
+                    note = "; the file was replaced (rotated), reading the new file from the start";
+                } else if (offset > size) {
+                    start = 0;
+                    note = "; the file was truncated, reading from the start";
+                } else {
+                    start = Math.max(0, offset);
+                }
+                long end = Math.min(size, start + MAX_TAIL_BYTES);
+                ByteBuffer data = ByteBuffer.allocate((int) (end - start));
+                readAt(channel, data, start);
+                
+                int length = data.position();
+                int from = 0;
+                if (offset == null && start > 0 && !endsLine(channel, start)) {
+                    // The byte cap cut the first line; start at the next one
+                    from = Math.min(indexOf(data, (byte) '\n', 0, length) + 1, length);
+                }
+                int lastNewline = lastIndexOf(data, (byte) '\n', from, length);
+                long next;
+                if (lastNewline >= 0) {
+                    next = start + lastNewline + 1;
+                } else {
+                    // A line longer than the cap is returned in pieces rather than never
+                    next = length == MAX_TAIL_BYTES ? start + length : start + from;
+                }
+                if (end < size) {
+                    note += "; more data follows, call again with this offset";
+                }
+                // Following returns exactly the bytes up to the cursor, so the results of
+                // successive calls add up to the file
+                int to = offset == null ? length : (int) (next - start);
+                String text = new String(data.array(), from, to - from, StandardCharsets.UTF_8);
+                return "[offset=" + next + " fileId=" + currentId + note + "]\n" + text;
+            }
+        } catch (IOException e) {
+            return "Error reading file: " + e.getMessage();
+        }
+    }
+    
+    /**
+     * Find where the last lines of a file start by reading backward from the end, one chunk at
+     * a time. A newline at the very end does not start another line. Stops scanning once
+     * MAX_TAIL_BYTES have been looked at.
+     */
+    private static long startOfLastLines(FileChannel channel, long size, int lines) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(TAIL_CHUNK_SIZE);
+        long position = size;
+        int newlines = 0;
+        while (position > 0 && size - position < MAX_TAIL_BYTES) {
+            int length = (int) Math.min(TAIL_CHUNK_SIZE, position);
+            position -= length;
+            chunk.clear().limit(length);
+            readAt(channel, chunk, position);
+            for (int i = chunk.position() - 1; i >= 0; i--) {
+                if (chunk.get(i) == '\n' && position + i != size - 1 && ++newlines == lines) {
+                    return position + i + 1;
+                }
+            }
+        }
+        return position;
+    }
+    
+    /**
+     * Fill the buffer from the given file position, stopping early at the end of the file.
+     */
+    private static void readAt(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+    }
+    
+    /**
+     * Whether the byte before the position is a newline, i.e. a line starts at the position.
+     */
+    private static boolean endsLine(FileChannel channel, long position) throws IOException {
+        ByteBuffer previous = ByteBuffer.allocate(1);
+        readAt(channel, previous, position - 1);
+        return previous.position() == 1 && previous.get(0) == '\n';
+    }
+    
+    private static int indexOf(ByteBuffer data, byte value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (data.get(i) == value) {
+                return i;
+            }
+        }
+        return to;
+    }
+    
+    private static int lastIndexOf(ByteBuffer data, byte value, int from, int to) {
+        for (int i = to - 1; i >= from; i--) {
+            if (data.get(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Identity of the file behind a path, which changes when a log is rotated and recreated.
+     */
+    private static String fileId(BasicFileAttributes attributes) {
+        Object key = attributes.fileKey();
+        return key == null ? "none" : Integer.toHexString(key.hashCode());
+    }
+    
     @MCPTool(
         name = "list_directory",
         description = "List files and directories in the specified path",
         category = "file",
         version = "1.0",
         tags = {"file", "directory", "list", "io"},
+        priority = 10,
         timeoutMs = 3000,
         cacheable = true,
         cacheTtlSeconds = 30
@@ -74,13 +300,57 @@ public class FileService {
         }
     }
     
+    @MCPTool(
+        name = "search_files",
+        description = "Search the contents of all text files under a directory, like grep -rn: one call instead of reading files one by one. The pattern is literal text, or a Java regular expression with regex=true; ignoreCase makes the match case-insensitive. glob restricts the files searched, matched against the file name (*.java) or, if it contains a slash, against the path relative to the directory (src/**/*.java). Returns one entry per file with matches, its relative path followed by 'lineNumber: line' for each matching line, in no particular order, then a summary line. At most maxResults matching lines are returned (default 200, max 5000). Binary files, very large files and .git, .hg, .svn and node_modules directories are skipped.",
+        category = "file",
+        version = "1.0",
+        tags = {"file", "search", "grep", "io"},
+        timeoutMs = 60000
+    )
+    public Flux<String> searchFiles(String directoryPath, String pattern, Boolean regex, Boolean ignoreCase,
+                                    String glob, Integer maxResults) {
+        Path path = Paths.get(directoryPath);
+        if (!Files.isDirectory(path)) {
+            return Flux.just(Files.exists(path)
+                ? "Path is not a directory: " + directoryPath
+                : "Directory not found: " + directoryPath);
+        }
+        int limit = maxResults != null && maxResults > 0 ? Math.min(maxResults, MAX_SEARCH_RESULTS) : 200;
+        FileSearcher.Query query = new FileSearcher.Query(pattern, Boolean.TRUE.equals(regex),
+            Boolean.TRUE.equals(ignoreCase), glob);
+        return fileSearcher.search(path, query, limit);
+    }
+    
+    @MCPTool(
+        name = "search_index",
+        description = "Search the contents of the indexed workspace directory using its trigram index: much faster than search_files on large trees when searched repeatedly, since only files that may contain the pattern are read. Same pattern, regex, ignoreCase, glob and maxResults arguments and the same output as search_files, preceded by a line telling how many indexed files may match; paths are relative to the indexed directory. Patterns without a literal of three characters or more, and searches made before the index is first built, search all files. Only available when the server is configured with mcp.file.index.root.",
+        category = "file",
+        version = "1.0",
+        tags = {"file", "search", "grep", "index", "io"},
+        timeoutMs = 60000
+    )
+    public Flux<String> searchIndex(String pattern, Boolean regex, Boolean ignoreCase, String glob, Integer maxResults) {
+        if (!fileIndex.isEnabled()) {
+            return Flux.just("The file index is not enabled on this server; use search_files instead.");
+        }
+        int limit = maxResults != null && maxResults > 0 ? Math.min(maxResults, MAX_SEARCH_RESULTS) : 200;
+        FileSearcher.Query query = new FileSearcher.Query(pattern, Boolean.TRUE.equals(regex),
+            Boolean.TRUE.equals(ignoreCase), glob);
+        try {
+            return fileIndex.search(query, limit);
+        } catch (IOException e) {
+            return Flux.just("Error searching the file index: " + e.getMessage());
+        }
+    }
+    
     @MCPTool(
         name = "get_file_info",
         description = "Get information about a file or directory (size, last modified, etc.)",
         category = "file",
         version = "1.0",
         tags = {"file", "info", "metadata", "io"},
-        priority = 1,
+        priority = 10,
         cacheable = true,
         cacheTtlSeconds = 120
     )
@@ -114,7 +384,7 @@ public class FileService {
         tags = {"file", "write", "io", "create"},
         requiresAuth = true,
         timeoutMs = 10000,
-        priority = 2
+        priority = -10
     )
     public String writeFile(String filePath, String content) {
         try {
@@ -0,0 +1,123 @@
+package cc.unitmesh.mcp.file;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Content hashes of files read by read_file, keyed by path and valid while the file's size,
+ * modification time and identity are unchanged, so a conditional read can answer "unchanged"
+ * without reading the file again.
+ *
+ * A file written again within the resolution of its modification time can keep the same
+ * time and size with other content. Hashes of files modified shortly before they were read
+ * are therefore not cached, like git does for racily clean index entries.
+ *
+ * @author AutoDev MCP Team
+ */
+@Component
+public class ContentHashCache {
+
+    /**
+     * Prefix of hashes in tool results, naming the algorithm.
+     */
+    public static final String PREFIX = "sha256:";
+
+    // Coarsest modification time resolution in common use (FAT); ext3 and HFS+ have one second
+    private static final long RACY_MILLIS = TimeUnit.SECONDS.toMillis(2);
+
+    private final Map<String, Entry> entries;
+
+    private record Entry(long size, long modifiedMillis, Object fileKey, String hash) {
+
+        boolean matches(BasicFileAttributes attributes) {
+            return size == attributes.size()
+                && modifiedMillis == attributes.lastModifiedTime().toMillis()
+                && Objects.equals(fileKey, attributes.fileKey());
+        }
+    }
+
+    public ContentHashCache(@Value("${mcp.file.hash-cache.max-entries:10000}") int maxEntries) {
+        this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * A new digest to feed the content to while it is read.
+     */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Format a finished digest as a hash for tool results.
+     */
+    public static String format(MessageDigest digest) {
+        return PREFIX + HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Whether a hash given by a client names the same content, with or without the prefix and
+     * in either case.
+     */
+    public static boolean sameHash(String hash, String expected) {
+        String bare = expected.strip().toLowerCase(Locale.ROOT);
+        return hash.equals(bare.startsWith(PREFIX) ? bare : PREFIX + bare);
+    }
+
+    /**
+     * The hash of the file if it was cached for its current attributes, otherwise null.
+     */
+    public String get(Path path, BasicFileAttributes attributes) {
+        String key = key(path);
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.matches(attributes)) {
+                return entry.hash();
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Remember the hash of the file's content, as read with the given attributes starting at
+     * readStartMillis. Not cached if the file may still have been changed within the resolution
+     * of its modification time.
+     */
+    public void put(Path path, BasicFileAttributes attributes, long readStartMillis, String hash) {
+        long modifiedMillis = attributes.lastModifiedTime().toMillis();
+        if (readStartMillis - modifiedMillis < RACY_MILLIS) {
+            return;
+        }
+        Entry entry = new Entry(attributes.size(), modifiedMillis, attributes.fileKey(), hash);
+        synchronized (entries) {
+            entries.put(key(path), entry);
+        }
+    }
+
+    private static String key(Path path) {
+        return path.toAbsolutePath().normalize().toString();
+    }
+}
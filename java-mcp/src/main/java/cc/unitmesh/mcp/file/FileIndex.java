@@ -0,0 +1,160 @@
+package cc.unitmesh.mcp.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a {@link TrigramIndex} of one configured directory up to date and answers searches
+ * from it, so repeated searches of a large tree read only the files that may match.
+ *
+ * The index is built in the background on startup, or reopened from disk and caught up with
+ * the changes made while the server was down, then rescanned at a fixed interval: files whose
+ * size or modification time changed are re-read. Searches made before the first build
+ * completes, and patterns without a literal of three characters or more, fall back to a full
+ * search of the tree.
+ *
+ * @author AutoDev MCP Team
+ */
+@Component
+public class FileIndex implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileIndex.class);
+
+    private final FileSearcher searcher;
+    private final TrigramIndex index;
+    private final long rescanSeconds;
+
+    private volatile ScheduledExecutorService scanner;
+
+    public FileIndex(FileSearcher searcher,
+                     @Value("${mcp.file.index.enabled:false}") boolean enabled,
+                     @Value("${mcp.file.index.root:}") String root,
+                     @Value("${mcp.file.index.directory:${java.io.tmpdir}/mcp-file-index}") String directory,
+                     @Value("${mcp.file.index.rescan-seconds:60}") long rescanSeconds,
+                     @Value("${mcp.file.index.threads:0}") int threads,
+                     @Value("${mcp.file.index.max-file-size-kb:1024}") long maxFileSizeKb,
+                     @Value("${mcp.file.index.buffer-mb:128}") int bufferMb) {
+        this.searcher = searcher;
+        this.rescanSeconds = Math.max(1, rescanSeconds);
+        if (enabled && root.isBlank()) {
+            logger.warn("mcp.file.index.enabled is set without mcp.file.index.root; the file index is disabled");
+        }
+        if (!enabled || root.isBlank()) {
+            this.index = null;
+            return;
+        }
+        int readers = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        TrigramIndex.Settings settings = new TrigramIndex.Settings(readers, maxFileSizeKb * 1024,
+            (int) Math.min(Integer.MAX_VALUE, (long) bufferMb * 1024 * 1024 / 16));
+        this.index = new TrigramIndex(Path.of(root), Path.of(directory), settings);
+    }
+
+    public boolean isEnabled() {
+        return index != null;
+    }
+
+    /**
+     * Search the indexed directory.
+     *
+     * @return the chunks of {@link FileSearcher#search}, preceded by a note on how the index was used
+     * @throws IllegalStateException    if the index is not enabled
+     * @throws IllegalArgumentException if the pattern is empty or not a valid regular expression
+     */
+    public Flux<String> search(FileSearcher.Query query, int maxResults) throws IOException {
+        if (index == null) {
+            throw new IllegalStateException("The file index is not enabled; set mcp.file.index.enabled "
+                + "and mcp.file.index.root, or use search_files.");
+        }
+        if (query.pattern() == null || query.pattern().isEmpty()) {
+            throw new IllegalArgumentException("Search pattern must not be empty");
+        }
+        Path root = index.getRoot();
+        int[] required = Trigrams.required(query.pattern(), query.regex(), query.ignoreCase());
+        if (!index.isReady()) {
+            return Flux.concat(Flux.just("[index of " + root + " is still being built; searching all files]"),
+                searcher.search(root, query, maxResults));
+        }
+        if (required.length == 0) {
+            return Flux.concat(Flux.just("[pattern has no literal of 3+ characters to look up; searching all files]"),
+                searcher.search(root, query, maxResults));
+        }
+        List<Path> candidates = index.candidates(required);
+        TrigramIndex.Stats stats = index.getStats();
+        int indexed = stats.segmentFiles() - stats.removed() + stats.changed();
+        return Flux.concat(Flux.just("[" + candidates.size() + " of " + indexed + " indexed files may match]"),
+            searcher.search(root, candidates, query, maxResults));
+    }
+
+    public Path getRoot() {
+        return index == null ? null : index.getRoot();
+    }
+
+    private void refresh() {
+        try {
+            if (!Files.isDirectory(index.getRoot())) {
+                logger.warn("Not indexing {}: not a directory", index.getRoot());
+                return;
+            }
+            TrigramIndex.Refresh refresh = index.refresh();
+            if (refresh.rebuilt()) {
+                TrigramIndex.Stats stats = index.getStats();
+                logger.info("Indexed {} files under {} in {} ms: {} trigrams, {} bytes on disk", refresh.files(),
+                    index.getRoot(), refresh.millis(), stats.trigrams(), stats.sizeOnDisk());
+            } else {
+                logger.debug("Rescanned {} files under {} in {} ms: {} changed, {} removed since the last build",
+                    refresh.files(), index.getRoot(), refresh.millis(), refresh.changed(), refresh.removed());
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Updating the file index of {} failed: {}", index.getRoot(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void start() {
+        if (index == null) {
+            return;
+        }
+        ScheduledExecutorService started = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mcp-file-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+        started.scheduleWithFixedDelay(this::refresh, 0, rescanSeconds, TimeUnit.SECONDS);
+        this.scanner = started;
+    }
+
+    @Override
+    public void stop() {
+        ScheduledExecutorService current = this.scanner;
+        if (current == null) {
+            return;
+        }
+        this.scanner = null;
+        current.shutdownNow();
+        try {
+            current.awaitTermination(10, TimeUnit.SECONDS);
+            index.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.warn("Closing the file index of {} failed: {}", index.getRoot(), e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scanner != null;
+    }
+}
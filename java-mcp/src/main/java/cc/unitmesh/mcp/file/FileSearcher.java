@@ -0,0 +1,506 @@
+package cc.unitmesh.mcp.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Searches the contents of a directory tree in parallel, like {@code grep -rn}.
+ *
+ * Directories are walked by a fork-join pool, one task per directory and per batch of files, so
+ * all cores scan at once. Files above a size threshold are memory-mapped, smaller ones read in
+ * one call, where mapping costs more than it saves. A literal pattern is matched on the raw
+ * UTF-8 bytes and only matching lines are decoded; a regular expression needs the decoded text.
+ * Files with a NUL byte near the start are taken for binary and skipped.
+ *
+ * Matches are emitted per file as soon as the file is scanned, so their order varies. The search
+ * stops once the result cap is reached or the subscriber cancels.
+ *
+ * @author AutoDev MCP Team
+ */
+@Component
+public class FileSearcher implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileSearcher.class);
+
+    /**
+     * Directories that are never searched: version control data and installed dependencies.
+     */
+    static final Set<String> SKIPPED_DIRECTORIES = Set.of(".git", ".hg", ".svn", "node_modules");
+
+    private static final int BINARY_PROBE_BYTES = 8000;
+    private static final int MAX_LINE_CHARS = 240;
+    private static final int FILES_PER_TASK = 16;
+
+    private final ForkJoinPool pool;
+    private final long maxFileBytes;
+    private final long mapThresholdBytes;
+
+    /**
+     * What to search for.
+     *
+     * @param pattern    literal text, or a Java regular expression if regex is set
+     * @param regex      whether the pattern is a regular expression
+     * @param ignoreCase whether to match case-insensitively
+     * @param glob       files to search, by name (*.java) or, with a slash, by relative path; null for all
+     */
+    public record Query(String pattern, boolean regex, boolean ignoreCase, String glob) {
+    }
+
+    public FileSearcher(@Value("${mcp.file.search.threads:0}") int threads,
+                        @Value("${mcp.file.search.max-file-size-mb:32}") long maxFileSizeMb,
+                        @Value("${mcp.file.search.map-threshold-kb:64}") long mapThresholdKb) {
+        int parallelism = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("mcp-file-search-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        this.maxFileBytes = maxFileSizeMb * 1024 * 1024;
+        this.mapThresholdBytes = mapThresholdKb * 1024;
+    }
+
+    /**
+     * Search the files under a directory.
+     *
+     * @return one element per file with matches, its path relative to the root followed by one
+     * {@code line: text} per matching line, then a summary
+     * @throws IllegalArgumentException if the pattern is empty or not a valid regular expression
+     */
+    public Flux<String> search(Path root, Query query, int maxResults) {
+        return search(root, query, maxResults, search -> new DirectoryTask(search, root));
+    }
+
+    /**
+     * Search the given files only, e.g. the candidates found by the trigram index.
+     *
+     * @param root  directory the files are under, which paths in the result are relative to
+     * @param files files to search; those not matching the query's glob are left out
+     */
+    public Flux<String> search(Path root, List<Path> files, Query query, int maxResults) {
+        return search(root, query, maxResults, search -> new RecursiveAction() {
+            @Override
+            protected void compute() {
+                List<FileTask> tasks = new ArrayList<>();
+                for (int i = 0; i < files.size(); i += FILES_PER_TASK) {
+                    List<Path> batch = files.subList(i, Math.min(i + FILES_PER_TASK, files.size())).stream()
+                        .filter(search::accepts)
+                        .toList();
+                    tasks.add(new FileTask(search, batch));
+                }
+                invokeAll(tasks);
+            }
+        });
+    }
+
+    private Flux<String> search(Path root, Query query, int maxResults, Function<Search, RecursiveAction> walk) {
+        ContentMatcher matcher = ContentMatcher.of(query);
+        PathMatcher glob = query.glob() == null || query.glob().isBlank()
+            ? null
+            : FileSystems.getDefault().getPathMatcher("glob:" + query.glob());
+        boolean globOnPath = glob != null && query.glob().contains("/");
+
+        return Flux.create(sink -> {
+            Search search = new Search(root, matcher, glob, globOnPath, maxResults, sink);
+            sink.onDispose(search::stop);
+            pool.execute(() -> {
+                try {
+                    walk.apply(search).invoke();
+                    sink.next(search.summary());
+                    sink.complete();
+                } catch (RuntimeException e) {
+                    sink.error(e);
+                }
+            });
+        });
+    }
+
+    /**
+     * State of one search, shared by all its tasks.
+     */
+    private final class Search {
+        private final Path root;
+        private final ContentMatcher matcher;
+        private final PathMatcher glob;
+        private final boolean globOnPath;
+        private final int maxResults;
+        private final FluxSink<String> sink;
+        private final AtomicInteger matches = new AtomicInteger();
+        private final LongAdder filesWithMatches = new LongAdder();
+        private final LongAdder filesSearched = new LongAdder();
+        private final LongAdder binarySkipped = new LongAdder();
+        private final LongAdder largeSkipped = new LongAdder();
+        private final LongAdder unreadable = new LongAdder();
+        private volatile boolean stopped;
+        private volatile boolean capped;
+
+        Search(Path root, ContentMatcher matcher, PathMatcher glob, boolean globOnPath, int maxResults,
+               FluxSink<String> sink) {
+            this.root = root;
+            this.matcher = matcher;
+            this.glob = glob;
+            this.globOnPath = globOnPath;
+            this.maxResults = maxResults;
+            this.sink = sink;
+        }
+
+        void stop() {
+            stopped = true;
+        }
+
+        boolean accepts(Path file) {
+            if (glob == null) {
+                return true;
+            }
+            return glob.matches(globOnPath ? root.relativize(file) : file.getFileName());
+        }
+
+        void scan(Path file) {
+            if (stopped) {
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size == 0) {
+                    return;
+                }
+                if (size > maxFileBytes) {
+                    largeSkipped.increment();
+                    return;
+                }
+                // A mapping stays valid after its channel is closed
+                ByteBuffer content = size >= mapThresholdBytes
+                    ? channel.map(FileChannel.MapMode.READ_ONLY, 0, size)
+                    : readFully(channel, (int) size);
+                if (isBinary(content)) {
+                    binarySkipped.increment();
+                    return;
+                }
+                filesSearched.increment();
+
+                StringBuilder lines = new StringBuilder();
+                matcher.find(content, (lineNumber, text) -> {
+                    if (stopped) {
+                        return false;
+                    }
+                    int count = matches.incrementAndGet();
+                    if (count > maxResults) {
+                        capped = true;
+                        stop();
+                        return false;
+                    }
+                    lines.append('\n').append(lineNumber).append(": ").append(text);
+                    return true;
+                });
+                if (!lines.isEmpty()) {
+                    filesWithMatches.increment();
+                    sink.next(root.relativize(file) + lines.toString());
+                }
+            } catch (IOException | UnsupportedOperationException e) {
+                // Vanished, unreadable or special files are not worth failing the search
+                unreadable.increment();
+                logger.debug("Cannot search {}: {}", file, e.getMessage());
+            }
+        }
+
+        String summary() {
+            int found = Math.min(matches.get(), maxResults);
+            StringBuilder summary = new StringBuilder("[")
+                .append(found).append(found == 1 ? " match" : " matches")
+                .append(" in ").append(filesWithMatches.sum()).append(" files; searched ")
+                .append(filesSearched.sum()).append(" files");
+            if (binarySkipped.sum() > 0) {
+                summary.append(", skipped ").append(binarySkipped.sum()).append(" binary");
+            }
+            if (largeSkipped.sum() > 0) {
+                summary.append(", skipped ").append(largeSkipped.sum()).append(" larger than ")
+                    .append(maxFileBytes / (1024 * 1024)).append(" MB");
+            }
+            if (unreadable.sum() > 0) {
+                summary.append(", ").append(unreadable.sum()).append(" unreadable");
+            }
+            if (capped) {
+                summary.append("; stopped at maxResults=").append(maxResults);
+            }
+            return summary.append(']').toString();
+        }
+    }
+
+    private static final class DirectoryTask extends RecursiveAction {
+        private final Search search;
+        private final Path directory;
+
+        DirectoryTask(Search search, Path directory) {
+            this.search = search;
+            this.directory = directory;
+        }
+
+        @Override
+        protected void compute() {
+            if (search.stopped) {
+                return;
+            }
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    BasicFileAttributes attributes;
+                    try {
+                        attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        search.unreadable.increment();
+                        continue;
+                    }
+                    if (attributes.isDirectory()) {
+                        if (!SKIPPED_DIRECTORIES.contains(entry.getFileName().toString())) {
+                            tasks.add(new DirectoryTask(search, entry));
+                        }
+                    } else if (attributes.isRegularFile() && search.accepts(entry)) {
+                        files.add(entry);
+                        if (files.size() == FILES_PER_TASK) {
+                            tasks.add(new FileTask(search, files));
+                            files = new ArrayList<>();
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                search.unreadable.increment();
+                logger.debug("Cannot list {}: {}", directory, e.getMessage());
+            }
+            if (!files.isEmpty()) {
+                tasks.add(new FileTask(search, files));
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    private static final class FileTask extends RecursiveAction {
+        private final Search search;
+        private final List<Path> files;
+
+        FileTask(Search search, List<Path> files) {
+            this.search = search;
+            this.files = files;
+        }
+
+        @Override
+        protected void compute() {
+            for (Path file : files) {
+                search.scan(file);
+            }
+        }
+    }
+
+    /**
+     * Receives the matching lines of a file, in order; returns false to stop scanning it.
+     */
+    @FunctionalInterface
+    private interface LineConsumer {
+        boolean accept(int lineNumber, String text);
+    }
+
+    /**
+     * Finds the lines of a file that contain a match, each line once.
+     */
+    private interface ContentMatcher {
+
+        void find(ByteBuffer content, LineConsumer lines);
+
+        static ContentMatcher of(Query query) {
+            if (query.pattern() == null || query.pattern().isEmpty()) {
+                throw new IllegalArgumentException("The search pattern must not be empty.");
+            }
+            if (!query.regex() && !query.ignoreCase()) {
+                return new LiteralMatcher(query.pattern().getBytes(StandardCharsets.UTF_8));
+            }
+            String regex = query.regex() ? query.pattern() : Pattern.quote(query.pattern());
+            int flags = Pattern.MULTILINE | (query.ignoreCase() ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0);
+            try {
+                return new RegexMatcher(Pattern.compile(regex, flags));
+            } catch (PatternSyntaxException e) {
+                throw new IllegalArgumentException("Invalid regular expression: " + e.getDescription(), e);
+            }
+        }
+    }
+
+    /**
+     * Matches the UTF-8 bytes of a literal, decoding only the lines that contain it.
+     */
+    private static final class LiteralMatcher implements ContentMatcher {
+        private final byte[] needle;
+
+        LiteralMatcher(byte[] needle) {
+            this.needle = needle;
+        }
+
+        @Override
+        public void find(ByteBuffer content, LineConsumer lines) {
+            int limit = content.limit();
+            int last = limit - needle.length;
+            byte first = needle[0];
+            int lineNumber = 1;
+            int counted = 0;
+            int i = 0;
+            while (i <= last) {
+                if (content.get(i) != first || !matchesAt(content, i)) {
+                    i++;
+                    continue;
+                }
+                int start = i;
+                while (start > 0 && content.get(start - 1) != '\n') {
+                    start--;
+                }
+                int end = i + needle.length;
+                while (end < limit && content.get(end) != '\n') {
+                    end++;
+                }
+                lineNumber += countNewlines(content, counted, start);
+                counted = start;
+                if (!lines.accept(lineNumber, decodeLine(content, start, end))) {
+                    return;
+                }
+                i = end + 1;
+            }
+        }
+
+        private boolean matchesAt(ByteBuffer content, int offset) {
+            for (int j = 1; j < needle.length; j++) {
+                if (content.get(offset + j) != needle[j]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Matches a regular expression against the decoded text of the file.
+     */
+    private static final class RegexMatcher implements ContentMatcher {
+        private final Pattern pattern;
+
+        RegexMatcher(Pattern pattern) {
+            this.pattern = pattern;
+        }
+
+        @Override
+        public void find(ByteBuffer content, LineConsumer lines) {
+            CharBuffer text = decode(content);
+            int length = text.length();
+            Matcher matcher = pattern.matcher(text);
+            int lineNumber = 1;
+            int counted = 0;
+            int from = 0;
+            while (from <= length && matcher.find(from)) {
+                int start = matcher.start();
+                while (start > 0 && text.charAt(start - 1) != '\n') {
+                    start--;
+                }
+                int end = matcher.start();
+                while (end < length && text.charAt(end) != '\n') {
+                    end++;
+                }
+                for (int j = counted; j < start; j++) {
+                    if (text.charAt(j) == '\n') {
+                        lineNumber++;
+                    }
+                }
+                counted = start;
+                if (!lines.accept(lineNumber, clip(text.subSequence(start, end).toString()))) {
+                    return;
+                }
+                from = end + 1;
+            }
+        }
+
+        private static CharBuffer decode(ByteBuffer content) {
+            CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            try {
+                return decoder.decode(content.duplicate());
+            } catch (CharacterCodingException e) {
+                // Not thrown when replacing bad input
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    static ByteBuffer readFully(FileChannel channel, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // Keep reading: a single read may return less than asked
+        }
+        return buffer.flip();
+    }
+
+    static boolean isBinary(ByteBuffer content) {
+        int probe = Math.min(content.limit(), BINARY_PROBE_BYTES);
+        for (int i = 0; i < probe; i++) {
+            if (content.get(i) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int countNewlines(ByteBuffer content, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (content.get(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static String decodeLine(ByteBuffer content, int start, int end) {
+        // Four bytes per character at most, so this is enough for the clipped line
+        byte[] bytes = new byte[Math.min(end - start, MAX_LINE_CHARS * 4)];
+        content.get(start, bytes);
+        return clip(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    private static String clip(String line) {
+        String text = line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+        return text.length() > MAX_LINE_CHARS ? text.substring(0, MAX_LINE_CHARS) + "..." : text;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,405 @@
+package cc.unitmesh.mcp.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Persistent, incrementally updated trigram index of the files under one directory.
+ *
+ * The index is a {@link TrigramSegment} on disk plus the changes found since it was written:
+ * each {@link #refresh()} walks the tree, compares sizes and modification times with the
+ * segment, and reads only the files that changed. Their trigrams are kept in memory and the
+ * segment's entries for them are masked out. Once more than a tenth of the files have changed,
+ * and more than 1000 files, a new segment is written and replaces the old one. The current segment is named in a
+ * {@code CURRENT} file, so a restart only has to catch up with the changes made meanwhile.
+ *
+ * Lookups return the files that contain all trigrams of a pattern, plus files too large to
+ * index; the caller searches those to confirm the matches.
+ *
+ * @author AutoDev MCP Team
+ */
+public final class TrigramIndex implements Closeable {
+
+    private static final String CURRENT = "CURRENT";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final int READ_BATCH = 1024;
+    // Changed files that justify rewriting the segment: a tenth of them, but never fewer than
+    // REBUILD_MIN_CHANGES, so a small tree is not rewritten for every few edits
+    private static final int REBUILD_FRACTION = 10;
+    private static final int REBUILD_MIN_CHANGES = 1000;
+    // Segments replaced less than this long ago may still be read by a running lookup
+    private static final long RETIRE_GRACE_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final int[] NOT_INDEXED = {Trigrams.UNINDEXED};
+    private static final int[] NONE = new int[0];
+
+    /**
+     * @param threads          threads reading files while building or refreshing the index
+     * @param maxIndexedBytes  larger files are not indexed but searched by every lookup
+     * @param bufferedPostings (trigram, file) pairs held in memory while writing a segment
+     */
+    public record Settings(int threads, long maxIndexedBytes, int bufferedPostings) {
+    }
+
+    /**
+     * Outcome of a refresh.
+     *
+     * @param rebuilt whether a new segment was written
+     * @param files   files in the index
+     * @param changed files added or changed since the segment was written
+     * @param removed segment entries masked out because their file changed or disappeared
+     * @param millis  time the refresh took
+     */
+    public record Refresh(boolean rebuilt, int files, int changed, int removed, long millis) {
+    }
+
+    /**
+     * Size of the index.
+     *
+     * @param segmentFiles files in the segment
+     * @param trigrams     distinct trigrams in the segment
+     * @param sizeOnDisk   bytes of the segment on disk
+     * @param changed      files added or changed since the segment was written
+     * @param removed      segment entries masked out
+     */
+    public record Stats(int segmentFiles, int trigrams, long sizeOnDisk, int changed, int removed) {
+    }
+
+    private record FileEntry(String path, Path file, long size, long modified) {
+    }
+
+    private record Changed(long size, long modified, int[] trigrams) {
+    }
+
+    /**
+     * What lookups see; replaced as a whole by a refresh.
+     */
+    private record State(TrigramSegment segment, BitSet removed, Map<String, Changed> changed, int[] unindexed) {
+    }
+
+    private record Retired(TrigramSegment segment, long retiredAtNanos) {
+    }
+
+    private final Path root;
+    private final Path directory;
+    private final Settings settings;
+    private final ExecutorService readers;
+    private final List<Retired> retired = new ArrayList<>();
+
+    private volatile State state;
+
+    public TrigramIndex(Path root, Path directory, Settings settings) {
+        this.root = root.toAbsolutePath().normalize();
+        this.directory = directory;
+        this.settings = settings;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.readers = Executors.newFixedThreadPool(Math.max(1, settings.threads()), runnable -> {
+            Thread thread = new Thread(runnable, "mcp-file-index-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Whether lookups can be answered, i.e. a segment has been opened or built.
+     */
+    public boolean isReady() {
+        return state != null;
+    }
+
+    /**
+     * Bring the index up to date with the tree. The first call opens the segment left by a
+     * previous run, if it indexes the same root, or builds one.
+     */
+    public synchronized Refresh refresh() throws IOException {
+        long start = System.nanoTime();
+        closeRetired(false);
+        List<FileEntry> files = walk();
+        State current = state;
+        if (current == null) {
+            current = openCurrent();
+            if (current == null) {
+                return rebuild(files, start);
+            }
+            state = current;
+        }
+
+        TrigramSegment segment = current.segment();
+        int segmentFiles = segment.getFileCount();
+        BitSet removed = new BitSet(segmentFiles);
+        Map<String, Changed> changed = new HashMap<>();
+        List<FileEntry> toRead = new ArrayList<>();
+        int id = 0;
+        for (FileEntry file : files) {
+            int order = -1;
+            while (id < segmentFiles && (order = segment.path(id).compareTo(file.path())) < 0) {
+                removed.set(id++);
+            }
+            if (id < segmentFiles && order == 0) {
+                if (segment.size(id) != file.size() || segment.modified(id) != file.modified()) {
+                    removed.set(id);
+                    keepOrRead(file, current, changed, toRead);
+                }
+                id++;
+            } else {
+                keepOrRead(file, current, changed, toRead);
+            }
+        }
+        removed.set(id, segmentFiles);
+
+        if (removed.cardinality() + changed.size() + toRead.size() > Math.max(REBUILD_MIN_CHANGES, segmentFiles / REBUILD_FRACTION)) {
+            return rebuild(files, start);
+        }
+        List<int[]> trigrams = readTrigrams(toRead);
+        for (int i = 0; i < toRead.size(); i++) {
+            FileEntry file = toRead.get(i);
+            changed.put(file.path(), new Changed(file.size(), file.modified(), trigrams.get(i)));
+        }
+        state = new State(segment, removed, Map.copyOf(changed), current.unindexed());
+        return new Refresh(false, files.size(), changed.size(), removed.cardinality(), millisSince(start));
+    }
+
+    /**
+     * Files that may contain all the given trigrams: sorted, distinct, and not empty.
+     */
+    public List<Path> candidates(int[] required) throws IOException {
+        State current = state;
+        if (current == null) {
+            throw new IllegalStateException("The file index of " + root + " is not built yet.");
+        }
+        TrigramSegment segment = current.segment();
+        List<Path> files = new ArrayList<>();
+        for (int id : segment.candidates(required)) {
+            if (!current.removed().get(id)) {
+                files.add(root.resolve(segment.path(id)));
+            }
+        }
+        for (int id : current.unindexed()) {
+            if (!current.removed().get(id)) {
+                files.add(root.resolve(segment.path(id)));
+            }
+        }
+        current.changed().forEach((path, file) -> {
+            if (isUnindexed(file.trigrams()) || Trigrams.containsAll(file.trigrams(), required)) {
+                files.add(root.resolve(path));
+            }
+        });
+        return files;
+    }
+
+    public Stats getStats() throws IOException {
+        State current = state;
+        if (current == null) {
+            return new Stats(0, 0, 0, 0, 0);
+        }
+        TrigramSegment segment = current.segment();
+        return new Stats(segment.getFileCount(), segment.getTrigramCount(), segment.sizeOnDisk(),
+            current.changed().size(), current.removed().cardinality());
+    }
+
+    private void keepOrRead(FileEntry file, State current, Map<String, Changed> changed, List<FileEntry> toRead) {
+        Changed known = current.changed().get(file.path());
+        if (known != null && known.size() == file.size() && known.modified() == file.modified()) {
+            changed.put(file.path(), known);
+        } else {
+            toRead.add(file);
+        }
+    }
+
+    private Refresh rebuild(List<FileEntry> files, long start) throws IOException {
+        Path segmentDirectory = directory.resolve(SEGMENT_PREFIX + System.currentTimeMillis());
+        try (TrigramSegmentWriter writer = new TrigramSegmentWriter(segmentDirectory, settings.bufferedPostings())) {
+            for (int from = 0; from < files.size(); from += READ_BATCH) {
+                List<FileEntry> batch = files.subList(from, Math.min(from + READ_BATCH, files.size()));
+                List<int[]> trigrams = readTrigrams(batch);
+                for (int i = 0; i < batch.size(); i++) {
+                    FileEntry file = batch.get(i);
+                    writer.add(file.path(), file.size(), file.modified(), trigrams.get(i));
+                }
+            }
+            writer.finish();
+        } catch (IOException | RuntimeException e) {
+            TrigramSegment.delete(segmentDirectory);
+            throw e;
+        }
+
+        TrigramSegment segment = TrigramSegment.open(segmentDirectory);
+        Path current = directory.resolve(CURRENT);
+        Path next = directory.resolve(CURRENT + ".tmp");
+        Files.writeString(next, segmentDirectory.getFileName() + "\n" + root + "\n");
+        Files.move(next, current, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        State previous = state;
+        state = new State(segment, new BitSet(), Map.of(), segment.postings(Trigrams.UNINDEXED));
+        if (previous != null) {
+            retired.add(new Retired(previous.segment(), System.nanoTime()));
+        }
+        return new Refresh(true, files.size(), 0, 0, millisSince(start));
+    }
+
+    /**
+     * Open the segment named by CURRENT if it indexes this root, deleting any other segment.
+     */
+    private State openCurrent() throws IOException {
+        Files.createDirectories(directory);
+        Path current = directory.resolve(CURRENT);
+        String name = null;
+        if (Files.exists(current)) {
+            List<String> lines = Files.readAllLines(current, StandardCharsets.UTF_8);
+            if (lines.size() >= 2 && lines.get(1).equals(root.toString())) {
+                name = lines.get(0);
+            }
+        }
+        try (var entries = Files.list(directory)) {
+            for (Path entry : entries.toList()) {
+                String entryName = entry.getFileName().toString();
+                if (entryName.startsWith(SEGMENT_PREFIX) && !entryName.equals(name)) {
+                    // Left by a build that did not finish, or by an index of another root
+                    TrigramSegment.delete(entry);
+                }
+            }
+        }
+        if (name == null) {
+            return null;
+        }
+        try {
+            TrigramSegment segment = TrigramSegment.open(directory.resolve(name));
+            return new State(segment, new BitSet(), Map.of(), segment.postings(Trigrams.UNINDEXED));
+        } catch (IOException e) {
+            TrigramSegment.delete(directory.resolve(name));
+            return null;
+        }
+    }
+
+    /**
+     * Regular files under the root, sorted by relative path, skipping the directories that
+     * search_files skips and not following links.
+     */
+    private List<FileEntry> walk() throws IOException {
+        List<FileEntry> files = new ArrayList<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) {
+                return !dir.equals(root) && FileSearcher.SKIPPED_DIRECTORIES.contains(dir.getFileName().toString())
+                    ? FileVisitResult.SKIP_SUBTREE
+                    : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (attributes.isRegularFile()) {
+                    files.add(new FileEntry(relativePath(file), file, attributes.size(),
+                        attributes.lastModifiedTime().toMillis()));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        files.sort(Comparator.comparing(FileEntry::path));
+        return files;
+    }
+
+    private String relativePath(Path file) {
+        Iterator<Path> names = root.relativize(file).iterator();
+        StringBuilder path = new StringBuilder(names.next().toString());
+        while (names.hasNext()) {
+            path.append('/').append(names.next());
+        }
+        return path.toString();
+    }
+
+    private List<int[]> readTrigrams(List<FileEntry> files) throws IOException {
+        List<Callable<int[]>> reads = new ArrayList<>(files.size());
+        for (FileEntry file : files) {
+            reads.add(() -> trigramsOf(file));
+        }
+        List<int[]> trigrams = new ArrayList<>(files.size());
+        try {
+            for (Future<int[]> future : readers.invokeAll(reads)) {
+                trigrams.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while indexing " + root, e);
+        } catch (ExecutionException e) {
+            throw new IOException("Cannot index " + root + ": " + e.getCause().getMessage(), e.getCause());
+        }
+        return trigrams;
+    }
+
+    private int[] trigramsOf(FileEntry file) {
+        if (file.size() > settings.maxIndexedBytes()) {
+            return NOT_INDEXED;
+        }
+        try (FileChannel channel = FileChannel.open(file.file(), StandardOpenOption.READ)) {
+            ByteBuffer content = FileSearcher.readFully(channel, (int) Math.min(file.size(), channel.size()));
+            // Binary files are never searched, so they need no trigrams
+            return FileSearcher.isBinary(content) ? NONE : Trigrams.of(content);
+        } catch (IOException e) {
+            // Vanished or unreadable: search_files skips it as well
+            return NONE;
+        }
+    }
+
+    private static boolean isUnindexed(int[] trigrams) {
+        return trigrams.length == 1 && trigrams[0] == Trigrams.UNINDEXED;
+    }
+
+    private void closeRetired(boolean all) throws IOException {
+        Iterator<Retired> iterator = retired.iterator();
+        while (iterator.hasNext()) {
+            Retired entry = iterator.next();
+            if (all || System.nanoTime() - entry.retiredAtNanos() > RETIRE_GRACE_NANOS) {
+                entry.segment().close();
+                TrigramSegment.delete(entry.segment().getDirectory());
+                iterator.remove();
+            }
+        }
+    }
+
+    private static long millisSince(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        readers.shutdownNow();
+        closeRetired(true);
+        State current = state;
+        state = null;
+        if (current != null) {
+            current.segment().close();
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package cc.unitmesh.mcp.file;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A trigram index of a set of files, as written by {@link TrigramSegmentWriter}. Immutable; the
+ * index applies changes made after it was written on top of it until it writes a new segment.
+ *
+ * A segment is a directory of four files. {@code files.dat} has one fixed-size record per file,
+ * in path order, so a file's id is its position: size, modification time and where its path
+ * starts in {@code paths.dat}. {@code trigrams.dat} has one record per trigram, in trigram order:
+ * the number of files containing it and where their ids start in {@code postings.dat}, which
+ * holds each list of ids in ascending order as variable-length deltas.
+ *
+ * All but the postings are memory-mapped. Postings are read on demand, so a query touches only
+ * the lists of its own trigrams.
+ *
+ * @author AutoDev MCP Team
+ */
+public final class TrigramSegment implements Closeable {
+
+    static final String FILES = "files.dat";
+    static final String PATHS = "paths.dat";
+    static final String TRIGRAMS = "trigrams.dat";
+    static final String POSTINGS = "postings.dat";
+
+    static final int MAGIC = 0x4D435433;  // "MCT3"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int FILE_RECORD_BYTES = 24;
+    static final int TRIGRAM_RECORD_BYTES = 16;
+    // A posting list is only intersected while at most this many times longer than the result
+    private static final int MAX_INTERSECTED_RATIO = 32;
+
+    private final Path directory;
+    private final MappedByteBuffer files;
+    private final MappedByteBuffer paths;
+    private final MappedByteBuffer trigrams;
+    private final FileChannel postings;
+    private final int fileCount;
+    private final int trigramCount;
+
+    private TrigramSegment(Path directory, MappedByteBuffer files, MappedByteBuffer paths,
+                           MappedByteBuffer trigrams, FileChannel postings) throws IOException {
+        this.directory = directory;
+        this.files = files;
+        this.paths = paths;
+        this.trigrams = trigrams;
+        this.postings = postings;
+        this.fileCount = checkHeader(files, FILE_RECORD_BYTES, FILES);
+        this.trigramCount = checkHeader(trigrams, TRIGRAM_RECORD_BYTES, TRIGRAMS);
+    }
+
+    /**
+     * Open the segment in the given directory.
+     */
+    public static TrigramSegment open(Path directory) throws IOException {
+        FileChannel postings = FileChannel.open(directory.resolve(POSTINGS), StandardOpenOption.READ);
+        try {
+            return new TrigramSegment(directory, map(directory.resolve(FILES)), map(directory.resolve(PATHS)),
+                map(directory.resolve(TRIGRAMS)), postings);
+        } catch (IOException | RuntimeException e) {
+            postings.close();
+            throw e;
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    public int getTrigramCount() {
+        return trigramCount;
+    }
+
+    /**
+     * Path of a file relative to the indexed root, with '/' separators.
+     */
+    public String path(int id) {
+        long start = files.getLong(fileRecord(id) + 16);
+        long end = id + 1 < fileCount ? files.getLong(fileRecord(id + 1) + 16) : paths.limit();
+        byte[] bytes = new byte[(int) (end - start)];
+        paths.get((int) start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public long size(int id) {
+        return files.getLong(fileRecord(id));
+    }
+
+    public long modified(int id) {
+        return files.getLong(fileRecord(id) + 8);
+    }
+
+    /**
+     * Number of files containing the trigram.
+     */
+    public int count(int trigram) {
+        int record = findTrigram(trigram);
+        return record < 0 ? 0 : trigrams.getInt(record + 4);
+    }
+
+    /**
+     * Ids of the files containing the trigram, ascending.
+     */
+    public int[] postings(int trigram) throws IOException {
+        int record = findTrigram(trigram);
+        if (record < 0) {
+            return new int[0];
+        }
+        int count = trigrams.getInt(record + 4);
+        long offset = trigrams.getLong(record + 8);
+        long end = record + TRIGRAM_RECORD_BYTES < trigrams.limit()
+            ? trigrams.getLong(record + TRIGRAM_RECORD_BYTES + 8)
+            : postings.size();
+        ByteBuffer encoded = ByteBuffer.allocate((int) (end - offset));
+        while (encoded.hasRemaining()) {
+            if (postings.read(encoded, offset + encoded.position()) < 0) {
+                throw new EOFException("Truncated postings in " + directory);
+            }
+        }
+        encoded.flip();
+        int[] ids = new int[count];
+        int id = 0;
+        for (int i = 0; i < count; i++) {
+            id += readVarint(encoded);
+            ids[i] = id;
+        }
+        return ids;
+    }
+
+    /**
+     * Ids of the files that may contain all the trigrams, ascending. The rarest trigrams are
+     * intersected first, and lists much longer than the ids left are not read at all: decoding
+     * them would cost more than searching the few files they could rule out.
+     */
+    public int[] candidates(int[] required) throws IOException {
+        Integer[] order = new Integer[required.length];
+        int[] counts = new int[required.length];
+        for (int i = 0; i < required.length; i++) {
+            order[i] = i;
+            counts[i] = count(required[i]);
+            if (counts[i] == 0) {
+                return new int[0];
+            }
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(counts[a], counts[b]));
+        int[] result = postings(required[order[0]]);
+        for (int i = 1; i < order.length && result.length > 0
+                && counts[order[i]] <= (long) result.length * MAX_INTERSECTED_RATIO; i++) {
+            result = intersect(result, postings(required[order[i]]));
+        }
+        return result;
+    }
+
+    /**
+     * Bytes used by the segment on disk.
+     */
+    public long sizeOnDisk() throws IOException {
+        return files.limit() + paths.limit() + trigrams.limit() + postings.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        postings.close();
+    }
+
+    private int fileRecord(int id) {
+        if (id < 0 || id >= fileCount) {
+            throw new IndexOutOfBoundsException("No file " + id + " in segment of " + fileCount + " files");
+        }
+        return HEADER_BYTES + id * FILE_RECORD_BYTES;
+    }
+
+    private int findTrigram(int trigram) {
+        int low = 0;
+        int high = trigramCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int record = HEADER_BYTES + middle * TRIGRAM_RECORD_BYTES;
+            int value = trigrams.getInt(record);
+            if (value < trigram) {
+                low = middle + 1;
+            } else if (value > trigram) {
+                high = middle - 1;
+            } else {
+                return record;
+            }
+        }
+        return -1;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large to map: " + channel.size() + " bytes");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static int checkHeader(ByteBuffer buffer, int recordBytes, String name) throws IOException {
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException(name + " is not a trigram index file of version " + VERSION);
+        }
+        int count = buffer.getInt(8);
+        if (HEADER_BYTES + (long) count * recordBytes != buffer.limit()) {
+            throw new IOException(name + " is truncated");
+        }
+        return count;
+    }
+
+    static void writeVarint(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    static int varintBytes(int value) {
+        int bytes = 1;
+        while ((value & ~0x7F) != 0) {
+            bytes++;
+            value >>>= 7;
+        }
+        return bytes;
+    }
+
+    static int readVarint(InputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated trigram index run");
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Delete a segment directory; a missing one is ignored.
+     */
+    static void delete(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (var entries = Files.list(directory)) {
+            for (Path entry : entries.toList()) {
+                Files.deleteIfExists(entry);
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+}
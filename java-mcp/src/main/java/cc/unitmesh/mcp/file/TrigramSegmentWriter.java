@@ -0,0 +1,293 @@
+package cc.unitmesh.mcp.file;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Writes a {@link TrigramSegment}, in memory bounded by the posting buffer whatever the number
+ * of files.
+ *
+ * Files are added in path order and numbered as they come. Each file's trigrams are buffered as
+ * (trigram, id) pairs; a full buffer is sorted and written out as a run, and {@link #finish()}
+ * merges the runs. Runs cover ascending ranges of ids, so the postings of a trigram are the
+ * concatenation of its postings in each run, in run order.
+ *
+ * @author AutoDev MCP Team
+ */
+public final class TrigramSegmentWriter implements Closeable {
+
+    private static final int STREAM_BUFFER_BYTES = 64 * 1024;
+    private static final int RADIX_BITS = 13;
+
+    private final Path directory;
+    private final long[] buffer;
+    private final long[] scratch;
+    private final List<Path> runs = new ArrayList<>();
+    private final DataOutputStream files;
+    private final OutputStream paths;
+    private int buffered;
+    private int fileCount;
+    private long pathBytes;
+    private String lastPath;
+
+    /**
+     * @param directory        new directory to write the segment to
+     * @param bufferedPostings (trigram, file) pairs kept in memory before a run is written; each
+     *                         takes 16 bytes
+     */
+    public TrigramSegmentWriter(Path directory, int bufferedPostings) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.buffer = new long[Math.max(1024, bufferedPostings)];
+        this.scratch = new long[buffer.length];
+        this.files = new DataOutputStream(new BufferedOutputStream(
+            Files.newOutputStream(directory.resolve(TrigramSegment.FILES)), STREAM_BUFFER_BYTES));
+        this.paths = new BufferedOutputStream(
+            Files.newOutputStream(directory.resolve(TrigramSegment.PATHS)), STREAM_BUFFER_BYTES);
+        // The count is filled in by finish()
+        writeHeader(files, 0);
+    }
+
+    /**
+     * Add the next file.
+     *
+     * @param path     path relative to the indexed root, greater than the previous one
+     * @param trigrams distinct trigrams of the file, sorted, or none if it is not indexed
+     * @return the id of the file
+     */
+    public int add(String path, long size, long modified, int[] trigrams) throws IOException {
+        if (lastPath != null && path.compareTo(lastPath) <= 0) {
+            throw new IllegalArgumentException("Files must be added in path order: " + path + " after " + lastPath);
+        }
+        int id = fileCount++;
+        lastPath = path;
+        byte[] pathUtf8 = path.getBytes(StandardCharsets.UTF_8);
+        files.writeLong(size);
+        files.writeLong(modified);
+        files.writeLong(pathBytes);
+        paths.write(pathUtf8);
+        pathBytes += pathUtf8.length;
+
+        if (trigrams.length > buffer.length - buffered) {
+            flushRun();
+        }
+        if (trigrams.length > buffer.length) {
+            // A file with more distinct trigrams than the buffer holds gets a run of its own
+            long[] single = new long[trigrams.length];
+            for (int i = 0; i < trigrams.length; i++) {
+                single[i] = ((long) trigrams[i] << 32) | id;
+            }
+            writeRun(single, single.length);
+            return id;
+        }
+        for (int trigram : trigrams) {
+            buffer[buffered++] = ((long) trigram << 32) | id;
+        }
+        return id;
+    }
+
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    /**
+     * Merge the runs and complete the segment files.
+     */
+    public void finish() throws IOException {
+        flushRun();
+        files.close();
+        paths.close();
+        patchCount(TrigramSegment.FILES, fileCount);
+        mergeRuns();
+    }
+
+    private void flushRun() throws IOException {
+        if (buffered == 0) {
+            return;
+        }
+        sortByTrigram(buffer, scratch, buffered);
+        writeRun(buffer, buffered);
+        buffered = 0;
+    }
+
+    /**
+     * Sort the pairs by trigram with two passes of a stable radix sort on the trigram bits. Pairs
+     * are buffered in id order, so this sorts them by id within a trigram as well, in linear time.
+     */
+    private static void sortByTrigram(long[] entries, long[] scratch, int count) {
+        int buckets = 1 << RADIX_BITS;
+        long[] from = entries;
+        long[] to = scratch;
+        for (int shift = 32; shift < 32 + 2 * RADIX_BITS; shift += RADIX_BITS) {
+            int[] offsets = new int[buckets + 1];
+            for (int i = 0; i < count; i++) {
+                offsets[(int) (from[i] >>> shift) & (buckets - 1)]++;
+            }
+            int total = 0;
+            for (int bucket = 0; bucket < buckets; bucket++) {
+                int size = offsets[bucket];
+                offsets[bucket] = total;
+                total += size;
+            }
+            for (int i = 0; i < count; i++) {
+                long entry = from[i];
+                to[offsets[(int) (entry >>> shift) & (buckets - 1)]++] = entry;
+            }
+            from = to;
+            to = entries;
+        }
+        // After an even number of passes the sorted pairs are back in entries
+    }
+
+    /**
+     * Write sorted (trigram, id) pairs as a run: per trigram, its count and its ids as deltas.
+     */
+    private void writeRun(long[] entries, int count) throws IOException {
+        Path run = directory.resolve("run-" + runs.size() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(run), STREAM_BUFFER_BYTES))) {
+            int i = 0;
+            while (i < count) {
+                int trigram = (int) (entries[i] >>> 32);
+                int end = i;
+                while (end < count && (int) (entries[end] >>> 32) == trigram) {
+                    end++;
+                }
+                out.writeInt(trigram);
+                out.writeInt(end - i);
+                int previous = 0;
+                for (int j = i; j < end; j++) {
+                    int id = (int) entries[j];
+                    TrigramSegment.writeVarint(out, id - previous);
+                    previous = id;
+                }
+                i = end;
+            }
+            out.writeInt(-1);
+        }
+        runs.add(run);
+    }
+
+    private void mergeRuns() throws IOException {
+        List<RunReader> readers = new ArrayList<>();
+        int trigramCount = 0;
+        try (DataOutputStream trigrams = new DataOutputStream(new BufferedOutputStream(
+                 Files.newOutputStream(directory.resolve(TrigramSegment.TRIGRAMS)), STREAM_BUFFER_BYTES));
+             OutputStream postings = new BufferedOutputStream(
+                 Files.newOutputStream(directory.resolve(TrigramSegment.POSTINGS)), STREAM_BUFFER_BYTES)) {
+            writeHeader(trigrams, 0);
+            // Ties on the trigram are taken in run order, which is id order
+            PriorityQueue<RunReader> heads = new PriorityQueue<>((a, b) -> a.trigram != b.trigram
+                ? Integer.compare(a.trigram, b.trigram)
+                : Integer.compare(a.index, b.index));
+            for (int i = 0; i < runs.size(); i++) {
+                RunReader reader = new RunReader(i, runs.get(i));
+                readers.add(reader);
+                if (reader.next()) {
+                    heads.add(reader);
+                }
+            }
+
+            List<RunReader> sameTrigram = new ArrayList<>();
+            long postingsOffset = 0;
+            while (!heads.isEmpty()) {
+                int trigram = heads.peek().trigram;
+                sameTrigram.clear();
+                int count = 0;
+                while (!heads.isEmpty() && heads.peek().trigram == trigram) {
+                    RunReader reader = heads.poll();
+                    sameTrigram.add(reader);
+                    count += reader.count;
+                }
+                trigrams.writeInt(trigram);
+                trigrams.writeInt(count);
+                trigrams.writeLong(postingsOffset);
+                trigramCount++;
+
+                int previous = 0;
+                for (RunReader reader : sameTrigram) {
+                    int id = 0;
+                    for (int i = 0; i < reader.count; i++) {
+                        id += TrigramSegment.readVarint(reader.in);
+                        TrigramSegment.writeVarint(postings, id - previous);
+                        postingsOffset += TrigramSegment.varintBytes(id - previous);
+                        previous = id;
+                    }
+                    if (reader.next()) {
+                        heads.add(reader);
+                    }
+                }
+            }
+        } finally {
+            for (RunReader reader : readers) {
+                reader.in.close();
+            }
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+        }
+        patchCount(TrigramSegment.TRIGRAMS, trigramCount);
+    }
+
+    /**
+     * Fill in the record count of a file written with a placeholder header.
+     */
+    private void patchCount(String name, int count) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory.resolve(name), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(count).flip(), 8);
+        }
+    }
+
+    private static void writeHeader(DataOutputStream out, int count) throws IOException {
+        out.writeInt(TrigramSegment.MAGIC);
+        out.writeInt(TrigramSegment.VERSION);
+        out.writeInt(count);
+        out.writeInt(0);
+    }
+
+    private static final class RunReader {
+        final int index;
+        final DataInputStream in;
+        int trigram;
+        int count;
+
+        RunReader(int index, Path run) throws IOException {
+            this.index = index;
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), STREAM_BUFFER_BYTES));
+        }
+
+        /**
+         * Move to the next trigram of the run; its ids must have been read.
+         */
+        boolean next() throws IOException {
+            trigram = in.readInt();
+            if (trigram < 0) {
+                return false;
+            }
+            count = in.readInt();
+            return true;
+        }
+    }
+
+    /**
+     * Abandon an unfinished segment.
+     */
+    @Override
+    public void close() throws IOException {
+        files.close();
+        paths.close();
+    }
+}
@@ -0,0 +1,273 @@
+package cc.unitmesh.mcp.file;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Trigrams of file contents and of search patterns, for the trigram index.
+ *
+ * A trigram is three consecutive bytes packed into the low 24 bits of an int, with ASCII letters
+ * folded to lower case so one index serves case-sensitive and case-insensitive searches alike.
+ * A file can only contain a literal if it contains every trigram of the literal; the index
+ * narrows a search down to those files and the search itself confirms the match.
+ *
+ * @author AutoDev MCP Team
+ */
+public final class Trigrams {
+
+    /**
+     * Pseudo-trigram recorded for files whose contents are not indexed, e.g. because they are too
+     * large, so that every search looks at them. Outside the range of real trigrams.
+     */
+    public static final int UNINDEXED = 1 << 24;
+
+    private static final int[] NONE = new int[0];
+    // One bit per possible trigram, to drop repeats before sorting: most trigrams of a file recur
+    private static final ThreadLocal<long[]> SEEN = ThreadLocal.withInitial(() -> new long[(1 << 24) / 64]);
+    // In comments mode, whitespace in the expression does not match itself
+    private static final Pattern COMMENTS_FLAG = Pattern.compile("\\(\\?[a-zA-Z-]*x");
+    // Unicode case folding, also implied by UNICODE_CHARACTER_CLASS
+    private static final Pattern UNICODE_CASE_FLAG = Pattern.compile("\\(\\?[a-zA-Z-]*[uU]");
+
+    private Trigrams() {
+    }
+
+    /**
+     * Distinct trigrams of the content, sorted.
+     */
+    public static int[] of(ByteBuffer content) {
+        int limit = content.limit();
+        if (limit < 3) {
+            return NONE;
+        }
+        long[] seen = SEEN.get();
+        int[] trigrams = new int[Math.min(limit - 2, 1 << 16)];
+        int count = 0;
+        int trigram = (fold(content.get(0)) << 8) | fold(content.get(1));
+        for (int i = 2; i < limit; i++) {
+            trigram = ((trigram << 8) | fold(content.get(i))) & 0xFFFFFF;
+            long bit = 1L << trigram;
+            if ((seen[trigram >>> 6] & bit) == 0) {
+                seen[trigram >>> 6] |= bit;
+                if (count == trigrams.length) {
+                    trigrams = Arrays.copyOf(trigrams, Math.min(limit - 2, count * 2));
+                }
+                trigrams[count++] = trigram;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            seen[trigrams[i] >>> 6] = 0;
+        }
+        int[] distinct = Arrays.copyOf(trigrams, count);
+        Arrays.sort(distinct);
+        return distinct;
+    }
+
+    /**
+     * Distinct trigrams a file must contain to match the literal, sorted. With unicodeCase, for
+     * case-insensitive matching with Unicode case folding, trigrams with bytes that match other
+     * characters are left out: non-ASCII bytes, and i, k and s, which also match U+0130, U+0131,
+     * the Kelvin sign and the long s.
+     */
+    public static int[] ofLiteral(String literal, boolean unicodeCase) {
+        byte[] bytes = literal.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length < 3) {
+            return NONE;
+        }
+        int[] trigrams = new int[bytes.length - 2];
+        int count = 0;
+        for (int i = 0; i + 2 < bytes.length; i++) {
+            if (unicodeCase && (foldsToOthers(bytes[i]) || foldsToOthers(bytes[i + 1]) || foldsToOthers(bytes[i + 2]))) {
+                continue;
+            }
+            trigrams[count++] = (fold(bytes[i]) << 16) | (fold(bytes[i + 1]) << 8) | fold(bytes[i + 2]);
+        }
+        return distinct(Arrays.copyOf(trigrams, count));
+    }
+
+    /**
+     * Distinct trigrams a file must contain to match a search pattern, sorted; none if the
+     * pattern has no literal of three bytes or more to look up.
+     */
+    public static int[] required(String pattern, boolean regex, boolean ignoreCase) {
+        if (!regex) {
+            return ofLiteral(pattern, ignoreCase);
+        }
+        // The expression may turn on Unicode case folding itself; ASCII folding is in the trigrams already
+        boolean unicodeCase = ignoreCase || UNICODE_CASE_FLAG.matcher(pattern).find();
+        int[] required = NONE;
+        for (String literal : requiredLiterals(pattern)) {
+            int[] trigrams = ofLiteral(literal, unicodeCase);
+            int[] merged = Arrays.copyOf(required, required.length + trigrams.length);
+            System.arraycopy(trigrams, 0, merged, required.length, trigrams.length);
+            required = distinct(merged);
+        }
+        return required;
+    }
+
+    /**
+     * Literal runs that every match of the regular expression contains, or an empty list if none
+     * can be found, e.g. because of an alternation. Only the top level of the expression is
+     * looked at: groups and character classes end a run.
+     */
+    public static List<String> requiredLiterals(String regex) {
+        List<String> literals = new ArrayList<>();
+        if (regex.indexOf('|') >= 0 || COMMENTS_FLAG.matcher(regex).find()) {
+            return literals;
+        }
+        StringBuilder run = new StringBuilder();
+        int depth = 0;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (depth > 0) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '[') {
+                    // A parenthesis in a class does not open or close a group
+                    i = skipClass(regex, i);
+                } else if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                }
+                continue;
+            }
+            switch (c) {
+                case '\\' -> {
+                    char next = i + 1 < regex.length() ? regex.charAt(++i) : 'x';
+                    if (Character.isLetterOrDigit(next)) {
+                        // A class such as \d or \b, a code point such as \x41 or a back reference
+                        endRun(run, literals);
+                        i = skipEscapeArgument(regex, i);
+                    } else {
+                        run.append(next);
+                    }
+                }
+                case '*', '?', '{' -> {
+                    // The previous character is optional or repeated a variable number of times
+                    if (!run.isEmpty()) {
+                        run.setLength(run.offsetByCodePoints(run.length(), -1));
+                    }
+                    endRun(run, literals);
+                    if (c == '{') {
+                        i = skipTo(regex, i, '}');
+                    }
+                }
+                case '+' -> endRun(run, literals);
+                case '[' -> {
+                    endRun(run, literals);
+                    i = skipClass(regex, i);
+                }
+                case '(' -> {
+                    endRun(run, literals);
+                    depth++;
+                }
+                case '.', '^', '$', ')' -> endRun(run, literals);
+                default -> run.append(c);
+            }
+        }
+        endRun(run, literals);
+        return literals;
+    }
+
+    /**
+     * Whether the sorted trigrams contain all of the sorted required ones.
+     */
+    public static boolean containsAll(int[] trigrams, int[] required) {
+        int i = 0;
+        for (int trigram : required) {
+            while (i < trigrams.length && trigrams[i] < trigram) {
+                i++;
+            }
+            if (i == trigrams.length || trigrams[i] != trigram) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void endRun(StringBuilder run, List<String> literals) {
+        if (run.length() >= 3) {
+            literals.add(run.toString());
+        }
+        run.setLength(0);
+    }
+
+    private static int skipTo(String regex, int from, char end) {
+        int i = regex.indexOf(end, from);
+        return i < 0 ? regex.length() : i;
+    }
+
+    /**
+     * Skip what follows the letter of an escape such as \x41, \u00e9, \p{L} or \k&lt;name&gt;.
+     */
+    private static int skipEscapeArgument(String regex, int letter) {
+        int next = letter + 1;
+        boolean braced = next < regex.length() && regex.charAt(next) == '{';
+        return switch (regex.charAt(letter)) {
+            case 'x' -> braced ? skipTo(regex, next, '}') : Math.min(letter + 2, regex.length());
+            case 'u' -> Math.min(letter + 4, regex.length());
+            case 'c' -> Math.min(letter + 1, regex.length());
+            case 'p', 'P', 'N' -> braced ? skipTo(regex, next, '}') : Math.min(letter + 1, regex.length());
+            case 'k' -> skipTo(regex, next, '>');
+            case '0', '1', '2', '3', '4', '5', '6', '7', '8', '9' -> {
+                int i = letter;
+                while (i + 1 < regex.length() && Character.isDigit(regex.charAt(i + 1))) {
+                    i++;
+                }
+                yield i;
+            }
+            default -> letter;
+        };
+    }
+
+    private static int skipClass(String regex, int from) {
+        int i = from + 1;
+        // A ] right after [ or [^ is part of the class
+        if (i < regex.length() && regex.charAt(i) == '^') {
+            i++;
+        }
+        if (i < regex.length() && regex.charAt(i) == ']') {
+            i++;
+        }
+        for (; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                // A nested class, as in [a-z&&[^aeiou]]
+                i = skipClass(regex, i);
+            } else if (c == ']') {
+                return i;
+            }
+        }
+        return i;
+    }
+
+    private static boolean foldsToOthers(byte b) {
+        int folded = fold(b);
+        return b < 0 || folded == 'i' || folded == 'k' || folded == 's';
+    }
+
+    private static int fold(byte b) {
+        return b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b & 0xFF;
+    }
+
+    private static int[] distinct(int[] values) {
+        if (values.length == 0) {
+            return values;
+        }
+        Arrays.sort(values);
+        int count = 1;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] != values[count - 1]) {
+                values[count++] = values[i];
+            }
+        }
+        return count == values.length ? values : Arrays.copyOf(values, count);
+    }
+}
@@ -0,0 +1,187 @@
+package cc.unitmesh.mcp.sql;
+
+import cc.unitmesh.mcp.core.MCPCancellation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Admission control for query_sql based on the EXPLAIN estimate of rows examined.
+ *
+ * Queries above the threshold are handled according to the configured action:
+ * <ul>
+ *   <li>REJECT: fail with the plan summary, so the agent can add a filter or use an index;</li>
+ *   <li>LIMIT: run with a much lower row limit, which stops scans without ORDER BY early;</li>
+ *   <li>QUEUE: run at most a few expensive queries at a time, and fail with the plan summary
+ *       if none finishes within the queue timeout.</li>
+ * </ul>
+ * Plans are cached per normalized query.
+ *
+ * @author AutoDev MCP Team
+ */
+@Component
+@Lazy
+public class QueryCostGuard {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryCostGuard.class);
+
+    public enum Action { REJECT, LIMIT, QUEUE }
+
+    private final boolean enabled;
+    private final long maxRowsExamined;
+    private final Action action;
+    private final int limitedRows;
+    private final Semaphore expensiveSlots;
+    private final long queueTimeoutMs;
+    private final long planTtlNanos;
+    private final Map<String, CachedPlan> plans;
+
+    private record CachedPlan(QueryPlan plan, long expiresAtNanos) {
+    }
+
+    public QueryCostGuard(@Value("${mcp.sql.cost.enabled:true}") boolean enabled,
+                          @Value("${mcp.sql.cost.max-rows-examined:1000000}") long maxRowsExamined,
+                          @Value("${mcp.sql.cost.action:reject}") String action,
+                          @Value("${mcp.sql.cost.limited-rows:20}") int limitedRows,
+                          @Value("${mcp.sql.cost.max-concurrent-expensive:2}") int maxConcurrentExpensive,
+                          @Value("${mcp.sql.cost.queue-timeout-ms:10000}") long queueTimeoutMs,
+                          @Value("${mcp.sql.cost.plan-ttl-seconds:600}") long planTtlSeconds,
+                          @Value("${mcp.sql.cost.plan-cache-size:512}") int planCacheSize) {
+        this.enabled = enabled;
+        this.maxRowsExamined = maxRowsExamined;
+        this.action = Action.valueOf(action.trim().toUpperCase(Locale.ROOT));
+        this.limitedRows = limitedRows;
+        this.expensiveSlots = new Semaphore(Math.max(1, maxConcurrentExpensive), true);
+        this.queueTimeoutMs = queueTimeoutMs;
+        this.planTtlNanos = TimeUnit.SECONDS.toNanos(planTtlSeconds);
+        this.plans = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPlan> eldest) {
+                return size() > planCacheSize;
+            }
+        };
+    }
+
+    /**
+     * Decide whether and how the query may run. Close the admission when the query is done.
+     *
+     * @param explain runs {@code EXPLAIN <sql>} and returns its rows
+     * @throws IllegalArgumentException if the query is rejected, with the plan summary
+     */
+    public Admission admit(SqlQueryParser.ParsedQuery query, Function<String, List<Map<String, Object>>> explain,
+                           MCPCancellation cancellation) {
+        if (!enabled || maxRowsExamined <= 0) {
+            return new Admission(QueryPlan.UNKNOWN, -1, null);
+        }
+        QueryPlan plan = plan(query, explain);
+        if (plan.rowsExamined() <= maxRowsExamined) {
+            return new Admission(plan, -1, null);
+        }
+        String reason = "Query is estimated to examine " + plan.rowsExamined() + " rows, over the limit of "
+            + maxRowsExamined + ".";
+        switch (action) {
+            case LIMIT -> {
+                logger.info("Limiting expensive query to {} rows: {}", limitedRows, reason);
+                return new Admission(plan, limitedRows, null);
+            }
+            case QUEUE -> {
+                return queue(plan, reason, cancellation);
+            }
+            default -> {
+                logger.info("Rejected expensive query: {}", reason);
+                throw new IllegalArgumentException(reason + " Add a selective WHERE clause on an indexed column"
+                    + " or narrow the joins.\nPlan:\n" + plan.summary());
+            }
+        }
+    }
+
+    private Admission queue(QueryPlan plan, String reason, MCPCancellation cancellation) {
+        try {
+            if (!expensiveSlots.tryAcquire(queueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new IllegalArgumentException(reason + " Other expensive queries are running and it waited "
+                    + queueTimeoutMs + " ms; retry later or make it cheaper.\nPlan:\n" + plan.summary());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Cancelled while queued behind expensive queries");
+        }
+        if (cancellation.isCancelled()) {
+            expensiveSlots.release();
+            cancellation.throwIfCancelled();
+        }
+        return new Admission(plan, -1, expensiveSlots);
+    }
+
+    private QueryPlan plan(SqlQueryParser.ParsedQuery query, Function<String, List<Map<String, Object>>> explain) {
+        String key = query.isCacheable() ? query.cacheKey() : query.boundedSql();
+        long now = System.nanoTime();
+        synchronized (plans) {
+            CachedPlan cached = plans.get(key);
+            if (cached != null && now - cached.expiresAtNanos() < 0) {
+                return cached.plan();
+            }
+        }
+        QueryPlan plan;
+        try {
+            plan = QueryPlan.fromExplain(explain.apply(query.boundedSql()));
+        } catch (RuntimeException e) {
+            // The query itself will report real errors; an unexplainable query is not blocked
+            logger.debug("Cannot EXPLAIN query: {}", e.getMessage());
+            plan = QueryPlan.UNKNOWN;
+        }
+        synchronized (plans) {
+            plans.put(key, new CachedPlan(plan, System.nanoTime() + planTtlNanos));
+        }
+        return plan;
+    }
+
+    /**
+     * Permission to run one query.
+     */
+    public static final class Admission implements AutoCloseable {
+
+        private final QueryPlan plan;
+        private final int maxRows;
+        private Semaphore slot;
+
+        Admission(QueryPlan plan, int maxRows, Semaphore slot) {
+            this.plan = plan;
+            this.maxRows = maxRows;
+            this.slot = slot;
+        }
+
+        public QueryPlan getPlan() {
+            return plan;
+        }
+
+        /**
+         * Whether the query must run with {@link #getMaxRows()} instead of the usual limit.
+         */
+        public boolean isLimited() {
+            return maxRows > 0;
+        }
+
+        public int getMaxRows() {
+            return maxRows;
+        }
+
+        @Override
+        public void close() {
+            if (slot != null) {
+                slot.release();
+                slot = null;
+            }
+        }
+    }
+}
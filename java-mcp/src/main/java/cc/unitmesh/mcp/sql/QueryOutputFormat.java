@@ -0,0 +1,262 @@
+package cc.unitmesh.mcp.sql;
+
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Output formats of query_sql, each built row by row straight from the ResultSet.
+ *
+ * JSON repeats every column name in every row. COLUMNAR sends the column names and types once,
+ * as the first element, followed by one array per row; the result stays a list, so the output
+ * budget still truncates it row by row. CSV and TSV return one text block with a header line.
+ *
+ * @author AutoDev MCP Team
+ */
+public enum QueryOutputFormat {
+
+    JSON {
+        @Override
+        public RowCollector newCollector() {
+            return new JsonCollector();
+        }
+    },
+    COLUMNAR {
+        @Override
+        public RowCollector newCollector() {
+            return new ColumnarCollector();
+        }
+    },
+    CSV {
+        @Override
+        public RowCollector newCollector() {
+            return new DelimitedCollector(',');
+        }
+    },
+    TSV {
+        @Override
+        public RowCollector newCollector() {
+            return new DelimitedCollector('\t');
+        }
+    };
+
+    /**
+     * Create a collector for one result set.
+     */
+    public abstract RowCollector newCollector();
+
+    /**
+     * Parse a format name, case-insensitively; null or blank means JSON.
+     *
+     * @throws IllegalArgumentException for an unknown format
+     */
+    public static QueryOutputFormat of(String name) {
+        if (name == null || name.isBlank()) {
+            return JSON;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown format '" + name + "', use json, columnar, csv or tsv.");
+        }
+    }
+
+    /**
+     * Builds the result of one query from its rows.
+     */
+    public interface RowCollector {
+
+        /**
+         * Called once before the first row, also for an empty result.
+         */
+        default void start(ResultSetMetaData metaData) throws SQLException {
+        }
+
+        /**
+         * Add the current row of the result set.
+         */
+        void add(ResultSet rs) throws SQLException;
+
+        /**
+         * Get the number of rows added.
+         */
+        int size();
+
+        /**
+         * Get the result; the collector is not used afterwards.
+         */
+        Object finish();
+    }
+
+    private static final class JsonCollector implements RowCollector {
+
+        private final ColumnMapRowMapper rowMapper = new ColumnMapRowMapper();
+        private final List<Map<String, Object>> rows = new ArrayList<>();
+
+        @Override
+        public void add(ResultSet rs) throws SQLException {
+            rows.add(rowMapper.mapRow(rs, rows.size()));
+        }
+
+        @Override
+        public int size() {
+            return rows.size();
+        }
+
+        @Override
+        public Object finish() {
+            return rows;
+        }
+    }
+
+    private static final class ColumnarCollector implements RowCollector {
+
+        private final List<Object> result = new ArrayList<>();
+        private int columnCount;
+
+        @Override
+        public void start(ResultSetMetaData metaData) throws SQLException {
+            result.add(header(metaData));
+        }
+
+        @Override
+        public void add(ResultSet rs) throws SQLException {
+            Object[] row = new Object[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                row[i] = JdbcUtils.getResultSetValue(rs, i + 1);
+            }
+            result.add(row);
+        }
+
+        private Map<String, Object> header(ResultSetMetaData metaData) throws SQLException {
+            columnCount = metaData.getColumnCount();
+            String[] names = new String[columnCount];
+            String[] types = new String[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                names[i] = JdbcUtils.lookupColumnName(metaData, i + 1);
+                types[i] = metaData.getColumnTypeName(i + 1);
+            }
+            Map<String, Object> header = new LinkedHashMap<>();
+            header.put("columns", names);
+            header.put("types", types);
+            return header;
+        }
+
+        @Override
+        public int size() {
+            return Math.max(0, result.size() - 1);
+        }
+
+        @Override
+        public Object finish() {
+            return result;
+        }
+    }
+
+    private static final class DelimitedCollector implements RowCollector {
+
+        private final char delimiter;
+        private final StringBuilder text = new StringBuilder(1024);
+        private int columnCount;
+        private int rows;
+
+        DelimitedCollector(char delimiter) {
+            this.delimiter = delimiter;
+        }
+
+        @Override
+        public void start(ResultSetMetaData metaData) throws SQLException {
+            columnCount = metaData.getColumnCount();
+            for (int i = 1; i <= columnCount; i++) {
+                appendField(JdbcUtils.lookupColumnName(metaData, i), i);
+            }
+            text.append('\n');
+        }
+
+        @Override
+        public void add(ResultSet rs) throws SQLException {
+            for (int i = 1; i <= columnCount; i++) {
+                appendField(JdbcUtils.getResultSetValue(rs, i), i);
+            }
+            text.append('\n');
+            rows++;
+        }
+
+        private void appendField(Object value, int column) {
+            if (column > 1) {
+                text.append(delimiter);
+            }
+            if (value == null) {
+                // CSV has no null; TSV uses MySQL's \N
+                if (delimiter == '\t') {
+                    text.append("\\N");
+                }
+                return;
+            }
+            String field = value instanceof byte[] bytes ? "<" + bytes.length + " bytes>" : value.toString();
+            if (delimiter == '\t') {
+                appendTsv(field);
+            } else {
+                appendCsv(field);
+            }
+        }
+
+        /**
+         * RFC 4180: quote fields containing the delimiter, quotes or line breaks.
+         */
+        private void appendCsv(String field) {
+            boolean quote = false;
+            for (int i = 0; i < field.length() && !quote; i++) {
+                char c = field.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                text.append(field);
+                return;
+            }
+            text.append('"');
+            for (int i = 0; i < field.length(); i++) {
+                char c = field.charAt(i);
+                if (c == '"') {
+                    text.append('"');
+                }
+                text.append(c);
+            }
+            text.append('"');
+        }
+
+        /**
+         * Backslash escapes, as written by MySQL's SELECT ... INTO OUTFILE.
+         */
+        private void appendTsv(String field) {
+            for (int i = 0; i < field.length(); i++) {
+                char c = field.charAt(i);
+                switch (c) {
+                    case '\t' -> text.append("\\t");
+                    case '\n' -> text.append("\\n");
+                    case '\r' -> text.append("\\r");
+                    case '\\' -> text.append("\\\\");
+                    default -> text.append(c);
+                }
+            }
+        }
+
+        @Override
+        public int size() {
+            return rows;
+        }
+
+        @Override
+        public Object finish() {
+            return text.toString();
+        }
+    }
+}
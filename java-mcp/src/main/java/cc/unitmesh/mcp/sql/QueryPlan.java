@@ -0,0 +1,101 @@
+package cc.unitmesh.mcp.sql;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Summary of a MySQL EXPLAIN: the estimated number of rows examined and one line per
+ * plan step.
+ *
+ * @param rowsExamined estimated rows read over all joins and subqueries, -1 if unknown
+ * @param steps        one readable line per EXPLAIN row
+ * @author AutoDev MCP Team
+ */
+public record QueryPlan(long rowsExamined, List<String> steps) {
+
+    public static final QueryPlan UNKNOWN = new QueryPlan(-1, List.of());
+
+    /**
+     * Build the summary from the rows of a traditional EXPLAIN.
+     *
+     * Rows examined are estimated as for a nested-loop join: within one select, each table is
+     * read once per row that passed the tables before it ({@code rows * filtered%}); the
+     * selects are added up. Output without a {@code rows} column (other databases) is UNKNOWN.
+     */
+    public static QueryPlan fromExplain(List<Map<String, Object>> explain) {
+        if (explain.isEmpty() || !explain.get(0).containsKey("rows")) {
+            return UNKNOWN;
+        }
+        double total = 0;
+        double fanout = 1;
+        Object currentId = null;
+        List<String> steps = new ArrayList<>(explain.size());
+        for (Map<String, Object> row : explain) {
+            Object id = row.get("id");
+            if (currentId == null || !currentId.equals(id)) {
+                currentId = id;
+                fanout = 1;
+            }
+            double rows = number(row.get("rows"), 1);
+            double filtered = number(row.get("filtered"), 100) / 100.0;
+            total += fanout * rows;
+            fanout *= Math.max(1, rows * filtered);
+            steps.add(step(row));
+        }
+        return new QueryPlan(total >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) total, List.copyOf(steps));
+    }
+
+    /**
+     * Whether the plan reads a whole table or index.
+     */
+    public boolean hasFullScan() {
+        return steps.stream().anyMatch(step -> step.contains("type=ALL") || step.contains("type=index"));
+    }
+
+    /**
+     * Plan as text for the agent, one step per line.
+     */
+    public String summary() {
+        if (rowsExamined < 0) {
+            return "no plan estimate available";
+        }
+        return "estimated rows examined: " + rowsExamined + "\n" + String.join("\n", steps);
+    }
+
+    private static String step(Map<String, Object> row) {
+        StringBuilder step = new StringBuilder();
+        step.append(row.get("select_type")).append(' ')
+            .append("table=").append(valueOr(row.get("table"), "-"))
+            .append(" type=").append(valueOr(row.get("type"), "-"))
+            .append(" key=").append(valueOr(row.get("key"), "none"))
+            .append(" rows=").append(valueOr(row.get("rows"), "?"));
+        Object filtered = row.get("filtered");
+        if (filtered != null) {
+            step.append(" filtered=").append(filtered).append('%');
+        }
+        Object extra = row.get("Extra");
+        if (extra != null) {
+            step.append(" (").append(extra).append(')');
+        }
+        return step.toString();
+    }
+
+    private static Object valueOr(Object value, String fallback) {
+        return value != null ? value : fallback;
+    }
+
+    private static double number(Object value, double fallback) {
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        if (value != null) {
+            try {
+                return Double.parseDouble(value.toString());
+            } catch (NumberFormatException e) {
+                return fallback;
+            }
+        }
+        return fallback;
+    }
+}
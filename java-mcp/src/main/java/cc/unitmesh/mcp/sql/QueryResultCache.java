@@ -0,0 +1,232 @@
+package cc.unitmesh.mcp.sql;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Cache of query_sql results, keyed by the normalized query and invalidated per table.
+ *
+ * Each entry remembers the tables its query reads. When one of them changes, as reported by
+ * TableChangePoller or an explicit {@link #invalidate(String)}, every entry reading it is
+ * dropped. The TTL bounds staleness for changes that are never reported. A query that was
+ * already running when one of its tables changed is not cached, since it may have read the
+ * old data.
+ *
+ * Changes are seen on the primary, but results are read from replicas that may be up to
+ * {@code mcp.datasource.max-lag-seconds} behind it. A query started within that lag of a
+ * change to one of its tables may have read the old data from a replica, so it is not cached
+ * either; the next call reads again instead of keeping the old result for the whole TTL.
+ *
+ * @author AutoDev MCP Team
+ */
+@Component
+@Lazy
+public class QueryResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryResultCache.class);
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final long replicaLagNanos;
+    private final Map<String, Entry> entries;
+    private final AtomicLong invalidationClock = new AtomicLong();
+    private final Map<String, Long> tableInvalidatedAt = new ConcurrentHashMap<>();
+    private volatile long allInvalidatedAt;
+    private final Map<String, Long> tableChangedAtNanos = new ConcurrentHashMap<>();
+    private volatile Long allChangedAtNanos;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private record Entry(Object result, Set<String> tables, long expiresAtNanos) {
+    }
+
+    public QueryResultCache(@Value("${mcp.sql.result-cache.enabled:true}") boolean enabled,
+                            @Value("${mcp.sql.result-cache.max-entries:256}") int maxEntries,
+                            @Value("${mcp.sql.result-cache.ttl-seconds:300}") long ttlSeconds,
+                            @Value("${mcp.sql.result-cache.replica-lag-seconds:${mcp.datasource.max-lag-seconds:10}}") long replicaLagSeconds) {
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.replicaLagNanos = TimeUnit.SECONDS.toNanos(replicaLagSeconds);
+        this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > QueryResultCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Return the cached result of the query in the given variant (e.g. output format), or run it
+     * and cache the result. Queries that are not cacheable always run. Cached results are shared
+     * between calls, so they must not be modified.
+     */
+    public <T> T get(SqlQueryParser.ParsedQuery query, String variant, Supplier<T> loader) {
+        return get(query, variant, loader, result -> true);
+    }
+
+    /**
+     * Like {@link #get(SqlQueryParser.ParsedQuery, String, Supplier)}, but a result is only cached
+     * if it is complete, as decided after the loader ran, e.g. not when it was cut short.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(SqlQueryParser.ParsedQuery query, String variant, Supplier<T> loader,
+                     Predicate<? super T> complete) {
+        if (!enabled || !query.isCacheable()) {
+            return loader.get();
+        }
+        String key = variant + ':' + query.cacheKey();
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (now - entry.expiresAtNanos() < 0) {
+                    hits.incrementAndGet();
+                    return (T) entry.result();
+                }
+                entries.remove(key);
+            }
+        }
+        misses.incrementAndGet();
+        long ticket = invalidationClock.get();
+        long startedAt = System.nanoTime();
+        T result = loader.get();
+        if (complete.test(result) && !invalidatedSince(query.tables(), ticket)
+                && !changedWithinReplicaLag(query.tables(), startedAt)) {
+            synchronized (entries) {
+                entries.put(key, new Entry(result, query.tables(), System.nanoTime() + ttlNanos));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drop every cached result that reads the given table.
+     */
+    public int invalidate(String table) {
+        String name = normalize(table);
+        tableChangedAtNanos.put(name, System.nanoTime());
+        tableInvalidatedAt.put(name, invalidationClock.incrementAndGet());
+        int removed = 0;
+        synchronized (entries) {
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().tables().contains(name)) {
+                    iterator.remove();
+                    removed++;
+                }
+            }
+        }
+        invalidations.addAndGet(removed);
+        if (removed > 0) {
+            logger.debug("Table {} changed, dropped {} cached query results", name, removed);
+        }
+        return removed;
+    }
+
+    /**
+     * Drop every cached result that reads one of the given tables.
+     */
+    public int invalidateAll(Collection<String> tables) {
+        int removed = 0;
+        for (String table : tables) {
+            removed += invalidate(table);
+        }
+        return removed;
+    }
+
+    /**
+     * Drop all cached results.
+     */
+    public int clear() {
+        allChangedAtNanos = System.nanoTime();
+        allInvalidatedAt = invalidationClock.incrementAndGet();
+        int removed;
+        synchronized (entries) {
+            removed = entries.size();
+            entries.clear();
+        }
+        invalidations.addAndGet(removed);
+        return removed;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    private boolean invalidatedSince(Set<String> tables, long ticket) {
+        if (allInvalidatedAt > ticket) {
+            return true;
+        }
+        for (String table : tables) {
+            Long invalidatedAt = tableInvalidatedAt.get(table);
+            if (invalidatedAt != null && invalidatedAt > ticket) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether one of the tables changed so shortly before the query started that a lagging
+     * replica may not have had the change yet.
+     */
+    private boolean changedWithinReplicaLag(Set<String> tables, long startedAt) {
+        if (replicaLagNanos <= 0) {
+            return false;
+        }
+        Long allChangedAt = allChangedAtNanos;
+        if (allChangedAt != null && startedAt - allChangedAt < replicaLagNanos) {
+            return true;
+        }
+        for (String table : tables) {
+            Long changedAt = tableChangedAtNanos.get(table);
+            if (changedAt != null && startedAt - changedAt < replicaLagNanos) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String normalize(String table) {
+        String name = table.trim().replace("`", "").replace("\"", "").toLowerCase(Locale.ROOT);
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 ? name.substring(dot + 1) : name;
+    }
+}
@@ -0,0 +1,261 @@
+package cc.unitmesh.mcp.sql;
+
+import cc.unitmesh.mcp.core.MCPCancellation;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.select.AllColumns;
+import net.sf.jsqlparser.statement.select.AllTableColumns;
+import net.sf.jsqlparser.statement.select.FromItem;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.SelectItem;
+import net.sf.jsqlparser.util.TablesNamesFinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Approximate answers for query_sql: runs a single-table query over a bounded random sample
+ * of the table instead of the whole table, and scales COUNT and SUM results to the estimated
+ * table size from {@link TableStatistics}.
+ *
+ * MySQL has no TABLESAMPLE, so the sample is a number of blocks of consecutive rows starting
+ * at random values of the integer primary key. Each block is an index range read, so the cost
+ * is bounded by the sample size whatever the table size. Blocks that overlap are merged with
+ * UNION, so no row is counted twice. The sample is not uniform: rows right after a gap in the
+ * key values start a block more often, and rows of one block are neighbours that tend to be
+ * alike; the result header says so. Tables without such a key are sampled from their first
+ * rows, which is cheap but not random.
+ *
+ * Sampled queries skip the EXPLAIN check of QueryCostGuard, so only queries whose cost is
+ * bounded by the sample are accepted: a subquery, in WHERE or anywhere else, would still read
+ * its own table in full.
+ *
+ * @author AutoDev MCP Team
+ */
+@Component
+@Lazy
+public class QuerySampler {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TableStatistics tableStatistics;
+    private final int maxSampleRows;
+    private final int blocks;
+
+    public QuerySampler(JdbcTemplate jdbcTemplate, TableStatistics tableStatistics,
+                        @Value("${mcp.sql.sample.max-rows:100000}") int maxSampleRows,
+                        @Value("${mcp.sql.sample.blocks:20}") int blocks) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tableStatistics = tableStatistics;
+        this.maxSampleRows = maxSampleRows;
+        this.blocks = Math.max(1, blocks);
+    }
+
+    /**
+     * Run the query over a sample of about the given number of rows.
+     *
+     * @return a header with the sample size, the estimated table size and the scaled columns,
+     * followed by one object per result row
+     * @throws IllegalArgumentException if the query does not read exactly one table
+     */
+    public List<Object> sample(SqlQueryParser.ParsedQuery query, int sampleRows, MCPCancellation cancellation) {
+        PlainSelect select = singleTableSelect(query);
+        Table table = (Table) select.getFromItem();
+        String tableName = unquote(table.getName());
+        String source = table.getFullyQualifiedName();
+        int rows = Math.max(1, Math.min(sampleRows, maxSampleRows));
+
+        TableStatistics.SamplingKey key = tableStatistics.samplingKey(tableName);
+        String sampleSql;
+        String method;
+        String bias = null;
+        if (key != null) {
+            String column = quote(key.column());
+            Map<String, Object> range = jdbcTemplate.queryForMap(
+                    "SELECT MIN(" + column + ") AS lo, MAX(" + column + ") AS hi FROM " + source);
+            long lo = range.get("lo") instanceof Number n ? n.longValue() : 0;
+            long hi = range.get("hi") instanceof Number n ? n.longValue() : 0;
+            if (hi - lo < rows) {
+                sampleSql = "SELECT * FROM " + source;
+                method = "whole table (smaller than the sample)";
+            } else {
+                int blockCount = Math.min(blocks, rows);
+                int blockRows = (rows + blockCount - 1) / blockCount;
+                sampleSql = blockSample(source, column, lo, hi, blockCount, blockRows);
+                method = blockCount + " blocks of " + blockRows + " rows at random values of " + key.column();
+                bias = "Rows after gaps in " + key.column() + " values are more likely to be sampled, and rows of "
+                    + "one block are neighbours, so values that cluster by key are over- or under-represented.";
+            }
+        } else {
+            sampleSql = "SELECT * FROM " + source + " LIMIT " + rows;
+            method = "first " + rows + " rows (no single integer primary key, so not random)";
+        }
+        cancellation.throwIfCancelled();
+
+        Long sampled = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM (" + sampleSql + ") sample_rows", Long.class);
+        long sampledRows = sampled != null ? sampled : 0;
+        long estimatedRows = key != null ? key.estimatedRows() : tableStatistics.estimatedRows(tableName);
+        // The statistics lag behind small or freshly loaded tables
+        long tableRows = Math.max(estimatedRows, sampledRows);
+        double scale = sampledRows > 0 ? tableRows / (double) sampledRows : 1.0;
+        cancellation.throwIfCancelled();
+
+        List<Integer> scaledColumns = scaledColumns(select);
+        select.setFromItem(derivedTable(sampleSql, table));
+        List<Map<String, Object>> result = jdbcTemplate.queryForList(select.toString());
+
+        List<String> scaledNames = new ArrayList<>();
+        List<Object> output = new ArrayList<>(result.size() + 1);
+        Map<String, Object> header = new LinkedHashMap<>();
+        header.put("sample", method);
+        header.put("rowsSampled", sampledRows);
+        header.put("estimatedTableRows", tableRows);
+        header.put("scaleFactor", Math.round(scale * 1000) / 1000.0);
+        header.put("scaledColumns", scaledNames);
+        header.put("note", "Approximate: COUNT and SUM columns are scaled to the whole table, other values come from the sample only.");
+        if (bias != null) {
+            header.put("bias", bias);
+        }
+        output.add(header);
+        for (Map<String, Object> row : result) {
+            Map<String, Object> scaled = new LinkedHashMap<>();
+            int index = 0;
+            for (Map.Entry<String, Object> column : row.entrySet()) {
+                boolean scaledColumn = scaledColumns.contains(index++);
+                if (scaledColumn && output.size() == 1) {
+                    scaledNames.add(column.getKey());
+                }
+                scaled.put(column.getKey(), scaledColumn ? scale(column.getValue(), scale) : column.getValue());
+            }
+            output.add(scaled);
+        }
+        return output;
+    }
+
+    private static PlainSelect singleTableSelect(SqlQueryParser.ParsedQuery query) {
+        try {
+            if (CCJSqlParserUtil.parse(query.boundedSql()) instanceof PlainSelect select
+                    && select.getFromItem() instanceof Table table
+                    && (select.getJoins() == null || select.getJoins().isEmpty())
+                    && table.getSchemaName() == null) {
+                if (new SelectCounter().count(select) > 1) {
+                    throw new IllegalArgumentException("Sampling does not support subqueries or WITH: they would "
+                        + "read their tables in full. Run the query without sampleRows to have its cost checked.");
+                }
+                return select;
+            }
+        } catch (JSQLParserException e) {
+            // Parsed before, so this does not happen
+        }
+        throw new IllegalArgumentException("Sampling only supports a SELECT from one table of the current database, without joins or UNION.");
+    }
+
+    /**
+     * Counts the SELECTs of a query at any depth: in WITH, in expressions and in derived tables.
+     */
+    private static final class SelectCounter extends TablesNamesFinder<Void> {
+
+        private int selects;
+
+        int count(PlainSelect select) {
+            getTables((Statement) select);
+            return selects;
+        }
+
+        @Override
+        public <S> Void visit(PlainSelect plainSelect, S context) {
+            selects++;
+            return super.visit(plainSelect, context);
+        }
+    }
+
+    /**
+     * Get the positions of the COUNT and SUM columns, none if a * makes positions unknown.
+     * COUNT(DISTINCT ...) does not grow linearly with the table, so it is not scaled.
+     */
+    private static List<Integer> scaledColumns(PlainSelect select) {
+        List<Integer> positions = new ArrayList<>();
+        List<SelectItem<?>> items = select.getSelectItems();
+        for (int i = 0; i < items.size(); i++) {
+            Expression expression = items.get(i).getExpression();
+            if (expression instanceof AllColumns || expression instanceof AllTableColumns) {
+                return List.of();
+            }
+            if (expression instanceof Function function && !function.isDistinct()
+                    && function.getName() != null
+                    && Arrays.asList("COUNT", "SUM").contains(function.getName().toUpperCase(Locale.ROOT))) {
+                positions.add(i);
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Blocks are joined with UNION rather than UNION ALL: blocks starting less than blockRows
+     * apart overlap, and their common rows, which include the key, must be sampled once.
+     */
+    private static String blockSample(String source, String column, long lo, long hi, int blockCount, int blockRows) {
+        long[] starts = new long[blockCount];
+        for (int i = 0; i < blockCount; i++) {
+            starts[i] = ThreadLocalRandom.current().nextLong(lo, hi + 1);
+        }
+        Arrays.sort(starts);
+        StringBuilder sql = new StringBuilder();
+        for (long start : starts) {
+            if (!sql.isEmpty()) {
+                sql.append(" UNION ");
+            }
+            sql.append("(SELECT * FROM ").append(source)
+                .append(" WHERE ").append(column).append(" >= ").append(start)
+                .append(" ORDER BY ").append(column).append(" LIMIT ").append(blockRows).append(')');
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Wrap the sample in a derived table named like the original table, so the query's column
+     * references still resolve.
+     */
+    private static FromItem derivedTable(String sampleSql, Table table) {
+        String alias = table.getAlias() != null ? table.getAlias().getName() : table.getName();
+        try {
+            PlainSelect wrapper = (PlainSelect) CCJSqlParserUtil.parse("SELECT * FROM (" + sampleSql + ") " + alias);
+            return wrapper.getFromItem();
+        } catch (JSQLParserException e) {
+            throw new IllegalStateException("Cannot build the sample of " + table.getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static Object scale(Object value, double factor) {
+        if (value instanceof Long || value instanceof Integer || value instanceof BigInteger
+                || value instanceof BigDecimal decimal && decimal.scale() <= 0) {
+            return Math.round(((Number) value).doubleValue() * factor);
+        }
+        if (value instanceof Number number) {
+            return number.doubleValue() * factor;
+        }
+        return value;
+    }
+
+    private static String unquote(String name) {
+        return name.replace("`", "").replace("\"", "");
+    }
+
+    private static String quote(String column) {
+        return "`" + column.replace("`", "``") + "`";
+    }
+}
@@ -0,0 +1,303 @@
+package cc.unitmesh.mcp.sql;
+
+import org.springframework.jdbc.support.JdbcUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rows of one query result spooled to a binary temp file, readable in pages while and after
+ * they are written.
+ *
+ * Every value is a type tag followed by a compact encoding (zigzag varints for integers,
+ * length-prefixed UTF-8 for text), so the file is usually smaller than the JSON it replaces.
+ * The writer publishes rows in batches; readers memory-map the published part of the file and
+ * seek through a sparse index holding the offset of every {@value #INDEX_EVERY}th row, so
+ * neither side keeps rows on the heap.
+ *
+ * @author AutoDev MCP Team
+ */
+public class ResultSpool {
+
+    public enum State { RUNNING, DONE, TRUNCATED, FAILED, CANCELLED }
+
+    static final int INDEX_EVERY = 256;
+
+    private static final int FLUSH_AT = 60 * 1024;
+
+    private static final byte NULL = 0;
+    private static final byte INTEGER = 1;
+    private static final byte REAL = 2;
+    private static final byte TEXT = 3;
+    private static final byte BINARY = 4;
+    private static final byte TRUE = 5;
+    private static final byte FALSE = 6;
+
+    private final String id;
+    private final String sql;
+    private final Path file;
+    private final long maxRows;
+    private final long maxBytes;
+    private final FileChannel readChannel;
+    private final long[][] indexChunks = new long[1024][];
+
+    private volatile String[] columns = new String[0];
+    private volatile String[] types = new String[0];
+    private volatile State state = State.RUNNING;
+    private volatile String error;
+    private volatile long committedRows;
+    private volatile long committedBytes;
+    private volatile long lastAccessNanos = System.nanoTime();
+
+    ResultSpool(String id, String sql, Path file, long maxRows, long maxBytes) throws IOException {
+        this.id = id;
+        this.sql = sql;
+        this.file = file;
+        this.maxRows = maxRows;
+        this.maxBytes = maxBytes;
+        Files.createFile(file);
+        this.readChannel = FileChannel.open(file, StandardOpenOption.READ);
+    }
+
+    /**
+     * Write all rows of the result set, publishing them in batches. Called once, by the
+     * spooling thread.
+     *
+     * @return null if every row was written, otherwise the limit that stopped it early; the row
+     * limit only counts as reached if the result set holds another row
+     */
+    String write(ResultSet rs, Runnable checkCancelled) throws SQLException, IOException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        String[] names = new String[columnCount];
+        String[] typeNames = new String[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            names[i] = JdbcUtils.lookupColumnName(metaData, i + 1);
+            typeNames[i] = metaData.getColumnTypeName(i + 1);
+        }
+        this.columns = names;
+        this.types = typeNames;
+
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long rows = 0;
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            while (rs.next()) {
+                checkCancelled.run();
+                if (rows == maxRows) {
+                    flush(out, buffer, rows);
+                    return "row limit of " + maxRows + " rows reached";
+                }
+                if (rows % INDEX_EVERY == 0) {
+                    setIndex(rows / INDEX_EVERY, out.position() + buffer.position());
+                }
+                for (int i = 1; i <= columnCount; i++) {
+                    buffer = encode(buffer, JdbcUtils.getResultSetValue(rs, i));
+                }
+                rows++;
+                if (buffer.position() >= FLUSH_AT) {
+                    flush(out, buffer, rows);
+                    if (committedBytes >= maxBytes) {
+                        return "size limit of " + maxBytes + " bytes reached";
+                    }
+                }
+            }
+            flush(out, buffer, rows);
+            return null;
+        }
+    }
+
+    private void flush(FileChannel out, ByteBuffer buffer, long rows) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+        // Bytes first: a reader that sees the new row count must find the rows in the file
+        committedBytes = out.position();
+        committedRows = rows;
+    }
+
+    /**
+     * Read up to {@code limit} rows starting at row {@code offset}, from the rows written so far.
+     */
+    List<Object[]> readPage(long offset, int limit) throws IOException {
+        lastAccessNanos = System.nanoTime();
+        long rows = committedRows;
+        long bytes = committedBytes;
+        List<Object[]> page = new ArrayList<>();
+        if (offset >= rows || limit <= 0) {
+            return page;
+        }
+        long start = getIndex(offset / INDEX_EVERY);
+        long length = Math.min(bytes - start, Integer.MAX_VALUE);
+        MappedByteBuffer mapped = readChannel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        int columnCount = columns.length;
+        for (long skip = offset % INDEX_EVERY; skip > 0; skip--) {
+            for (int i = 0; i < columnCount; i++) {
+                skipValue(mapped);
+            }
+        }
+        long end = Math.min(rows, offset + limit);
+        for (long row = offset; row < end && mapped.hasRemaining(); row++) {
+            Object[] values = new Object[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                values[i] = decode(mapped);
+            }
+            page.add(values);
+        }
+        return page;
+    }
+
+    private static ByteBuffer encode(ByteBuffer buffer, Object value) {
+        if (value == null) {
+            return ensure(buffer, 1).put(NULL);
+        }
+        if (value instanceof Boolean bool) {
+            return ensure(buffer, 1).put(bool ? TRUE : FALSE);
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            ByteBuffer target = ensure(buffer, 11).put(INTEGER);
+            writeVarLong(target, zigzag(((Number) value).longValue()));
+            return target;
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return ensure(buffer, 9).put(REAL).putDouble(((Number) value).doubleValue());
+        }
+        if (value instanceof byte[] bytes) {
+            ByteBuffer target = ensure(buffer, 6).put(BINARY);
+            writeVarLong(target, bytes.length);
+            return target;
+        }
+        String text = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer target = ensure(buffer, 6 + utf8.length).put(TEXT);
+        writeVarLong(target, utf8.length);
+        return target.put(utf8);
+    }
+
+    private static Object decode(ByteBuffer in) {
+        byte tag = in.get();
+        return switch (tag) {
+            case NULL -> null;
+            case TRUE -> Boolean.TRUE;
+            case FALSE -> Boolean.FALSE;
+            case INTEGER -> unzigzag(readVarLong(in));
+            case REAL -> in.getDouble();
+            case BINARY -> "<" + readVarLong(in) + " bytes>";
+            case TEXT -> {
+                byte[] utf8 = new byte[(int) readVarLong(in)];
+                in.get(utf8);
+                yield new String(utf8, StandardCharsets.UTF_8);
+            }
+            default -> throw new IllegalStateException("Corrupt spool file, unknown tag " + tag);
+        };
+    }
+
+    private static void skipValue(ByteBuffer in) {
+        byte tag = in.get();
+        switch (tag) {
+            case INTEGER, BINARY -> readVarLong(in);
+            case REAL -> in.position(in.position() + 8);
+            case TEXT -> {
+                int length = (int) readVarLong(in);
+                in.position(in.position() + length);
+            }
+            default -> {
+                // NULL, TRUE and FALSE are the tag only
+            }
+        }
+    }
+
+    private static ByteBuffer ensure(ByteBuffer buffer, int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return buffer;
+        }
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+        buffer.flip();
+        return larger.put(buffer);
+    }
+
+    private static void writeVarLong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private synchronized void setIndex(long entry, long offset) {
+        int chunk = (int) (entry / 1024);
+        if (chunk >= indexChunks.length) {
+            throw new IllegalStateException("Spool index full");
+        }
+        if (indexChunks[chunk] == null) {
+            indexChunks[chunk] = new long[1024];
+        }
+        indexChunks[chunk][(int) (entry % 1024)] = offset;
+    }
+
+    private synchronized long getIndex(long entry) {
+        return indexChunks[(int) (entry / 1024)][(int) (entry % 1024)];
+    }
+
+    /**
+     * @param reason why the spool failed, was cancelled or truncated, or null
+     */
+    void finish(State finalState, String reason) {
+        this.error = reason;
+        this.state = finalState;
+    }
+
+    /**
+     * Close the file and delete it.
+     */
+    void delete() {
+        try {
+            readChannel.close();
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Temp directory cleanup will get it
+        }
+    }
+
+    public String getId() { return id; }
+    public String getSql() { return sql; }
+    public State getState() { return state; }
+    public String getError() { return error; }
+    public long getRowCount() { return committedRows; }
+    public long getSizeBytes() { return committedBytes; }
+    public String[] getColumns() { return columns; }
+    public String[] getTypes() { return types; }
+    public long getLastAccessNanos() { return lastAccessNanos; }
+}
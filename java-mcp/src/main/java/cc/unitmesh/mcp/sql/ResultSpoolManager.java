@@ -0,0 +1,233 @@
+package cc.unitmesh.mcp.sql;
+
+import cc.unitmesh.mcp.core.MCPInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs large queries in the background, spooling their rows to disk so agents can page
+ * through results that would never fit in one tool response.
+ *
+ * A fixed number of spooling threads bounds how many large queries hit the database at once;
+ * further queries wait their turn. Each spool holds a database connection only while its
+ * query runs, and is deleted when released or after being idle for the TTL.
+ *
+ * @author AutoDev MCP Team
+ */
+@Component
+public class ResultSpoolManager implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResultSpoolManager.class);
+
+    /**
+     * Runs the query and hands its result set to the spool, on the spooling thread.
+     */
+    @FunctionalInterface
+    public interface SpoolQuery {
+        void run(MCPInvocation cancellation, ResultSetConsumer consumer);
+    }
+
+    /**
+     * Consumes the result set of a spooled query.
+     */
+    @FunctionalInterface
+    public interface ResultSetConsumer {
+        void accept(ResultSet rs) throws SQLException;
+    }
+
+    private final Path directory;
+    private final int maxSpools;
+    private final long maxBytes;
+    private final long ttlNanos;
+    private final ExecutorService spoolers;
+    private final Map<String, Entry> spools = new ConcurrentHashMap<>();
+
+    private volatile ScheduledExecutorService cleaner;
+
+    private record Entry(ResultSpool spool, MCPInvocation cancellation, Future<?> task) {
+    }
+
+    public ResultSpoolManager(@Value("${mcp.sql.spool.directory:${java.io.tmpdir}/mcp-spool}") String directory,
+                              @Value("${mcp.sql.spool.threads:2}") int threads,
+                              @Value("${mcp.sql.spool.max-spools:16}") int maxSpools,
+                              @Value("${mcp.sql.spool.max-size-mb:1024}") long maxSizeMb,
+                              @Value("${mcp.sql.spool.ttl-minutes:30}") long ttlMinutes) {
+        this.directory = Path.of(directory);
+        this.maxSpools = maxSpools;
+        this.maxBytes = maxSizeMb * 1024 * 1024;
+        this.ttlNanos = TimeUnit.MINUTES.toNanos(ttlMinutes);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.spoolers = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "mcp-spool-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start spooling a query and return its spool right away.
+     *
+     * @param maxRows rows to spool at most; the query should return one more row if the result
+     *                is larger, so the spool can tell it was cut off
+     * @throws IllegalStateException if too many spools exist
+     */
+    public ResultSpool start(String sql, long maxRows, SpoolQuery query) throws IOException {
+        if (spools.size() >= maxSpools) {
+            throw new IllegalStateException("Too many spooled results (" + maxSpools
+                + "); release one with release_spooled_result first.");
+        }
+        Files.createDirectories(directory);
+        String id = UUID.randomUUID().toString();
+        ResultSpool spool = new ResultSpool(id, sql, directory.resolve(id + ".spool"), maxRows, maxBytes);
+        MCPInvocation cancellation = new MCPInvocation(0, "spool " + id, id);
+        Future<?> task = spoolers.submit(() -> spool(spool, cancellation, query));
+        spools.put(id, new Entry(spool, cancellation, task));
+        logger.info("Spooling query {} to {}", id, directory);
+        return spool;
+    }
+
+    private void spool(ResultSpool spool, MCPInvocation cancellation, SpoolQuery query) {
+        try {
+            String[] truncation = {null};
+            query.run(cancellation, rs -> {
+                try {
+                    truncation[0] = spool.write(rs, cancellation::throwIfCancelled);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Cannot write spool file: " + e.getMessage(), e);
+                }
+            });
+            spool.finish(truncation[0] == null ? ResultSpool.State.DONE : ResultSpool.State.TRUNCATED, truncation[0]);
+            logger.info("Spooled {} rows ({} bytes) for query {}", spool.getRowCount(), spool.getSizeBytes(), spool.getId());
+        } catch (RuntimeException e) {
+            if (cancellation.isCancelled()) {
+                spool.finish(ResultSpool.State.CANCELLED, cancellation.getCancelReason());
+            } else {
+                logger.warn("Spooling query {} failed: {}", spool.getId(), e.getMessage());
+                spool.finish(ResultSpool.State.FAILED, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Get a spool by id.
+     *
+     * @throws IllegalArgumentException if there is no such spool
+     */
+    public ResultSpool get(String id) {
+        Entry entry = spools.get(id);
+        if (entry == null) {
+            throw new IllegalArgumentException("No spooled result '" + id + "'; it may have expired.");
+        }
+        return entry.spool();
+    }
+
+    /**
+     * Read a page of a spool as a header followed by one array per row.
+     */
+    public List<Object> page(String id, long offset, int limit) throws IOException {
+        ResultSpool spool = get(id);
+        List<Object[]> rows = spool.readPage(Math.max(0, offset), limit);
+        List<Object> page = new ArrayList<>(rows.size() + 1);
+        page.add(describe(spool, offset, rows.size()));
+        page.addAll(rows);
+        return page;
+    }
+
+    /**
+     * Describe a spool for the agent.
+     */
+    public Map<String, Object> describe(ResultSpool spool, long offset, int pageRows) {
+        Map<String, Object> header = new LinkedHashMap<>();
+        header.put("handle", spool.getId());
+        header.put("state", spool.getState().name());
+        header.put("rowsSpooled", spool.getRowCount());
+        if (pageRows >= 0) {
+            header.put("offset", offset);
+            header.put("rows", pageRows);
+        }
+        header.put("columns", spool.getColumns());
+        header.put("types", spool.getTypes());
+        if (spool.getError() != null) {
+            header.put(spool.getState() == ResultSpool.State.TRUNCATED ? "truncated" : "error", spool.getError());
+        }
+        return header;
+    }
+
+    /**
+     * Cancel the query if it still runs and delete the spool. Returns false if there is no such spool.
+     */
+    public boolean release(String id) {
+        Entry entry = spools.remove(id);
+        if (entry == null) {
+            return false;
+        }
+        if (entry.spool().getState() == ResultSpool.State.RUNNING) {
+            entry.cancellation().cancel("spooled result released");
+            entry.task().cancel(true);
+        }
+        entry.spool().delete();
+        return true;
+    }
+
+    @Override
+    public void start() {
+        ScheduledExecutorService started = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mcp-spool-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        started.scheduleWithFixedDelay(this::expireIdle, 1, 1, TimeUnit.MINUTES);
+        this.cleaner = started;
+    }
+
+    @Override
+    public void stop() {
+        ScheduledExecutorService current = this.cleaner;
+        if (current != null) {
+            this.cleaner = null;
+            current.shutdownNow();
+        }
+        for (String id : new ArrayList<>(spools.keySet())) {
+            release(id);
+        }
+        spoolers.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return cleaner != null;
+    }
+
+    private void expireIdle() {
+        long now = System.nanoTime();
+        for (Entry entry : spools.values()) {
+            ResultSpool spool = entry.spool();
+            if (spool.getState() != ResultSpool.State.RUNNING && now - spool.getLastAccessNanos() > ttlNanos) {
+                logger.info("Deleting spooled result {} after {} idle minutes", spool.getId(),
+                    TimeUnit.NANOSECONDS.toMinutes(ttlNanos));
+                release(spool.getId());
+            }
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package cc.unitmesh.mcp.sql;
+
+import cc.unitmesh.mcp.core.MCPCancellation;
+import cc.unitmesh.mcp.core.MCPProgressReporter;
+import cc.unitmesh.mcp.datasource.ShardRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.StatementCallback;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Scatter-gather reads: runs one query on several shards in parallel and merges the rows as
+ * described by a {@link ShardQueryPlan}.
+ *
+ * Every shard has its own deadline. A shard that misses it has its statement cancelled and is
+ * reported in the result header, together with shards that failed, and the merged result of
+ * the others is returned, marked partial.
+ *
+ * @author AutoDev MCP Team
+ */
+@Component
+@Lazy
+public class ShardQueryExecutor implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardQueryExecutor.class);
+
+    /**
+     * Column added to every row, naming the shard it came from.
+     */
+    public static final String SHARD_COLUMN = "_shard";
+
+    private final ShardRegistry shards;
+    private final long timeoutMs;
+    private final ExecutorService pool;
+
+    private record ShardResult(String shard, List<Map<String, Object>> rows, String status, long millis) {
+    }
+
+    public ShardQueryExecutor(ShardRegistry shards,
+                              @Value("${mcp.datasource.shard-timeout-ms:10000}") long timeoutMs,
+                              @Value("${mcp.datasource.shard-threads:16}") int threads) {
+        this.shards = shards;
+        this.timeoutMs = timeoutMs;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "mcp-shard-query-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Run the plan on the given shards and merge the results.
+     *
+     * @return a header with the status, row count and time of every shard, followed by one
+     * object per merged row
+     */
+    public List<Object> gather(ShardQueryPlan plan, List<String> shardNames, MCPProgressReporter progress,
+                               MCPCancellation cancellation) {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        List<AtomicReference<Statement>> statements = new ArrayList<>();
+        List<Future<ShardResult>> futures = new ArrayList<>();
+        for (String shard : shardNames) {
+            AtomicReference<Statement> statement = new AtomicReference<>();
+            statements.add(statement);
+            futures.add(pool.submit(() -> query(shard, plan, statement)));
+        }
+
+        List<ShardResult> results = new ArrayList<>();
+        try (MCPCancellation.Registration ignored = cancellation.onCancel(() -> statements.forEach(ShardQueryExecutor::cancel))) {
+            for (int i = 0; i < futures.size(); i++) {
+                String shard = shardNames.get(i);
+                results.add(await(shard, futures.get(i), statements.get(i), start, deadline, cancellation));
+                progress.progress(i + 1, futures.size(), shard + ": " + results.get(i).status());
+            }
+        }
+
+        boolean partial = results.stream().anyMatch(result -> !"ok".equals(result.status()));
+        List<Map<String, Object>> merged = merge(plan, results);
+
+        Map<String, Object> header = new LinkedHashMap<>();
+        Map<String, Object> shardStats = new LinkedHashMap<>();
+        for (ShardResult result : results) {
+            shardStats.put(result.shard(), Map.of("status", result.status(), "rows", result.rows().size(), "millis", result.millis()));
+        }
+        header.put("shards", shardStats);
+        header.put("rows", merged.size());
+        header.put("ordered", !plan.sortKeys().isEmpty());
+        header.put("partial", partial);
+        List<Object> output = new ArrayList<>(merged.size() + 1);
+        output.add(header);
+        output.addAll(merged);
+        return output;
+    }
+
+    private ShardResult query(String shard, ShardQueryPlan plan, AtomicReference<Statement> statement) {
+        long start = System.nanoTime();
+        List<Map<String, Object>> rows = shards.getJdbcTemplate(shard).execute((StatementCallback<List<Map<String, Object>>>) stmt -> {
+            statement.set(stmt);
+            // The database enforces the deadline too, in case the cancel does not get through
+            stmt.setQueryTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(timeoutMs + 999)));
+            if (plan.offset() + plan.limit() <= Integer.MAX_VALUE) {
+                stmt.setMaxRows((int) (plan.offset() + plan.limit()));
+            }
+            ColumnMapRowMapper rowMapper = new ColumnMapRowMapper();
+            List<Map<String, Object>> shardRows = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery(plan.shardSql())) {
+                while (rs.next()) {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put(SHARD_COLUMN, shard);
+                    row.putAll(rowMapper.mapRow(rs, shardRows.size()));
+                    shardRows.add(row);
+                }
+            }
+            return shardRows;
+        });
+        return new ShardResult(shard, rows, "ok", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private ShardResult await(String shard, Future<ShardResult> future, AtomicReference<Statement> statement,
+                              long start, long deadline, MCPCancellation cancellation) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            cancel(statement);
+            future.cancel(true);
+            logger.warn("Shard {} timed out after {} ms", shard, timeoutMs);
+            return new ShardResult(shard, List.of(), "timeout", timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for shard " + shard);
+        } catch (ExecutionException e) {
+            cancellation.throwIfCancelled();
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            logger.warn("Shard {} failed: {}", shard, cause.getMessage());
+            return new ShardResult(shard, List.of(), "error: " + cause.getMessage(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * K-way merge of the shard results, which each database already sorted, then offset and limit.
+     */
+    private static List<Map<String, Object>> merge(ShardQueryPlan plan, List<ShardResult> results) {
+        List<Map<String, Object>> merged = new ArrayList<>();
+        long skip = plan.offset();
+        if (plan.sortKeys().isEmpty()) {
+            for (ShardResult result : results) {
+                for (Map<String, Object> row : result.rows()) {
+                    if (merged.size() >= plan.limit()) {
+                        return merged;
+                    }
+                    if (skip > 0) {
+                        skip--;
+                    } else {
+                        merged.add(row);
+                    }
+                }
+            }
+            return merged;
+        }
+
+        Comparator<Map<String, Object>> order = rowOrder(plan.sortKeys(), results);
+        PriorityQueue<Cursor> heads = new PriorityQueue<>((a, b) -> order.compare(a.head, b.head));
+        for (ShardResult result : results) {
+            Cursor cursor = new Cursor(result.rows().iterator());
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        while (!heads.isEmpty() && merged.size() < plan.limit()) {
+            Cursor cursor = heads.poll();
+            if (skip > 0) {
+                skip--;
+            } else {
+                merged.add(cursor.head);
+            }
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    private static final class Cursor {
+        private final Iterator<Map<String, Object>> rows;
+        private Map<String, Object> head;
+
+        Cursor(Iterator<Map<String, Object>> rows) {
+            this.rows = rows;
+        }
+
+        boolean advance() {
+            head = rows.hasNext() ? rows.next() : null;
+            return head != null;
+        }
+    }
+
+    private static Comparator<Map<String, Object>> rowOrder(List<ShardQueryPlan.SortKey> sortKeys, List<ShardResult> results) {
+        Map<String, Object> sample = results.stream()
+            .flatMap(result -> result.rows().stream())
+            .findFirst()
+            .orElse(Map.of());
+        List<String> labels = new ArrayList<>(sample.keySet());
+        Comparator<Map<String, Object>> order = (a, b) -> 0;
+        for (ShardQueryPlan.SortKey key : sortKeys) {
+            String label = key.column();
+            if (label == null) {
+                // Positions count the selected columns, not the added shard column
+                if (key.position() < 1 || key.position() >= labels.size()) {
+                    throw new IllegalArgumentException("ORDER BY position " + key.position() + " is not a selected column.");
+                }
+                label = labels.get(key.position());
+            } else if (!sample.isEmpty() && !sample.containsKey(label)) {
+                // Column names are not case-sensitive, but the labels come back as the database spells them
+                String name = label;
+                label = labels.stream().filter(name::equalsIgnoreCase).findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("ORDER BY " + name
+                        + " must also be selected to merge the results of several shards."));
+            }
+            String column = label;
+            Comparator<Map<String, Object>> byKey = (a, b) -> compareValues(a.get(column), b.get(column), key);
+            order = order.thenComparing(byKey);
+        }
+        return order;
+    }
+
+    private static int compareValues(Object a, Object b, ShardQueryPlan.SortKey key) {
+        if (a == null || b == null) {
+            if (a == b) {
+                return 0;
+            }
+            return (a == null) == key.nullsFirst() ? -1 : 1;
+        }
+        int result;
+        if (a instanceof Double || a instanceof Float || b instanceof Double || b instanceof Float) {
+            result = a instanceof Number x && b instanceof Number y
+                ? Double.compare(x.doubleValue(), y.doubleValue())
+                : a.toString().compareTo(b.toString());
+        } else if (a instanceof Number x && b instanceof Number y) {
+            result = new BigDecimal(x.toString()).compareTo(new BigDecimal(y.toString()));
+        } else if (a instanceof String x && b instanceof String y) {
+            // Closest to MySQL's default case-insensitive collations
+            result = String.CASE_INSENSITIVE_ORDER.compare(x, y);
+        } else if (a instanceof Comparable<?> && a.getClass().isInstance(b)) {
+            @SuppressWarnings("unchecked")
+            Comparable<Object> comparable = (Comparable<Object>) a;
+            result = comparable.compareTo(b);
+        } else {
+            result = a.toString().compareTo(b.toString());
+        }
+        return key.ascending() ? result : -result;
+    }
+
+    private static void cancel(AtomicReference<Statement> statement) {
+        Statement stmt = statement.get();
+        if (stmt != null) {
+            try {
+                stmt.cancel();
+            } catch (SQLException e) {
+                // Already closed; nothing left to cancel
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
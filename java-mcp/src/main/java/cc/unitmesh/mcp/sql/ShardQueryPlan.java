@@ -0,0 +1,104 @@
+package cc.unitmesh.mcp.sql;
+
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.statement.select.Limit;
+import net.sf.jsqlparser.statement.select.OrderByElement;
+import net.sf.jsqlparser.statement.select.Select;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * How to run one query on every shard and merge the results.
+ *
+ * Each shard returns its first {@code offset + limit} rows in the query's order; merging those
+ * sorted lists and skipping {@code offset} rows gives the same rows as running the query on the
+ * union of the shards. GROUP BY, DISTINCT and aggregates are answered per shard, not merged.
+ *
+ * @param shardSql query sent to each shard, with the offset folded into its LIMIT
+ * @param sortKeys ORDER BY of the query, empty to concatenate the shard results
+ * @param offset   rows to skip after merging
+ * @param limit    rows to return after merging
+ * @author AutoDev MCP Team
+ */
+public record ShardQueryPlan(String shardSql, List<SortKey> sortKeys, long offset, long limit) {
+
+    /**
+     * One ORDER BY element, resolved against the result columns when merging.
+     *
+     * @param column     column label, or null if the key is a position
+     * @param position   one-based position in the select list, or 0 if the key is a column
+     * @param ascending  sort direction
+     * @param nullsFirst whether NULL sorts before other values
+     */
+    public record SortKey(String column, int position, boolean ascending, boolean nullsFirst) {
+    }
+
+    /**
+     * Plan a parsed query, which already carries a LIMIT.
+     */
+    public static ShardQueryPlan of(SqlQueryParser.ParsedQuery query) {
+        Select select;
+        try {
+            select = (Select) CCJSqlParserUtil.parse(query.boundedSql());
+        } catch (JSQLParserException e) {
+            throw new IllegalArgumentException("Cannot parse SQL query: " + e.getMessage(), e);
+        }
+        if (select.getOffset() != null || select.getFetch() != null) {
+            throw new IllegalArgumentException("Use LIMIT [offset,] count to page a query across shards.");
+        }
+
+        long offset = 0;
+        long limit = Long.MAX_VALUE;
+        Limit selectLimit = select.getLimit();
+        if (selectLimit != null) {
+            if (selectLimit.getOffset() != null) {
+                offset = literal(selectLimit.getOffset());
+            }
+            limit = literal(selectLimit.getRowCount());
+            // Any shard may hold the rows that end up at the top of the merged result
+            selectLimit.setOffset(null);
+            selectLimit.setRowCount(new LongValue(offset + limit));
+        }
+
+        List<SortKey> sortKeys = new ArrayList<>();
+        if (select.getOrderByElements() != null) {
+            for (OrderByElement element : select.getOrderByElements()) {
+                sortKeys.add(sortKey(element));
+            }
+        }
+        return new ShardQueryPlan(select.toString(), List.copyOf(sortKeys), offset, limit);
+    }
+
+    private static SortKey sortKey(OrderByElement element) {
+        boolean ascending = element.isAsc();
+        // MySQL sorts NULL as the smallest value
+        boolean nullsFirst = element.getNullOrdering() != null
+            ? element.getNullOrdering() == OrderByElement.NullOrdering.NULLS_FIRST
+            : ascending;
+        Expression expression = element.getExpression();
+        if (expression instanceof LongValue position) {
+            return new SortKey(null, (int) position.getValue(), ascending, nullsFirst);
+        }
+        if (expression instanceof Column column) {
+            return new SortKey(unquote(column.getColumnName()), 0, ascending, nullsFirst);
+        }
+        // An expression only matches a result column selected with the same text
+        return new SortKey(expression.toString(), 0, ascending, nullsFirst);
+    }
+
+    private static long literal(Expression expression) {
+        if (expression instanceof LongValue value) {
+            return value.getValue();
+        }
+        throw new IllegalArgumentException("LIMIT must be a number for a query across shards, not " + expression);
+    }
+
+    private static String unquote(String name) {
+        return name.replace("`", "").replace("\"", "");
+    }
+}
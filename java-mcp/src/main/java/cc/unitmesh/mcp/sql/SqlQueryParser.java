@@ -0,0 +1,272 @@
+package cc.unitmesh.mcp.sql;
+
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.Statements;
+import net.sf.jsqlparser.statement.select.Limit;
+import net.sf.jsqlparser.statement.select.ParenthesedSelect;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.Select;
+import net.sf.jsqlparser.statement.select.SetOperationList;
+import net.sf.jsqlparser.util.TablesNamesFinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * Parses query_sql statements, accepts only plain reads and bounds them with a LIMIT so the
+ * database stops producing rows the tool would not return anyway.
+ *
+ * Only a single statement is accepted, and the statement executed is always the one printed
+ * from the parse tree, so text the parser skipped can never reach the database.
+ *
+ * Parsing costs far more than running a small query, and agents repeat the same queries, so
+ * the outcome (rewritten SQL or rejection) is cached by the exact query text. The parse also
+ * yields what QueryResultCache needs: a normalized cache key and the tables the query reads.
+ *
+ * @author AutoDev MCP Team
+ */
+@Component
+@Lazy
+public class SqlQueryParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlQueryParser.class);
+
+    /**
+     * Functions whose result changes between two runs of the same query over the same data.
+     */
+    private static final Pattern NON_DETERMINISTIC = Pattern.compile(
+        "\\b(NOW|SYSDATE|CURDATE|CURTIME|UTC_DATE|UTC_TIME|UTC_TIMESTAMP|UNIX_TIMESTAMP|RAND|UUID|UUID_SHORT"
+            + "|CONNECTION_ID|LAST_INSERT_ID|FOUND_ROWS|ROW_COUNT|USER|CURRENT_USER|SLEEP)\\s*\\("
+            + "|\\bCURRENT_(DATE|TIME|TIMESTAMP)\\b|\\bLOCALTIME(STAMP)?\\b",
+        Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Schemas whose contents change without updating information_schema.tables.UPDATE_TIME.
+     */
+    private static final Set<String> SYSTEM_SCHEMAS = Set.of("information_schema", "performance_schema", "mysql", "sys");
+
+    /**
+     * Runs the parser, which abandons pathological input after a timeout. The parser's own
+     * per-call executor is not shut down when parsing several statements fails, leaking a thread.
+     */
+    private static final ExecutorService PARSE_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "mcp-sql-parser");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int maxRows;
+    private final Map<String, ParsedQuery> cache;
+
+    public SqlQueryParser(@Value("${mcp.sql.max-rows:200}") int maxRows,
+                          @Value("${mcp.sql.parse-cache-size:512}") int cacheSize) {
+        this.maxRows = maxRows;
+        this.cache = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ParsedQuery> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Parse and bound a query.
+     *
+     * @throws IllegalArgumentException if the query cannot be parsed or is not read-only
+     */
+    public ParsedQuery parse(String sql) {
+        if (sql == null || sql.isBlank()) {
+            throw new IllegalArgumentException("Only SELECT queries are allowed.");
+        }
+        ParsedQuery parsed;
+        synchronized (cache) {
+            parsed = cache.get(sql);
+        }
+        if (parsed == null) {
+            parsed = doParse(sql);
+            synchronized (cache) {
+                cache.put(sql, parsed);
+            }
+        }
+        if (parsed.rejection() != null) {
+            throw new IllegalArgumentException(parsed.rejection());
+        }
+        return parsed;
+    }
+
+    /**
+     * Get the query with another row limit than the configured maximum: a lower one for a query
+     * the cost guard allows only a few rows of, a higher one for spooling. A smaller LIMIT of the
+     * query itself is kept. Not cached, as this is the exception.
+     */
+    public String withLimit(ParsedQuery query, int rows) {
+        try {
+            // From the query as written: the bounded SQL has already lost a LIMIT above the maximum
+            Select select = (Select) CCJSqlParserUtil.parseStatements(query.sql(), PARSE_EXECUTOR, null).get(0);
+            applyLimit(select, rows);
+            return select.toString();
+        } catch (JSQLParserException e) {
+            // Parsed before, so this does not happen; JDBC max rows still applies
+            return query.boundedSql();
+        }
+    }
+
+    /**
+     * Get the LIMIT applied to every query.
+     */
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    private ParsedQuery doParse(String sql) {
+        Statements statements;
+        try {
+            statements = CCJSqlParserUtil.parseStatements(sql, PARSE_EXECUTOR, null);
+        } catch (JSQLParserException e) {
+            logger.debug("Cannot parse query: {}", e.getMessage());
+            return ParsedQuery.rejected(sql, "Cannot parse SQL query: " + firstLine(e));
+        }
+        if (statements.size() != 1) {
+            return ParsedQuery.rejected(sql, "Only a single SELECT statement is allowed.");
+        }
+        if (!(statements.get(0) instanceof Select select)) {
+            return ParsedQuery.rejected(sql, "Only SELECT queries are allowed.");
+        }
+        ReadOnlyCheck check = new ReadOnlyCheck();
+        Set<String> names = check.getTables((Statement) select);
+        if (check.problem != null) {
+            return ParsedQuery.rejected(sql, check.problem);
+        }
+        Set<String> tables = tablesRead(names);
+        boolean limited = applyLimit(select, maxRows);
+        String normalized = select.toString();
+        boolean cacheable = tables != null && !tables.isEmpty() && !NON_DETERMINISTIC.matcher(normalized).find();
+        return new ParsedQuery(sql, normalized, limited,
+            cacheable ? normalized : null, cacheable ? Set.copyOf(tables) : Set.of(), null);
+    }
+
+    /**
+     * Walks the whole query, including CTEs, set operation branches, derived tables and
+     * subqueries in expressions, collecting the tables it reads. Locking reads and
+     * SELECT ... INTO write or block at any depth, so they are recorded as the problem.
+     */
+    private static final class ReadOnlyCheck extends TablesNamesFinder<Void> {
+
+        private String problem;
+
+        @Override
+        public <S> Void visit(PlainSelect plainSelect, S context) {
+            check(plainSelect);
+            if ((plainSelect.getIntoTables() != null && !plainSelect.getIntoTables().isEmpty())
+                    || plainSelect.getIntoTempTable() != null) {
+                problem("SELECT ... INTO is not allowed.");
+            }
+            return super.visit(plainSelect, context);
+        }
+
+        @Override
+        public <S> Void visit(SetOperationList setOperationList, S context) {
+            check(setOperationList);
+            return super.visit(setOperationList, context);
+        }
+
+        @Override
+        public <S> Void visit(ParenthesedSelect parenthesedSelect, S context) {
+            check(parenthesedSelect);
+            return super.visit(parenthesedSelect, context);
+        }
+
+        private void check(Select select) {
+            if (select.getForMode() != null || select.getForUpdateTable() != null) {
+                problem("Locking reads (FOR UPDATE / FOR SHARE) are not allowed.");
+            }
+        }
+
+        private void problem(String message) {
+            if (problem == null) {
+                problem = message;
+            }
+        }
+    }
+
+    /**
+     * Add a LIMIT, or lower one that exceeds the maximum. Returns whether the query changed.
+     * A FETCH FIRST clause is left alone; the JDBC max rows still bounds it.
+     */
+    private static boolean applyLimit(Select select, int maxRows) {
+        if (select.getFetch() != null) {
+            return false;
+        }
+        Limit limit = select.getLimit();
+        if (limit == null) {
+            select.setLimit(new Limit().withRowCount(new LongValue(maxRows)));
+            return true;
+        }
+        if (limit.getRowCount() instanceof LongValue rowCount && rowCount.getValue() <= maxRows) {
+            return false;
+        }
+        // Larger literal, LIMIT ALL or a parameter: clamp to the maximum, keeping the offset
+        limit.setRowCount(new LongValue(maxRows));
+        return true;
+    }
+
+    /**
+     * Get the lower-case names of the tables the query reads, without schema or quotes,
+     * or null if it reads a system schema.
+     */
+    private static Set<String> tablesRead(Set<String> names) {
+        Set<String> tables = new TreeSet<>();
+        for (String name : names) {
+            String[] parts = name.replace("`", "").replace("\"", "").toLowerCase(Locale.ROOT).split("\\.");
+            if (parts.length > 1 && SYSTEM_SCHEMAS.contains(parts[parts.length - 2])) {
+                return null;
+            }
+            tables.add(QueryResultCache.normalize(parts[parts.length - 1]));
+        }
+        return tables;
+    }
+
+    private static String firstLine(JSQLParserException e) {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        String message = String.valueOf(cause.getMessage());
+        int newline = message.indexOf('\n');
+        return newline > 0 ? message.substring(0, newline) : message;
+    }
+
+    /**
+     * Outcome of parsing one query text.
+     *
+     * @param sql        the query as submitted
+     * @param boundedSql the query to execute, printed from the parse tree with the LIMIT applied
+     * @param limited    whether a LIMIT was added or lowered
+     * @param cacheKey   normalized query text for the result cache, or null if the result
+     *                   must not be cached (no tables, system tables or non-deterministic functions)
+     * @param tables     lower-case names of the tables read, empty if not cacheable
+     * @param rejection  why the query was rejected, or null if it is allowed
+     */
+    public record ParsedQuery(String sql, String boundedSql, boolean limited, String cacheKey,
+                              Set<String> tables, String rejection) {
+
+        static ParsedQuery rejected(String sql, String rejection) {
+            return new ParsedQuery(sql, null, false, null, Set.of(), rejection);
+        }
+
+        public boolean isCacheable() {
+            return cacheKey != null;
+        }
+    }
+}
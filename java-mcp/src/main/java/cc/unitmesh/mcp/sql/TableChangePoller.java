@@ -0,0 +1,127 @@
+package cc.unitmesh.mcp.sql;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.Lifecycle;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detects changed tables by polling a version query on the primary and invalidates the
+ * QueryResultCache entries that read them.
+ *
+ * The version query returns one row per table: the table name and any value that changes when
+ * the table does. The default is {@code information_schema.tables.UPDATE_TIME}. A checksum
+ * or an application-maintained version column works the same way. The first poll only records
+ * the versions.
+ *
+ * Polling connects to the database, so it is not started with the application but by
+ * SqlService, which is created on the first call of a database tool.
+ *
+ * @author AutoDev MCP Team
+ */
+@Component
+@Lazy
+public class TableChangePoller implements Lifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(TableChangePoller.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final QueryResultCache cache;
+    private final String versionQuery;
+    private final long intervalMs;
+
+    private Map<String, Object> versions;
+    private boolean failing;
+    private volatile ScheduledExecutorService scheduler;
+
+    public TableChangePoller(JdbcTemplate jdbcTemplate, QueryResultCache cache,
+                             @Value("${mcp.sql.result-cache.version-query:}") String versionQuery,
+                             @Value("${mcp.sql.result-cache.poll-interval-ms:2000}") long intervalMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cache = cache;
+        this.versionQuery = versionQuery;
+        this.intervalMs = intervalMs;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (scheduler != null || !cache.isEnabled() || !StringUtils.hasText(versionQuery) || intervalMs <= 0) {
+            return;
+        }
+        ScheduledExecutorService started = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mcp-table-change-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        started.scheduleWithFixedDelay(this::poll, 0, intervalMs, TimeUnit.MILLISECONDS);
+        this.scheduler = started;
+        logger.info("Polling table versions every {} ms for the query result cache", intervalMs);
+    }
+
+    @Override
+    public void stop() {
+        ScheduledExecutorService current = this.scheduler;
+        if (current != null) {
+            this.scheduler = null;
+            current.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    /**
+     * Poll once and invalidate the tables whose version changed (or that appeared or disappeared).
+     */
+    public synchronized void poll() {
+        Map<String, Object> current = new HashMap<>();
+        try {
+            jdbcTemplate.query(versionQuery, (RowCallbackHandler) rs ->
+                current.put(QueryResultCache.normalize(rs.getString(1)), rs.getObject(2)));
+        } catch (RuntimeException e) {
+            if (!failing) {
+                // Entries still expire with the TTL; log once until polling works again
+                logger.warn("Cannot poll table versions, relying on the cache TTL: {}", e.getMessage());
+                failing = true;
+            }
+            return;
+        }
+        failing = false;
+
+        if (versions != null) {
+            List<String> changed = new ArrayList<>();
+            for (Map.Entry<String, Object> entry : current.entrySet()) {
+                if (!versions.containsKey(entry.getKey())
+                        || !Objects.equals(versions.get(entry.getKey()), entry.getValue())) {
+                    changed.add(entry.getKey());
+                }
+            }
+            for (String table : versions.keySet()) {
+                if (!current.containsKey(table)) {
+                    changed.add(table);
+                }
+            }
+            if (!changed.isEmpty()) {
+                int removed = cache.invalidateAll(changed);
+                logger.debug("Tables changed: {}, {} cached query results dropped", changed, removed);
+            }
+        }
+        versions = current;
+    }
+}
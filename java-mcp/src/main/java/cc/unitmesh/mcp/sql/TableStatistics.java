@@ -0,0 +1,173 @@
+package cc.unitmesh.mcp.sql;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Table sizes and column cardinalities from MySQL's information_schema, without scanning the
+ * tables themselves.
+ *
+ * The figures are the optimizer's estimates: InnoDB row counts can be off by tens of percent
+ * and index cardinalities are sampled, so they answer "how big" and "how selective" rather than
+ * "exactly how many". ANALYZE TABLE refreshes them.
+ *
+ * @author AutoDev MCP Team
+ */
+@Component
+@Lazy
+public class TableStatistics {
+
+    private static final Set<String> INTEGER_TYPES = Set.of("tinyint", "smallint", "mediumint", "int", "integer", "bigint");
+
+    private static final String TABLES_SQL = """
+            SELECT table_name, engine, table_rows, avg_row_length, data_length, index_length, update_time
+            FROM information_schema.tables
+            WHERE table_schema = DATABASE()""";
+
+    private static final String COLUMNS_SQL = """
+            SELECT column_name, data_type, is_nullable, column_key
+            FROM information_schema.columns
+            WHERE table_schema = DATABASE() AND table_name = ?
+            ORDER BY ordinal_position""";
+
+    private static final String INDEXES_SQL = """
+            SELECT index_name, non_unique, seq_in_index, column_name, cardinality
+            FROM information_schema.statistics
+            WHERE table_schema = DATABASE() AND table_name = ?
+            ORDER BY index_name, seq_in_index""";
+
+    /**
+     * Primary key suitable for sampling: a single integer column.
+     */
+    public record SamplingKey(String column, long estimatedRows) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TableStatistics(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Size of every table in the current database, largest first.
+     */
+    public List<Map<String, Object>> allTables() {
+        List<Map<String, Object>> tables = new ArrayList<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList(TABLES_SQL + " ORDER BY data_length + index_length DESC")) {
+            tables.add(tableSummary(row));
+        }
+        return tables;
+    }
+
+    /**
+     * Size, columns with their distinct-value estimates, and indexes of one table.
+     *
+     * @throws IllegalArgumentException if there is no such table
+     */
+    public Map<String, Object> table(String tableName) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(TABLES_SQL + " AND table_name = ?", tableName);
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("No table '" + tableName + "' in the current database.");
+        }
+        Map<String, Object> stats = tableSummary(rows.get(0));
+        long estimatedRows = toLong(rows.get(0).get("table_rows"));
+
+        // Distinct values of a column: cardinality of an index it leads, or of a unique index on it alone
+        Map<String, Long> distinct = new LinkedHashMap<>();
+        List<Map<String, Object>> indexes = new ArrayList<>();
+        Map<String, Object> currentIndex = null;
+        for (Map<String, Object> row : jdbcTemplate.queryForList(INDEXES_SQL, tableName)) {
+            String indexName = String.valueOf(row.get("index_name"));
+            String column = String.valueOf(row.get("column_name"));
+            long cardinality = toLong(row.get("cardinality"));
+            if (currentIndex == null || !indexName.equals(currentIndex.get("name"))) {
+                currentIndex = new LinkedHashMap<>();
+                currentIndex.put("name", indexName);
+                currentIndex.put("unique", toLong(row.get("non_unique")) == 0);
+                currentIndex.put("columns", new ArrayList<String>());
+                indexes.add(currentIndex);
+                distinct.merge(column.toLowerCase(Locale.ROOT), cardinality, Math::max);
+            }
+            @SuppressWarnings("unchecked")
+            List<String> columns = (List<String>) currentIndex.get("columns");
+            columns.add(column);
+            // Cardinality of the whole index is that of its last column prefix
+            currentIndex.put("cardinality", cardinality);
+        }
+
+        List<Map<String, Object>> columns = new ArrayList<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList(COLUMNS_SQL, tableName)) {
+            String column = String.valueOf(row.get("column_name"));
+            Map<String, Object> columnStats = new LinkedHashMap<>();
+            columnStats.put("name", column);
+            columnStats.put("type", row.get("data_type"));
+            columnStats.put("nullable", "YES".equals(row.get("is_nullable")));
+            Object key = row.get("column_key");
+            if (key != null && !key.toString().isEmpty()) {
+                columnStats.put("key", key);
+            }
+            Long distinctValues = distinct.get(column.toLowerCase(Locale.ROOT));
+            columnStats.put("distinctEstimate", distinctValues != null ? (Object) distinctValues : "unknown (not indexed)");
+            if (distinctValues != null && estimatedRows > 0) {
+                columnStats.put("selectivity", Math.round(Math.min(1.0, distinctValues / (double) estimatedRows) * 1000) / 1000.0);
+            }
+            columns.add(columnStats);
+        }
+        stats.put("columns", columns);
+        stats.put("indexes", indexes);
+        stats.put("note", "Optimizer estimates from information_schema; run ANALYZE TABLE to refresh them.");
+        return stats;
+    }
+
+    /**
+     * Get the single integer primary key of a table and its estimated row count, or null if
+     * the table has no such key.
+     */
+    public SamplingKey samplingKey(String tableName) {
+        List<Map<String, Object>> keyColumns = new ArrayList<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList(COLUMNS_SQL, tableName)) {
+            if ("PRI".equals(row.get("column_key"))) {
+                keyColumns.add(row);
+            }
+        }
+        if (keyColumns.size() != 1
+                || !INTEGER_TYPES.contains(String.valueOf(keyColumns.get(0).get("data_type")).toLowerCase(Locale.ROOT))) {
+            return null;
+        }
+        return new SamplingKey(String.valueOf(keyColumns.get(0).get("column_name")), estimatedRows(tableName));
+    }
+
+    /**
+     * Get the estimated row count of a table, -1 if unknown.
+     */
+    public long estimatedRows(String tableName) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(TABLES_SQL + " AND table_name = ?", tableName);
+        return rows.isEmpty() ? -1 : toLong(rows.get(0).get("table_rows"));
+    }
+
+    private static Map<String, Object> tableSummary(Map<String, Object> row) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("table", row.get("table_name"));
+        summary.put("engine", row.get("engine"));
+        summary.put("estimatedRows", toLong(row.get("table_rows")));
+        summary.put("avgRowBytes", toLong(row.get("avg_row_length")));
+        summary.put("dataBytes", toLong(row.get("data_length")));
+        summary.put("indexBytes", toLong(row.get("index_length")));
+        if (row.get("update_time") != null) {
+            summary.put("updated", String.valueOf(row.get("update_time")));
+        }
+        return summary;
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : 0;
+    }
+}
@@ -0,0 +1,82 @@
+package cc.unitmesh.mcp.transport;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.UnaryOperator;
+
+/**
+ * Line-oriented input stream that passes every line through an interceptor.
+ * Used to rewrite newline-delimited JSON-RPC messages on the stdio transport.
+ *
+ * @author AutoDev MCP Team
+ */
+public class InterceptingLineInputStream extends InputStream {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final BufferedReader reader;
+    private final UnaryOperator<String> interceptor;
+
+    private byte[] current = EMPTY;
+    private int position;
+    private boolean eof;
+
+    public InterceptingLineInputStream(InputStream delegate, UnaryOperator<String> interceptor) {
+        this.reader = new BufferedReader(new InputStreamReader(delegate, StandardCharsets.UTF_8));
+        this.interceptor = interceptor;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return current[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int count = Math.min(length, current.length - position);
+        System.arraycopy(current, position, buffer, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return current.length - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Make sure there are unread bytes, pulling the next line if needed.
+     */
+    private boolean fill() throws IOException {
+        while (position >= current.length) {
+            if (eof) {
+                return false;
+            }
+            String line = reader.readLine();
+            if (line == null) {
+                eof = true;
+                return false;
+            }
+            current = (interceptor.apply(line) + "\n").getBytes(StandardCharsets.UTF_8);
+            position = 0;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,122 @@
+package cc.unitmesh.mcp.transport;
+
+import cc.unitmesh.mcp.core.MCPInvocationTracker;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rewrites incoming JSON-RPC messages before the MCP SDK sees them.
+ *
+ * The 0.8 SDK drops the request {@code _meta} (and with it the progress token) and the request id
+ * before calling a tool handler, so {@code tools/call} requests get their call metadata copied
+ * into the reserved {@value #META_ARGUMENT} argument, which {@link #extractMeta(Map)} removes again.
+ * The SDK has no handler for {@code notifications/cancelled} either; those are routed to the
+ * {@link MCPInvocationTracker} here and then passed on unchanged.
+ *
+ * @author AutoDev MCP Team
+ */
+public class MCPRequestInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(MCPRequestInterceptor.class);
+
+    /**
+     * Reserved argument carrying call metadata from the transport to the tool handler.
+     */
+    public static final String META_ARGUMENT = "_mcp_meta";
+
+    public static final String PROGRESS_TOKEN = "progressToken";
+
+    public static final String REQUEST_KEY = "requestKey";
+
+    private static final String METHOD_TOOLS_CALL = "tools/call";
+
+    private static final String METHOD_NOTIFICATION_CANCELLED = "notifications/cancelled";
+
+    private final ObjectMapper objectMapper;
+    private final MCPInvocationTracker invocationTracker;
+
+    public MCPRequestInterceptor(ObjectMapper objectMapper, MCPInvocationTracker invocationTracker) {
+        this.objectMapper = objectMapper;
+        this.invocationTracker = invocationTracker;
+    }
+
+    /**
+     * Intercept one incoming message. Returns the message unchanged unless it is a tool call
+     * carrying metadata the tool handler needs.
+     */
+    public String intercept(String message, String sessionId) {
+        // Cheap pre-check, so only tool calls and cancellations pay for tree parsing
+        if (message == null
+                || !(message.contains(METHOD_TOOLS_CALL) || message.contains(METHOD_NOTIFICATION_CANCELLED))) {
+            return message;
+        }
+
+        try {
+            JsonNode root = objectMapper.readTree(message);
+            if (!(root instanceof ObjectNode request) || !(request.get("params") instanceof ObjectNode params)) {
+                return message;
+            }
+
+            String method = request.path("method").asText();
+            if (METHOD_NOTIFICATION_CANCELLED.equals(method)) {
+                handleCancelled(params, sessionId);
+                return message;
+            }
+            if (!METHOD_TOOLS_CALL.equals(method)) {
+                return message;
+            }
+
+            ObjectNode meta = objectMapper.createObjectNode();
+            JsonNode progressToken = params.path("_meta").get(PROGRESS_TOKEN);
+            if (progressToken != null && !progressToken.isNull()) {
+                meta.set(PROGRESS_TOKEN, progressToken);
+            }
+            JsonNode id = request.get("id");
+            if (id != null && !id.isNull()) {
+                meta.put(REQUEST_KEY, MCPInvocationTracker.requestKey(sessionId, id.toString()));
+            }
+            if (meta.isEmpty()) {
+                return message;
+            }
+
+            ObjectNode arguments = params.get("arguments") instanceof ObjectNode existing
+                ? existing
+                : params.putObject("arguments");
+            arguments.set(META_ARGUMENT, meta);
+            return objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            // Let the SDK report the malformed message
+            logger.debug("Cannot intercept message: {}", e.getMessage());
+            return message;
+        }
+    }
+
+    private void handleCancelled(ObjectNode params, String sessionId) {
+        JsonNode requestId = params.get("requestId");
+        if (requestId == null || requestId.isNull()) {
+            return;
+        }
+        String reason = params.hasNonNull("reason") ? params.get("reason").asText() : null;
+        invocationTracker.cancel(MCPInvocationTracker.requestKey(sessionId, requestId.toString()), reason);
+    }
+
+    /**
+     * Remove the call metadata from tool arguments.
+     * Returns an empty map when the call carries no metadata.
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> extractMeta(Map<String, Object> arguments) {
+        if (arguments == null) {
+            return new HashMap<>();
+        }
+        Object meta = arguments.remove(META_ARGUMENT);
+        return meta instanceof Map<?, ?> map ? (Map<String, Object>) map : new HashMap<>();
+    }
+}
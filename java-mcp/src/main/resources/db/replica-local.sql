@@ -0,0 +1,4 @@
+-- Seed data for the replicas-local profile. H2 runs it on every new connection, so it is idempotent.
+CREATE TABLE IF NOT EXISTS replica_info AS SELECT DATABASE() AS name;
+CREATE TABLE IF NOT EXISTS sample_data (id INT PRIMARY KEY, label VARCHAR(64));
+MERGE INTO sample_data KEY (id) SELECT x, CONCAT('row-', x) FROM SYSTEM_RANGE(1, 1000);
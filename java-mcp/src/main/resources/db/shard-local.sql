@@ -0,0 +1,8 @@
+-- Seed data for the shards-local profile. H2 runs it on every new connection, so it is idempotent.
+-- Each shard holds its own range of ids, and amounts that interleave with the other shards.
+CREATE TABLE IF NOT EXISTS shard_orders (id INT PRIMARY KEY, amount INT, note VARCHAR(64));
+MERGE INTO shard_orders KEY (id)
+    SELECT CAST(RIGHT(DATABASE(), 1) AS INT) * 100000 + x,
+           MOD(x * 37 + CAST(RIGHT(DATABASE(), 1) AS INT) * 101, 1000),
+           CONCAT(DATABASE(), '-', x)
+    FROM SYSTEM_RANGE(1, 1000);
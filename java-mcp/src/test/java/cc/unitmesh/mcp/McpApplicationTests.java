@@ -0,0 +1,97 @@
+package cc.unitmesh.mcp;
+
+import cc.unitmesh.mcp.config.MCPServerLifecycle;
+import cc.unitmesh.mcp.core.MCPOutputBudget;
+import cc.unitmesh.mcp.core.MCPResultSerializer;
+import cc.unitmesh.mcp.core.MCPToolCallbackProvider;
+import cc.unitmesh.mcp.core.MCPToolMetrics;
+import io.modelcontextprotocol.client.McpClient;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.client.transport.HttpClientSseClientTransport;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.model.function.FunctionCallback;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts the whole application on the SSE transport; the stdio transport would read the test
+ * runner's stdin.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {"spring.main.web-application-type=servlet", "mcp.server.transport=sse",
+        "mcp.output.max-bytes=65536", "mcp.output.max-items=500", "mcp.metrics.resource-accounting=true"})
+class McpApplicationTests {
+
+    @Autowired
+    private MCPToolCallbackProvider callbackProvider;
+
+    @Autowired
+    private MCPServerLifecycle serverLifecycle;
+
+    @Autowired
+    private MCPResultSerializer resultSerializer;
+
+    @Autowired
+    private MCPToolMetrics metrics;
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void contextLoads() {
+        assertThat(serverLifecycle.isRunning()).isTrue();
+        assertThat(Arrays.stream(callbackProvider.getToolCallbacks()).map(FunctionCallback::getName))
+            .contains("query_sql", "read_file", "server_stats");
+    }
+
+    @Test
+    void configuredOutputBudgetIsInUse() {
+        assertThat(resultSerializer.getDefaultBudget()).isEqualTo(new MCPOutputBudget(65536, 500));
+    }
+
+    @Test
+    void resourceAccountingFollowsTheProperty() {
+        assertThat(metrics.isResourceAccountingEnabled()).isTrue();
+    }
+
+    @Test
+    void toolsRequiringAuthAreNotServedOverSse() {
+        McpSyncClient client = McpClient.sync(new HttpClientSseClientTransport("http://localhost:" + port))
+            .requestTimeout(Duration.ofSeconds(10))
+            .build();
+        try {
+            client.initialize();
+            assertThat(client.listTools().tools()).extracting(McpSchema.Tool::name)
+                .contains("read_file", "server_stats")
+                .doesNotContain("query_sql", "spool_query", "write_file");
+        } finally {
+            client.closeGracefully();
+        }
+    }
+
+    @Test
+    void sseEndpointAnnouncesMessageEndpoint() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/sse"))
+            .timeout(Duration.ofSeconds(5))
+            .build();
+        HttpResponse<Stream<String>> response = HttpClient.newHttpClient()
+            .send(request, HttpResponse.BodyHandlers.ofLines());
+        try (Stream<String> lines = response.body()) {
+            // The first event of a session names the endpoint to post its messages to
+            assertThat(lines.filter(line -> line.startsWith("data:")).findFirst())
+                .hasValueSatisfying(data -> assertThat(data).contains("/mcp/message?sessionId="));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package cc.unitmesh.mcp.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MCPCircuitBreakerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private static MCPCircuitBreaker breaker(long openMs, int halfOpenCalls) {
+        return new MCPCircuitBreaker("db",
+            new MCPCircuitBreaker.Settings(4, 4, 50, 50, 100, openMs, halfOpenCalls));
+    }
+
+    private static void fail(MCPCircuitBreaker breaker, int calls) {
+        for (int i = 0; i < calls; i++) {
+            breaker.onFailure(breaker.acquire(), FAST);
+        }
+    }
+
+    private static void succeed(MCPCircuitBreaker breaker, int calls) {
+        for (int i = 0; i < calls; i++) {
+            breaker.onSuccess(breaker.acquire(), FAST);
+        }
+    }
+
+    @Test
+    void staysClosedUntilMinimumCalls() {
+        MCPCircuitBreaker breaker = breaker(60_000, 1);
+        fail(breaker, 3);
+
+        assertThat(breaker.getState()).isEqualTo(MCPCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void opensAtFailureRateAndRejects() {
+        MCPCircuitBreaker breaker = breaker(60_000, 1);
+        succeed(breaker, 2);
+        fail(breaker, 2);
+
+        assertThat(breaker.getState()).isEqualTo(MCPCircuitBreaker.State.OPEN);
+        assertThatThrownBy(breaker::acquire).isInstanceOf(MCPCircuitOpenException.class);
+        assertThat(breaker.getStats().rejected()).isEqualTo(1);
+        assertThat(breaker.getStats().opened()).isEqualTo(1);
+    }
+
+    @Test
+    void opensAtSlowCallRate() {
+        MCPCircuitBreaker breaker = breaker(60_000, 1);
+        for (int i = 0; i < 4; i++) {
+            breaker.onSuccess(breaker.acquire(), i < 2 ? SLOW : FAST);
+        }
+
+        assertThat(breaker.getState()).isEqualTo(MCPCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void oldOutcomesLeaveTheWindow() {
+        MCPCircuitBreaker breaker = breaker(60_000, 1);
+        fail(breaker, 1);
+        succeed(breaker, 3);
+        // The failure drops out of the window of four
+        succeed(breaker, 1);
+        fail(breaker, 1);
+
+        assertThat(breaker.getState()).isEqualTo(MCPCircuitBreaker.State.CLOSED);
+        assertThat(breaker.getStats().failureRate()).isEqualTo(25.0);
+    }
+
+    @Test
+    void halfOpenProbesCloseTheBreaker() throws InterruptedException {
+        MCPCircuitBreaker breaker = breaker(1, 2);
+        fail(breaker, 4);
+        Thread.sleep(5);
+
+        MCPCircuitBreaker.Permit first = breaker.acquire();
+        assertThat(breaker.getState()).isEqualTo(MCPCircuitBreaker.State.HALF_OPEN);
+        MCPCircuitBreaker.Permit second = breaker.acquire();
+        // Both probes are taken
+        assertThatThrownBy(breaker::acquire).isInstanceOf(MCPCircuitOpenException.class);
+
+        breaker.onSuccess(first, FAST);
+        assertThat(breaker.getState()).isEqualTo(MCPCircuitBreaker.State.HALF_OPEN);
+        breaker.onSuccess(second, FAST);
+        assertThat(breaker.getState()).isEqualTo(MCPCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void failedProbeOpensAgain() throws InterruptedException {
+        MCPCircuitBreaker breaker = breaker(1, 1);
+        fail(breaker, 4);
+        Thread.sleep(5);
+
+        breaker.onFailure(breaker.acquire(), FAST);
+
+        assertThat(breaker.getState()).isEqualTo(MCPCircuitBreaker.State.OPEN);
+        assertThat(breaker.getStats().opened()).isEqualTo(2);
+    }
+
+    @Test
+    void ignoredProbeFreesItsSlot() throws InterruptedException {
+        MCPCircuitBreaker breaker = breaker(1, 1);
+        fail(breaker, 4);
+        Thread.sleep(5);
+
+        breaker.onIgnored(breaker.acquire());
+        breaker.onSuccess(breaker.acquire(), FAST);
+
+        assertThat(breaker.getState()).isEqualTo(MCPCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void resultsFromBeforeAStateChangeAreDiscarded() {
+        MCPCircuitBreaker breaker = breaker(60_000, 1);
+        MCPCircuitBreaker.Permit stale = breaker.acquire();
+        fail(breaker, 4);
+
+        breaker.onSuccess(stale, FAST);
+
+        assertThat(breaker.getState()).isEqualTo(MCPCircuitBreaker.State.OPEN);
+        assertThat(breaker.getStats().windowCalls()).isZero();
+    }
+}
@@ -0,0 +1,120 @@
+package cc.unitmesh.mcp.core;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MCPInvocationSchedulerTest {
+
+    private final List<String> order = new CopyOnWriteArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private MCPInvocationScheduler scheduler;
+
+    @AfterEach
+    void close() {
+        release.countDown();
+        if (scheduler != null) {
+            scheduler.close();
+        }
+    }
+
+    /**
+     * Occupy the only worker until {@link #release} is counted down.
+     */
+    private void blockWorker() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        scheduler.submit(0, () -> {
+            started.countDown();
+            return release.await(10, TimeUnit.SECONDS);
+        }).subscribe();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private CompletableFuture<String> submit(String name, int priority) {
+        return scheduler.submit(priority, () -> {
+            order.add(name);
+            return name;
+        }).toFuture();
+    }
+
+    @Test
+    void waitingCallsRunByPriority() throws Exception {
+        scheduler = new MCPInvocationScheduler(1, 60_000);
+        blockWorker();
+
+        CompletableFuture<String> low = submit("low", 0);
+        CompletableFuture<String> normal = submit("normal", 5);
+        CompletableFuture<String> high = submit("high", 10);
+        CompletableFuture<String> secondHigh = submit("second high", 10);
+        assertThat(scheduler.getStats().queued()).isEqualTo(4);
+        release.countDown();
+
+        CompletableFuture.allOf(low, normal, high, secondHigh).get(5, TimeUnit.SECONDS);
+        assertThat(order).containsExactly("high", "second high", "normal", "low");
+    }
+
+    @Test
+    void waitingCountsAsPriority() throws Exception {
+        scheduler = new MCPInvocationScheduler(1, 20);
+        blockWorker();
+
+        CompletableFuture<String> old = submit("old low", 0);
+        // Waiting 200 ms is worth ten levels at 20 ms each
+        Thread.sleep(200);
+        CompletableFuture<String> higher = submit("new priority 5", 5);
+        CompletableFuture<String> highest = submit("new priority 50", 50);
+        release.countDown();
+
+        CompletableFuture.allOf(old, higher, highest).get(5, TimeUnit.SECONDS);
+        assertThat(order).containsExactly("new priority 50", "old low", "new priority 5");
+    }
+
+    @Test
+    void cancelledCallLeavesTheQueue() throws Exception {
+        scheduler = new MCPInvocationScheduler(1, 60_000);
+        blockWorker();
+
+        Disposable cancelled = scheduler.submit(10, () -> order.add("cancelled")).subscribe();
+        CompletableFuture<String> kept = submit("kept", 0);
+        cancelled.dispose();
+        assertThat(scheduler.getStats().queued()).isEqualTo(1);
+        release.countDown();
+
+        assertThat(kept.get(5, TimeUnit.SECONDS)).isEqualTo("kept");
+        assertThat(order).containsExactly("kept");
+    }
+
+    @Test
+    void closeRejectsQueuedAndNewCalls() throws Exception {
+        scheduler = new MCPInvocationScheduler(1, 60_000);
+        blockWorker();
+        CompletableFuture<String> queued = submit("queued", 0);
+
+        scheduler.close();
+
+        assertThatThrownBy(() -> queued.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThatThrownBy(() -> submit("late", 0).get(5, TimeUnit.SECONDS))
+            .hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(order).isEmpty();
+    }
+
+    @Test
+    void withoutWorkersCallsRunOnTheBoundedElasticScheduler() {
+        scheduler = new MCPInvocationScheduler(0, 60_000);
+
+        String thread = scheduler.submit(10, () -> Thread.currentThread().getName()).block();
+
+        assertThat(thread).startsWith("boundedElastic-");
+        assertThat(scheduler.getStats().threads()).isZero();
+    }
+}
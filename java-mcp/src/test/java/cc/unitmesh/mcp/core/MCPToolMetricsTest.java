@@ -0,0 +1,21 @@
+package cc.unitmesh.mcp.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MCPToolMetricsTest {
+
+    @Test
+    void rejectedCallsAreNotCountedAsCalls() {
+        MCPToolMetrics metrics = new MCPToolMetrics(false);
+        metrics.record("query_sql", MCPToolMetrics.Outcome.SUCCESS, 4_000_000);
+        metrics.record("query_sql", MCPToolMetrics.Outcome.REJECTED, 0);
+        metrics.record("query_sql", MCPToolMetrics.Outcome.REJECTED, 0);
+
+        MCPToolMetrics.ToolStats stats = metrics.getStats("query_sql");
+        assertThat(stats.calls()).isEqualTo(1);
+        assertThat(stats.rejected()).isEqualTo(2);
+        assertThat(stats.averageMillis()).isEqualTo(4.0);
+    }
+}
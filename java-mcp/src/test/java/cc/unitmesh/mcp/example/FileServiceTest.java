@@ -0,0 +1,141 @@
+package cc.unitmesh.mcp.example;
+
+import cc.unitmesh.mcp.file.ContentHashCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileServiceTest {
+
+    private static final Pattern CURSOR = Pattern.compile("\\[offset=(\\d+) fileId=(\\w+)([^]]*)]\n");
+
+    @TempDir
+    Path directory;
+
+    private final FileService service = new FileService(null, null, new ContentHashCache(16));
+
+    private record Tail(long offset, String fileId, String note, String text) {
+    }
+
+    private Tail tail(Path file, Integer lines, Tail cursor) {
+        String result = service.tailFile(file.toString(), lines,
+            cursor == null ? null : cursor.offset(), cursor == null ? null : cursor.fileId());
+        Matcher matcher = CURSOR.matcher(result);
+        assertThat(matcher.lookingAt()).as(result).isTrue();
+        return new Tail(Long.parseLong(matcher.group(1)), matcher.group(2), matcher.group(3),
+            result.substring(matcher.end()));
+    }
+
+    private static void append(Path file, String text) throws Exception {
+        Files.writeString(file, text, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Test
+    void returnsTheLastLinesAndACursorAtTheEnd() throws Exception {
+        Path log = directory.resolve("app.log");
+        append(log, "one\ntwo\nthree\nfour\n");
+
+        Tail tail = tail(log, 2, null);
+
+        assertThat(tail.text()).isEqualTo("three\nfour\n");
+        assertThat(tail.offset()).isEqualTo(Files.size(log));
+        assertThat(tail.note()).isEmpty();
+    }
+
+    @Test
+    void firstCallShowsAnUnterminatedLastLineButTheCursorStaysBeforeIt() throws Exception {
+        Path log = directory.resolve("app.log");
+        append(log, "one\ntwo\nthr");
+
+        Tail tail = tail(log, 2, null);
+
+        assertThat(tail.text()).isEqualTo("two\nthr");
+        assertThat(tail.offset()).isEqualTo("one\ntwo\n".length());
+    }
+
+    @Test
+    void cursorReturnsOnlyCompleteLinesAppendedSince() throws Exception {
+        Path log = directory.resolve("app.log");
+        append(log, "one\n");
+        Tail first = tail(log, 10, null);
+
+        assertThat(tail(log, null, first).text()).isEmpty();
+
+        append(log, "two\nthr");
+        Tail second = tail(log, null, first);
+        assertThat(second.text()).isEqualTo("two\n");
+        assertThat(second.offset()).isEqualTo("one\ntwo\n".length());
+
+        // The line that was still being written comes back complete
+        append(log, "ee\n");
+        Tail third = tail(log, null, second);
+        assertThat(third.text()).isEqualTo("three\n");
+        assertThat(third.offset()).isEqualTo(Files.size(log));
+        assertThat(third.fileId()).isEqualTo(first.fileId());
+    }
+
+    @Test
+    void truncatedFileIsReadFromTheStart() throws Exception {
+        Path log = directory.resolve("app.log");
+        append(log, "a long first line\nsecond line\n");
+        Tail before = tail(log, 10, null);
+
+        Files.writeString(log, "new\n", StandardOpenOption.TRUNCATE_EXISTING);
+        Tail after = tail(log, null, before);
+
+        assertThat(after.note()).contains("truncated");
+        assertThat(after.text()).isEqualTo("new\n");
+        assertThat(after.offset()).isEqualTo(4);
+        assertThat(after.fileId()).isEqualTo(before.fileId());
+    }
+
+    @Test
+    void rotatedFileIsReadFromTheStartEvenWhenItIsLonger() throws Exception {
+        Path log = directory.resolve("app.log");
+        append(log, "old\n");
+        Tail before = tail(log, 10, null);
+
+        Files.move(log, directory.resolve("app.log.1"));
+        append(log, "first line of the new file\nsecond\n");
+        Tail after = tail(log, null, before);
+
+        assertThat(after.fileId()).isNotEqualTo(before.fileId());
+        assertThat(after.note()).contains("rotated");
+        assertThat(after.text()).isEqualTo("first line of the new file\nsecond\n");
+        assertThat(after.offset()).isEqualTo(Files.size(log));
+
+        append(log, "third\n");
+        assertThat(tail(log, null, after).text()).isEqualTo("third\n");
+    }
+
+    @Test
+    void largeBacklogIsReturnedInPiecesOfAtMostOneMegabyte() throws Exception {
+        Path log = directory.resolve("app.log");
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; content.length() < 2_500_000; i++) {
+            content.append("line ").append(i).append('\n');
+        }
+        append(log, content.toString());
+
+        StringBuilder read = new StringBuilder();
+        Tail cursor = new Tail(0, tail(log, 1, null).fileId(), "", "");
+        int calls = 0;
+        do {
+            cursor = tail(log, null, cursor);
+            assertThat(cursor.text().length()).isLessThanOrEqualTo(1024 * 1024);
+            read.append(cursor.text());
+            calls++;
+        } while (cursor.note().contains("more data follows"));
+
+        assertThat(calls).isEqualTo(3);
+        assertThat(read.toString()).isEqualTo(content.toString());
+        assertThat(cursor.offset()).isEqualTo(content.length());
+    }
+}
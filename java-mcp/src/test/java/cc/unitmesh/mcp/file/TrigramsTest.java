@@ -0,0 +1,116 @@
+package cc.unitmesh.mcp.file;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrigramsTest {
+
+    // Pieces of text and of expressions, chosen to hit quantifiers, classes, groups, escapes,
+    // inline flags, supplementary characters and the characters Unicode case folding maps to ASCII
+    private static final String[] TEXT = {
+        "ab", "abc", "c", "k", "K", "K", "s", "S", "ſ", "i", "I", "İ", "ı", "é", "É",
+        ")", "]", ".", "_", "1", "😀", " ", "needle",
+    };
+    private static final String[] REGEX = {
+        "ab", "abc", "c", "k", "K", "s", "S", "i", "é", "\\)", "\\]", "\\.", "_", "\\d", ".", "c?", "b*", "a+",
+        "s{0,2}", "[)]", "[a-c&&[^b]]c", "[]]", "(c|k)", "([)]c)", "😀?", "\\x41", "\\Qa.c\\E", "(?i)",
+        "(?iu)", "(?U)", "(?-i)", "needle", "e{2}", "\\bab",
+    };
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "abcKab=(?iu)abckab",
+        "xſsy=(?iu)xssy",
+        "İdx=(?iu)idx",
+        "abcKab=abckab",
+        "ABCKAB=abckab",
+        "abcxyz=abc[x[y]]yz",
+        "q)xyzabc=q([)]xyz)abc",
+        "ab=ab😀?",
+        "abd=abc?d",
+        "a.b.c=a\\.b\\.c",
+    })
+    void everyFileWithAMatchHasTheRequiredTrigrams(String example) {
+        int split = example.indexOf('=');
+        String text = example.substring(0, split);
+        String regex = example.substring(split + 1);
+        // Examples with a literal are searched case-insensitively, as search_files would
+        boolean ignoreCase = regex.indexOf('(') < 0 && regex.indexOf('[') < 0 && regex.indexOf('\\') < 0
+            && regex.indexOf('?') < 0;
+
+        assertThat(Pattern.compile(ignoreCase ? Pattern.quote(regex) : regex, flags(ignoreCase)).matcher(text).find())
+            .isTrue();
+        assertThat(Trigrams.containsAll(trigramsOf(text), Trigrams.required(regex, !ignoreCase, ignoreCase))).isTrue();
+    }
+
+    @Test
+    void requiredTrigramsHaveNoFalseNegatives() {
+        SplittableRandom random = new SplittableRandom(7);
+        int matches = 0;
+        for (int r = 0; r < 3000; r++) {
+            String regex = join(random, REGEX, 1 + random.nextInt(5));
+            boolean ignoreCase = random.nextBoolean();
+            Pattern pattern;
+            try {
+                pattern = Pattern.compile(regex, flags(ignoreCase));
+            } catch (PatternSyntaxException e) {
+                continue;
+            }
+            int[] required = Trigrams.required(regex, true, ignoreCase);
+            for (int t = 0; t < 200; t++) {
+                String text = join(random, TEXT, 1 + random.nextInt(12));
+                if (pattern.matcher(text).find()) {
+                    matches++;
+                    assertThat(Trigrams.containsAll(trigramsOf(text), required))
+                        .as("/%s/ ignoreCase=%s matches \"%s\"", regex, ignoreCase, text)
+                        .isTrue();
+                }
+            }
+        }
+        assertThat(matches).isGreaterThan(10_000);
+    }
+
+    @Test
+    void literalsOfAnExpression() {
+        assertThat(Trigrams.requiredLiterals("needle_\\d+_found")).containsExactly("needle_", "_found");
+        assertThat(Trigrams.requiredLiterals("abcd?ef")).containsExactly("abc");
+        assertThat(Trigrams.requiredLiterals("foo(bar)+bazz")).containsExactly("foo", "bazz");
+        assertThat(Trigrams.requiredLiterals("foo[)]bar")).containsExactly("foo", "bar");
+        assertThat(Trigrams.requiredLiterals("foo|bar")).isEmpty();
+        assertThat(Trigrams.requiredLiterals("(?x) foo bar")).isEmpty();
+    }
+
+    @Test
+    void caseInsensitiveLiteralLeavesOutTrigramsThatUnicodeFoldsOntoAscii() {
+        assertThat(Trigrams.required("Needle", false, true)).hasSize(4);
+        assertThat(Trigrams.required("Kernel", false, true)).hasSize(3);
+        assertThat(Trigrams.required("Kernel", false, false)).hasSize(4);
+        assertThat(Trigrams.required("ABC", false, false)).isEqualTo(Trigrams.required("abc", false, false));
+    }
+
+    private static int flags(boolean ignoreCase) {
+        // As FileSearcher compiles patterns
+        return Pattern.MULTILINE | (ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0);
+    }
+
+    private static int[] trigramsOf(String text) {
+        return Trigrams.of(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String join(SplittableRandom random, String[] pieces, int count) {
+        StringBuilder joined = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            joined.append(pieces[random.nextInt(pieces.length)]);
+        }
+        return joined.toString();
+    }
+}
@@ -0,0 +1,59 @@
+package cc.unitmesh.mcp.sql;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryResultCacheTest {
+
+    private final SqlQueryParser parser = new SqlQueryParser(200, 16);
+    private final QueryResultCache cache = new QueryResultCache(true, 16, 300, 0);
+
+    @Test
+    void cachesUntilTableChanges() {
+        SqlQueryParser.ParsedQuery query = parser.parse("SELECT * FROM users");
+        AtomicInteger runs = new AtomicInteger();
+
+        cache.get(query, "JSON", runs::incrementAndGet);
+        cache.get(query, "JSON", runs::incrementAndGet);
+        assertThat(runs).hasValue(1);
+
+        cache.invalidate("users");
+        cache.get(query, "JSON", runs::incrementAndGet);
+        assertThat(runs).hasValue(2);
+    }
+
+    @Test
+    void incompleteResultIsNotCached() {
+        SqlQueryParser.ParsedQuery query = parser.parse("SELECT * FROM orders");
+        AtomicInteger runs = new AtomicInteger();
+
+        assertThat(cache.get(query, "JSON", () -> "limited " + runs.incrementAndGet(), result -> false))
+            .isEqualTo("limited 1");
+        assertThat(cache.get(query, "JSON", () -> "full " + runs.incrementAndGet()))
+            .isEqualTo("full 2");
+        assertThat(cache.get(query, "JSON", () -> "full " + runs.incrementAndGet()))
+            .isEqualTo("full 2");
+    }
+
+    @Test
+    void resultReadShortlyAfterAChangeIsNotCached() throws InterruptedException {
+        QueryResultCache lagAware = new QueryResultCache(true, 16, 300, 1);
+        SqlQueryParser.ParsedQuery query = parser.parse("SELECT name FROM users WHERE id = 1");
+        // The primary has the new name as soon as the change is seen; the replica a second later
+        AtomicReference<String> replica = new AtomicReference<>("old");
+
+        assertThat(lagAware.get(query, "JSON", replica::get)).isEqualTo("old");
+        lagAware.invalidate("users");
+        assertThat(lagAware.get(query, "JSON", replica::get)).isEqualTo("old");
+
+        Thread.sleep(1100);
+        replica.set("new");
+        assertThat(lagAware.get(query, "JSON", replica::get)).isEqualTo("new");
+        replica.set("newer, but not seen yet");
+        assertThat(lagAware.get(query, "JSON", replica::get)).isEqualTo("new");
+    }
+}
@@ -0,0 +1,41 @@
+package cc.unitmesh.mcp.sql;
+
+import cc.unitmesh.mcp.core.MCPCancellation;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QuerySamplerTest {
+
+    private final SqlQueryParser parser = new SqlQueryParser(200, 16);
+
+    // Rejected before the sampler touches the database, so it needs none
+    private final QuerySampler sampler = new QuerySampler(null, null, 100_000, 20);
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "SELECT COUNT(*) FROM orders WHERE customer_id IN (SELECT id FROM customers)",
+        "SELECT COUNT(*) FROM orders WHERE EXISTS (SELECT 1 FROM refunds WHERE refunds.order_id = orders.id)",
+        "SELECT id, (SELECT MAX(total) FROM orders) AS top FROM orders",
+        "SELECT COUNT(*) FROM orders WHERE total > (SELECT AVG(total) FROM orders o2)",
+        "WITH big AS (SELECT id FROM customers) SELECT COUNT(*) FROM orders",
+    })
+    void rejectsSubqueries(String sql) {
+        assertThatThrownBy(() -> sampler.sample(parser.parse(sql), 1000, MCPCancellation.NONE))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("subqueries");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "SELECT COUNT(*) FROM orders JOIN customers ON customers.id = orders.customer_id",
+        "SELECT COUNT(*) FROM (SELECT * FROM orders) o",
+        "SELECT id FROM orders UNION SELECT id FROM refunds",
+    })
+    void rejectsQueriesOverMoreThanOneTable(String sql) {
+        assertThatThrownBy(() -> sampler.sample(parser.parse(sql), 1000, MCPCancellation.NONE))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("one table");
+    }
+}
@@ -0,0 +1,140 @@
+package cc.unitmesh.mcp.sql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResultSpoolTest {
+
+    private static final int ROWS = 1000;
+
+    @TempDir
+    Path directory;
+
+    private Connection connection;
+
+    @BeforeEach
+    void openDatabase() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:spool");
+    }
+
+    @AfterEach
+    void closeDatabase() throws Exception {
+        connection.close();
+    }
+
+    private ResultSpool spool(String sql, long maxBytes) throws Exception {
+        return spool(sql, Long.MAX_VALUE, maxBytes);
+    }
+
+    private ResultSpool spool(String sql, long maxRows, long maxBytes) throws Exception {
+        ResultSpool spool = new ResultSpool("test", sql, directory.resolve("test.spool"), maxRows, maxBytes);
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            String truncation = spool.write(rs, () -> { });
+            spool.finish(truncation == null ? ResultSpool.State.DONE : ResultSpool.State.TRUNCATED, truncation);
+        }
+        return spool;
+    }
+
+    @Test
+    void pagesReturnTheRowsAsWritten() throws Exception {
+        ResultSpool spool = spool("SELECT X AS id, -X * 1000000000000 AS big, CAST(X AS DOUBLE PRECISION) / 4 AS ratio, "
+            + "'row ' || X || ' ü€' AS label, X % 2 = 0 AS even, "
+            + "CASE WHEN X % 3 = 0 THEN NULL ELSE X END AS maybe, "
+            + "CAST(X AS NUMERIC(20, 2)) AS amount FROM SYSTEM_RANGE(1, " + ROWS + ")", Long.MAX_VALUE);
+
+        assertThat(spool.getState()).isEqualTo(ResultSpool.State.DONE);
+        assertThat(spool.getRowCount()).isEqualTo(ROWS);
+        assertThat(spool.getColumns()).containsExactly("ID", "BIG", "RATIO", "LABEL", "EVEN", "MAYBE", "AMOUNT");
+
+        // Crosses an index boundary and starts between two index entries
+        List<Object[]> page = spool.readPage(250, 10);
+        assertThat(page).hasSize(10);
+        for (int i = 0; i < page.size(); i++) {
+            long x = 251 + i;
+            assertThat(page.get(i)).containsExactly(x, -x * 1_000_000_000_000L,
+                x / 4.0,
+                "row " + x + " ü€", x % 2 == 0, x % 3 == 0 ? null : x, x + ".00");
+        }
+    }
+
+    @Test
+    void everyRowIsReadOnceAcrossPages() throws Exception {
+        ResultSpool spool = spool("SELECT X AS id FROM SYSTEM_RANGE(1, " + ROWS + ")", Long.MAX_VALUE);
+
+        long expected = 1;
+        for (long offset = 0; offset < ROWS; offset += 99) {
+            for (Object[] row : spool.readPage(offset, 99)) {
+                assertThat(row[0]).isEqualTo(expected++);
+            }
+        }
+        assertThat(expected).isEqualTo(ROWS + 1);
+        assertThat(spool.readPage(ROWS, 10)).isEmpty();
+        assertThat(spool.readPage(ROWS - 1, 10)).hasSize(1);
+    }
+
+    @Test
+    void stopsAtSizeLimit() throws Exception {
+        ResultSpool spool = spool("SELECT X AS id, REPEAT('x', 200) AS padding FROM SYSTEM_RANGE(1, 10000)", 1);
+
+        assertThat(spool.getState()).isEqualTo(ResultSpool.State.TRUNCATED);
+        assertThat(spool.getRowCount()).isBetween(1L, 9999L);
+        List<Object[]> last = spool.readPage(spool.getRowCount() - 1, 10);
+        assertThat(last).hasSize(1);
+        assertThat(last.get(0)[0]).isEqualTo(spool.getRowCount());
+    }
+
+    @Test
+    void stopsAtRowLimitOnlyIfThereAreMoreRows() throws Exception {
+        ResultSpool truncated = spool("SELECT X AS id FROM SYSTEM_RANGE(1, 301)", 300, Long.MAX_VALUE);
+
+        assertThat(truncated.getState()).isEqualTo(ResultSpool.State.TRUNCATED);
+        assertThat(truncated.getError()).contains("row limit of 300");
+        assertThat(truncated.getRowCount()).isEqualTo(300);
+        assertThat(truncated.readPage(299, 10)).hasSize(1);
+        truncated.delete();
+
+        ResultSpool complete = spool("SELECT X AS id FROM SYSTEM_RANGE(1, 300)", 300, Long.MAX_VALUE);
+
+        assertThat(complete.getState()).isEqualTo(ResultSpool.State.DONE);
+        assertThat(complete.getRowCount()).isEqualTo(300);
+    }
+
+    @Test
+    void truncatedSpoolSaysSoInTheHeader() throws Exception {
+        ResultSpoolManager manager = new ResultSpoolManager(directory.toString(), 1, 4, 1024, 30);
+        try {
+            ResultSpool spool = manager.start("SELECT X FROM SYSTEM_RANGE(1, 51)", 50, (cancellation, consumer) -> {
+                try (Statement statement = connection.createStatement();
+                     ResultSet rs = statement.executeQuery("SELECT X FROM SYSTEM_RANGE(1, 51)")) {
+                    consumer.accept(rs);
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (spool.getState() == ResultSpool.State.RUNNING && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            Map<String, Object> header = manager.describe(spool, 0, -1);
+            assertThat(header).containsEntry("state", "TRUNCATED").containsEntry("rowsSpooled", 50L)
+                .containsEntry("truncated", "row limit of 50 rows reached").doesNotContainKey("error");
+        } finally {
+            manager.stop();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package cc.unitmesh.mcp.sql;
+
+import cc.unitmesh.mcp.core.MCPCancellation;
+import cc.unitmesh.mcp.core.MCPProgressReporter;
+import cc.unitmesh.mcp.datasource.ShardRegistry;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ShardQueryExecutorTest {
+
+    // Ids 1..30 dealt out over three shards, with a null score on every seventh id
+    private static final int SHARDS = 3;
+    private static final int ROWS = 30;
+
+    private static ShardRegistry registry;
+    private static ShardQueryExecutor executor;
+
+    private final SqlQueryParser parser = new SqlQueryParser(200, 16);
+
+    @BeforeAll
+    static void createShards() {
+        Map<String, HikariDataSource> dataSources = new LinkedHashMap<>();
+        for (int shard = 0; shard < SHARDS; shard++) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setJdbcUrl("jdbc:h2:mem:merge" + shard + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+            dataSources.put("s" + shard, dataSource);
+        }
+        registry = new ShardRegistry(dataSources);
+        for (int shard = 0; shard < SHARDS; shard++) {
+            var jdbc = registry.getJdbcTemplate("s" + shard);
+            jdbc.execute("CREATE TABLE item (id INT PRIMARY KEY, score INT)");
+            for (int id = shard + 1; id <= ROWS; id += SHARDS) {
+                jdbc.update("INSERT INTO item VALUES (?, ?)", id, id % 7 == 0 ? null : id % 10);
+            }
+        }
+        executor = new ShardQueryExecutor(registry, 10_000, 4);
+    }
+
+    @AfterAll
+    static void closeShards() {
+        registry.close();
+    }
+
+    private List<Object> gather(String sql) {
+        ShardQueryPlan plan = ShardQueryPlan.of(parser.parse(sql));
+        return executor.gather(plan, registry.getNames(), MCPProgressReporter.NOOP, MCPCancellation.NONE);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> column(List<Object> output, String label) {
+        List<Object> values = new ArrayList<>();
+        for (Object row : output.subList(1, output.size())) {
+            values.add(((Map<String, Object>) row).get(label));
+        }
+        return values;
+    }
+
+    @Test
+    void mergesSortedShardsInOrderAndPagesTheMergedResult() {
+        List<Object> output = gather("SELECT id FROM item ORDER BY id DESC LIMIT 4, 6");
+
+        assertThat(column(output, "ID")).containsExactly(26, 25, 24, 23, 22, 21);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> header = (Map<String, Object>) output.get(0);
+        assertThat(header).containsEntry("rows", 6).containsEntry("ordered", true).containsEntry("partial", false);
+    }
+
+    @Test
+    void mergesOnSeveralKeysWithNullsSortedFirst() {
+        List<Object> output = gather("SELECT id, score FROM item ORDER BY score, id DESC LIMIT 8");
+
+        // MySQL sorts NULL first in ascending order; ties on score are broken by id
+        assertThat(column(output, "SCORE")).containsExactly(null, null, null, null, 0, 0, 0, 1);
+        assertThat(column(output, "ID")).containsExactly(28, 21, 14, 7, 30, 20, 10, 11);
+    }
+
+    @Test
+    void mergeMatchesTheQueryOnTheUnionOfTheShards() {
+        List<Object> output = gather("SELECT id, score FROM item ORDER BY 2 DESC, 1 LIMIT 3, 5");
+
+        List<Integer> expected = new ArrayList<>();
+        for (int id = 1; id <= ROWS; id++) {
+            expected.add(id);
+        }
+        expected.sort((a, b) -> {
+            Integer scoreA = a % 7 == 0 ? null : a % 10;
+            Integer scoreB = b % 7 == 0 ? null : b % 10;
+            if (!Objects.equals(scoreA, scoreB)) {
+                // Descending with NULL last
+                return scoreA == null ? 1 : scoreB == null ? -1 : scoreB - scoreA;
+            }
+            return a - b;
+        });
+        assertThat(column(output, "ID")).containsExactlyElementsOf(expected.subList(3, 8));
+    }
+
+    @Test
+    void withoutOrderByConcatenatesTheShards() {
+        List<Object> output = gather("SELECT id FROM item LIMIT 12");
+
+        // Each shard holds ten rows: all of the first shard, then the first two of the second
+        assertThat(column(output, "_shard")).containsExactly("s0", "s0", "s0", "s0", "s0", "s0", "s0", "s0",
+            "s0", "s0", "s1", "s1");
+    }
+
+    @Test
+    void matchesOrderByColumnsWhateverTheirCase() {
+        List<Object> output = gather("SELECT Id FROM item ORDER BY iD LIMIT 3");
+
+        assertThat(column(output, "ID")).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void rejectsOrderByColumnThatIsNotSelected() {
+        assertThatThrownBy(() -> gather("SELECT id FROM item ORDER BY score LIMIT 5"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("must also be selected");
+    }
+}
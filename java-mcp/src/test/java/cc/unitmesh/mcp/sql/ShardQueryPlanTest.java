@@ -0,0 +1,64 @@
+package cc.unitmesh.mcp.sql;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ShardQueryPlanTest {
+
+    private final SqlQueryParser parser = new SqlQueryParser(200, 16);
+
+    private ShardQueryPlan plan(String sql) {
+        return ShardQueryPlan.of(parser.parse(sql));
+    }
+
+    @Test
+    void foldsTheOffsetIntoTheShardLimit() {
+        ShardQueryPlan plan = plan("SELECT id, name FROM users ORDER BY id DESC LIMIT 10, 5");
+
+        assertThat(plan.offset()).isEqualTo(10);
+        assertThat(plan.limit()).isEqualTo(5);
+        assertThat(plan.shardSql()).endsWith("LIMIT 15").doesNotContain("10");
+    }
+
+    @Test
+    void queryWithoutLimitGetsTheRowLimitOfTheParser() {
+        ShardQueryPlan plan = plan("SELECT id FROM users");
+
+        assertThat(plan.offset()).isZero();
+        assertThat(plan.limit()).isEqualTo(200);
+        assertThat(plan.sortKeys()).isEmpty();
+    }
+
+    @Test
+    void resolvesSortKeys() {
+        ShardQueryPlan plan = plan("SELECT id, `name`, age FROM users ORDER BY `name`, 3 DESC, id ASC NULLS LAST LIMIT 20");
+
+        assertThat(plan.sortKeys()).containsExactly(
+            new ShardQueryPlan.SortKey("name", 0, true, true),
+            new ShardQueryPlan.SortKey(null, 3, false, false),
+            new ShardQueryPlan.SortKey("id", 0, true, false));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "SELECT id FROM users ORDER BY id OFFSET 5 ROWS",
+        "SELECT id FROM users ORDER BY id FETCH FIRST 5 ROWS ONLY",
+    })
+    void rejectsOffsetAndFetch(String sql) {
+        assertThatThrownBy(() -> plan(sql))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("LIMIT [offset,] count");
+    }
+
+    @Test
+    void rejectsOffsetThatIsNotANumber() {
+        // The parser already replaces a row count that is not a number with its row limit
+        assertThatThrownBy(() -> plan("SELECT id FROM users LIMIT ?, 5"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("LIMIT must be a number");
+    }
+}
@@ -0,0 +1,139 @@
+package cc.unitmesh.mcp.sql;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SqlQueryParserTest {
+
+    private final SqlQueryParser parser = new SqlQueryParser(200, 16);
+
+    @Test
+    void addsLimitToUnboundedQuery() {
+        SqlQueryParser.ParsedQuery query = parser.parse("select id, name from users where age > 30");
+
+        assertThat(query.limited()).isTrue();
+        assertThat(query.boundedSql()).isEqualTo("SELECT id, name FROM users WHERE age > 30 LIMIT 200");
+        assertThat(query.tables()).containsExactly("users");
+        assertThat(query.isCacheable()).isTrue();
+    }
+
+    @Test
+    void lowersLargerLimitAndKeepsOffset() {
+        SqlQueryParser.ParsedQuery query = parser.parse("SELECT * FROM users LIMIT 10, 5000");
+
+        assertThat(query.boundedSql()).isEqualTo("SELECT * FROM users LIMIT 10, 200");
+    }
+
+    @Test
+    void executesParsedQueryEvenWhenLimitIsKept() {
+        SqlQueryParser.ParsedQuery query = parser.parse("SELECT *   FROM users /* note */ LIMIT 5");
+
+        assertThat(query.limited()).isFalse();
+        assertThat(query.boundedSql()).isEqualTo("SELECT * FROM users LIMIT 5");
+    }
+
+    @Test
+    void acceptsCtesUnionsAndSubqueries() {
+        SqlQueryParser.ParsedQuery query = parser.parse(
+            "WITH recent AS (SELECT user_id FROM orders WHERE created_at > '2024-01-01') "
+                + "SELECT id FROM users WHERE id IN (SELECT user_id FROM recent) "
+                + "UNION SELECT id FROM (SELECT id FROM admins) a");
+
+        assertThat(query.tables()).containsExactlyInAnyOrder("orders", "users", "admins");
+    }
+
+    @Test
+    void doesNotCacheNonDeterministicOrSystemQueries() {
+        assertThat(parser.parse("SELECT * FROM users WHERE created_at > NOW()").isCacheable()).isFalse();
+        assertThat(parser.parse("SELECT * FROM information_schema.tables").isCacheable()).isFalse();
+        assertThat(parser.parse("SELECT 1").isCacheable()).isFalse();
+    }
+
+    @Test
+    void acceptsTrailingSemicolonAndSemicolonInLiteral() {
+        assertThat(parser.parse("SELECT * FROM t WHERE name = 'a;b';").boundedSql())
+            .isEqualTo("SELECT * FROM t WHERE name = 'a;b' LIMIT 200");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "SELECT * FROM t LIMIT 1; DELETE FROM t",
+        "SELECT * FROM t; SELECT * FROM u",
+    })
+    void rejectsMultipleStatements(String sql) {
+        assertThatThrownBy(() -> parser.parse(sql))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("single SELECT");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "DELETE FROM t",
+        "UPDATE t SET a = 1",
+        "INSERT INTO t VALUES (1)",
+        "DROP TABLE t",
+    })
+    void rejectsWrites(String sql) {
+        assertThatThrownBy(() -> parser.parse(sql))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Only SELECT");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "SELECT * FROM t FOR UPDATE",
+        "SELECT * FROM t FOR SHARE",
+        "(SELECT * FROM t FOR UPDATE)",
+        "SELECT * FROM (SELECT * FROM t FOR UPDATE) d",
+        "SELECT * FROM u WHERE id IN (SELECT id FROM t FOR UPDATE)",
+        "WITH locked AS (SELECT * FROM t FOR UPDATE) SELECT * FROM locked",
+        "SELECT a FROM t UNION SELECT a FROM u FOR UPDATE",
+        "SELECT a FROM t UNION (SELECT a FROM u FOR UPDATE)",
+    })
+    void rejectsLockingReadsAtAnyDepth(String sql) {
+        assertThatThrownBy(() -> parser.parse(sql))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Locking reads");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "SELECT * INTO backup FROM t",
+        "SELECT * FROM (SELECT * INTO backup FROM t) d",
+        "WITH c AS (SELECT * INTO backup FROM t) SELECT * FROM c",
+        "SELECT a FROM t UNION SELECT a INTO backup FROM u",
+    })
+    void rejectsSelectIntoAtAnyDepth(String sql) {
+        assertThatThrownBy(() -> parser.parse(sql))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("INTO");
+    }
+
+    @Test
+    void rejectsUnparsableQuery() {
+        assertThatThrownBy(() -> parser.parse("SELEKT * FROM t"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Cannot parse");
+    }
+
+    @Test
+    void withLimitLowersTheBound() {
+        SqlQueryParser.ParsedQuery query = parser.parse("SELECT * FROM users ORDER BY id");
+
+        assertThat(parser.withLimit(query, 20)).isEqualTo("SELECT * FROM users ORDER BY id LIMIT 20");
+    }
+
+    @Test
+    void withLimitRaisesTheBoundButKeepsTheQueryLimit() {
+        assertThat(parser.withLimit(parser.parse("SELECT * FROM users"), 5000))
+            .isEqualTo("SELECT * FROM users LIMIT 5000");
+        assertThat(parser.withLimit(parser.parse("SELECT * FROM users LIMIT 10, 3000"), 5000))
+            .isEqualTo("SELECT * FROM users LIMIT 10, 3000");
+        assertThat(parser.withLimit(parser.parse("SELECT * FROM users LIMIT 9000"), 5000))
+            .isEqualTo("SELECT * FROM users LIMIT 5000");
+    }
+}